@@ -0,0 +1,91 @@
+package com.accordion.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing and checking tokens, as paid on every login, refresh and authenticated
+ * request. Run with the benchmark profile (see pom.xml); {@code -prof gc} adds the bytes
+ * allocated per call.
+ *
+ * The baseline methods do what JwtUtil did before it cached its key, parser and serializer:
+ * derive the key from the secret and build a parser for every call, and leave jjwt to find
+ * a JSON serializer when signing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "BenchmarkSecretKeyMinimum32BytesForHS256Algorithm";
+
+    private JwtUtil jwtUtil;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3600000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 1209600000L);
+        jwtUtil.init();
+        accessToken = jwtUtil.generateToken("alice");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("alice");
+    }
+
+    @Benchmark
+    public Claims parseAccessToken() {
+        return jwtUtil.parseAccessToken(accessToken);
+    }
+
+    @Benchmark
+    public String generateTokenBaseline() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtUtil.TOKEN_TYPE_CLAIM, JwtUtil.ACCESS_TOKEN);
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject("alice")
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 3600000L))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public Claims parseAccessTokenBaseline() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(accessToken)
+                .getBody();
+    }
+}
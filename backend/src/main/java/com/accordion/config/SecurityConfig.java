@@ -1,7 +1,10 @@
 package com.accordion.config;
 
+import com.accordion.security.BoundedPasswordEncoder;
 import com.accordion.security.JwtAuthenticationFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -26,9 +29,24 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
-    @Bean
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${app.password.hashing.threads:0}")
+    private int hashingThreads;
+
+    @Value("${app.password.hashing.queue-capacity:50}")
+    private int hashingQueueCapacity;
+
+    // Hashing runs on its own bounded pool (one thread per core by default) instead of request threads
+    @Bean(destroyMethod = "shutdown")
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), threads,
+                hashingQueueCapacity, meterRegistry);
     }
 
     @Bean
@@ -49,9 +67,11 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/api/users/register", "/api/users/login").permitAll()
+                // Refresh and logout check the tokens they are given themselves; those may have expired
+                .requestMatchers("/api/users/register", "/api/users/login",
+                        "/api/users/refresh", "/api/users/logout").permitAll()
                 // WebSocket endpoint is public for initial handshake, but STOMP CONNECT is authenticated
-                .requestMatchers("/ws/**").permitAll()
+                .requestMatchers("/ws/**", "/ws-native").permitAll()
                 // WARNING: H2 console should be disabled in production or protected with authentication
                 .requestMatchers("/h2-console/**").permitAll()
                 .anyRequest().authenticated()
@@ -1,11 +1,17 @@
 package com.accordion.config;
 
+import com.accordion.security.RateLimitInterceptor;
 import com.accordion.security.WebSocketAuthInterceptor;
+import com.accordion.websocket.CompressionHandshakeHandler;
+import com.accordion.websocket.SubscriptionReplayInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -17,12 +23,34 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Value("${app.cors.allowed-origins}")
     private String allowedOrigins;
 
+    @Value("${app.websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
     @Autowired
     private WebSocketAuthInterceptor webSocketAuthInterceptor;
 
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    @Autowired
+    private SubscriptionReplayInterceptor subscriptionReplayInterceptor;
+
+    @Autowired
+    private CompressionHandshakeHandler compressionHandshakeHandler;
+
+    // Lazy: the scheduler is created by the broker configuration that this class feeds
+    @Autowired
+    @Lazy
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler messageBrokerTaskScheduler;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        // Server heart-beats let clients detect a dead connection; the broker also drops
+        // sessions whose client stops sending them
+        config.enableSimpleBroker("/topic")
+                .setHeartbeatValue(new long[] {heartbeatMs, heartbeatMs})
+                .setTaskScheduler(messageBrokerTaskScheduler);
         config.setApplicationDestinationPrefixes("/app");
     }
 
@@ -38,11 +66,19 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // Register endpoint with SockJS support for browser compatibility
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns(origins)
+                .setHandshakeHandler(compressionHandshakeHandler)
                 .withSockJS();
+        
+        // Plain WebSocket endpoint for native clients such as the desktop app: STOMP frames go
+        // straight over the socket without SockJS framing or fallback transports
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns(origins)
+                .setHandshakeHandler(compressionHandshakeHandler);
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(webSocketAuthInterceptor);
+        // Rate limits run after authentication so they can key on the principal
+        registration.interceptors(webSocketAuthInterceptor, rateLimitInterceptor, subscriptionReplayInterceptor);
     }
 }
@@ -1,13 +1,24 @@
 package com.accordion.controller;
 
+import com.accordion.dto.ChannelSummary;
 import com.accordion.model.Channel;
 import com.accordion.service.ChannelService;
+import com.accordion.service.MessageTransferService;
+import com.accordion.websocket.PresenceRegistry;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
 import java.util.List;
 import java.util.Map;
 
@@ -16,19 +27,49 @@ import java.util.Map;
 @RequestMapping("/api/channels")
 public class ChannelController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Value("${app.channel.name-max-length:50}")
     private int maxChannelNameLength;
 
     @Value("${app.channel.name-min-length:3}")
     private int minChannelNameLength;
 
+    @Value("${app.broadcast.max-window-ms:100}")
+    private int maxBroadcastWindowMs;
+
     @Autowired
     private ChannelService channelService;
 
+    @Autowired
+    private MessageTransferService messageTransferService;
+
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
+    /**
+     * Lists channels in id order, one page at a time: pass the last id of a page as
+     * {@code afterId} to get the next one; a page shorter than {@code limit} is the last.
+     *
+     * Responses carry an ETag derived from the channel list version, and a matching
+     * If-None-Match is answered with 304 before the database is queried.
+     */
     @GetMapping
-    public ResponseEntity<List<Channel>> getAllChannels() {
-        List<Channel> channels = channelService.getAllChannels();
-        return ResponseEntity.ok(channels);
+    public ResponseEntity<List<ChannelSummary>> getAllChannels(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Read before the query, so a concurrent change can only make the ETag older than the body
+        String eTag = "\"" + channelService.getChannelListVersion() + "\"";
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+        limit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .body(channelService.getChannelSummaries(afterId, limit));
     }
 
     @GetMapping("/{id}")
@@ -38,6 +79,18 @@ public class ChannelController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Lists the users currently online in the channel, sorted by name. Later changes arrive
+     * as deltas on /topic/presence/{id}.
+     */
+    @GetMapping("/{id}/presence")
+    public ResponseEntity<?> getPresence(@PathVariable Long id) {
+        if (channelService.getChannelById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("channelId", id, "online", presenceRegistry.getOnlineUsers(id)));
+    }
+
     @PostMapping
     public ResponseEntity<?> createChannel(@RequestBody Map<String, String> payload) {
         try {
@@ -81,4 +134,156 @@ public class ChannelController {
                     .body(Map.of("error", "Failed to create channel"));
         }
     }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> updateChannel(@PathVariable Long id, @RequestBody Map<String, Object> payload,
+                                           Principal principal) {
+        Channel channel = channelService.getChannelById(id).orElse(null);
+        if (channel == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // Only the channel creator may change its settings
+        if (principal == null || !principal.getName().equals(channel.getCreatedBy())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Only the channel creator can change channel settings"));
+        }
+
+        try {
+            Integer maxAgeDays = payload.containsKey("retentionMaxAgeDays")
+                    ? parseRetentionValue(payload.get("retentionMaxAgeDays"), "retentionMaxAgeDays")
+                    : channel.getRetentionMaxAgeDays();
+            Integer maxMessages = payload.containsKey("retentionMaxMessages")
+                    ? parseRetentionValue(payload.get("retentionMaxMessages"), "retentionMaxMessages")
+                    : channel.getRetentionMaxMessages();
+
+            Integer broadcastWindowMs = payload.containsKey("broadcastWindowMs")
+                    ? parseBroadcastWindow(payload.get("broadcastWindowMs"))
+                    : null;
+
+            String description = null;
+            if (payload.containsKey("description")) {
+                Object value = payload.get("description");
+                if (value != null && !(value instanceof String)) {
+                    throw new IllegalArgumentException("description must be a string or null");
+                }
+                description = (String) value;
+                // Validate description length (matches JPA column limit)
+                if (description != null && description.length() > 500) {
+                    throw new IllegalArgumentException("Channel description cannot exceed 500 characters");
+                }
+            }
+
+            Channel updated = channel;
+            if (payload.containsKey("retentionMaxAgeDays") || payload.containsKey("retentionMaxMessages")) {
+                updated = channelService.updateRetention(id, maxAgeDays, maxMessages);
+            }
+            if (payload.containsKey("broadcastWindowMs")) {
+                updated = channelService.updateBroadcastWindow(id, broadcastWindowMs);
+            }
+            if (payload.containsKey("description")) {
+                updated = channelService.updateDescription(id, description);
+            }
+            return ResponseEntity.ok(updated);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Deletes the channel and its history. Subscribers of /topic/channels are told at once.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteChannel(@PathVariable Long id, Principal principal) {
+        Channel channel = channelService.getChannelById(id).orElse(null);
+        if (channel == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // Only the channel creator may delete it, like changing its settings
+        if (principal == null || !principal.getName().equals(channel.getCreatedBy())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Only the channel creator can delete the channel"));
+        }
+        try {
+            channelService.deleteChannel(id);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Streams the channel's full history as NDJSON, oldest first.
+     * Written straight to the response so the body is sent chunked while rows are read.
+     */
+    @GetMapping(value = "/{id}/export", produces = "application/x-ndjson")
+    public void exportChannel(@PathVariable Long id, HttpServletResponse response) throws IOException {
+        Channel channel = channelService.getChannelById(id).orElse(null);
+        if (channel == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        // Encoded by the builder: channel names may hold quotes or non-ASCII characters
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(channel.getName() + ".ndjson", StandardCharsets.UTF_8)
+                .build()
+                .toString());
+        messageTransferService.exportChannel(id, response.getOutputStream());
+    }
+
+    @PostMapping(value = "/{id}/import", consumes = {"application/x-ndjson", "text/plain"})
+    public ResponseEntity<?> importChannel(@PathVariable Long id, InputStream body, Principal principal)
+            throws IOException {
+        Channel channel = channelService.getChannelById(id).orElse(null);
+        if (channel == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // Importing rewrites history, so it is limited to the channel creator like other settings
+        if (principal == null || !principal.getName().equals(channel.getCreatedBy())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Only the channel creator can import messages"));
+        }
+        MessageTransferService.ImportResult result = messageTransferService.importChannel(id, body);
+        return ResponseEntity.ok(Map.of("imported", result.imported(), "skipped", result.skipped()));
+    }
+
+    // If-None-Match holds one or more, possibly weak, ETags, or *
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Integer parseBroadcastWindow(Object value) {
+        if (value == null || Integer.valueOf(0).equals(value)) {
+            return null;
+        }
+        if (!(value instanceof Integer) || (Integer) value < 0 || (Integer) value > maxBroadcastWindowMs) {
+            throw new IllegalArgumentException(
+                    "broadcastWindowMs must be a whole number from 0 to " + maxBroadcastWindowMs + " or null");
+        }
+        return (Integer) value;
+    }
+
+    // Null clears the limit; otherwise a positive whole number is required
+    private Integer parseRetentionValue(Object value, String field) {
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Integer) || (Integer) value < 1) {
+            throw new IllegalArgumentException(field + " must be a positive whole number or null");
+        }
+        return (Integer) value;
+    }
 }
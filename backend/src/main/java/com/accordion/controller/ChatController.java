@@ -3,9 +3,12 @@ package com.accordion.controller;
 import com.accordion.model.ChatMessage;
 import com.accordion.model.TypingIndicator;
 import com.accordion.service.ChatService;
+import com.accordion.service.MessageSearchService;
 import com.accordion.util.ValidationUtils;
+import com.accordion.websocket.MessageBroadcaster;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -16,12 +19,19 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 @Controller
 public class ChatController {
 
+    // Chat messages are published through MessageBroadcaster rather than @SendTo so channels
+    // can coalesce them; typing indicators are never batched
+    private static final String LEGACY_TOPIC = "/topic/messages";
+    private static final String CHANNEL_TOPIC_PREFIX = "/topic/messages/";
+
     @Value("${app.message.max-length}")
     private int maxMessageLength;
 
@@ -31,15 +41,20 @@ public class ChatController {
     @Value("${app.username.min-length}")
     private int minUsernameLength;
 
+    @Value("${app.message.max-batch-size:100}")
+    private int maxBatchSize;
+
     @Autowired
     private ChatService chatService;
 
     @Autowired
     private com.accordion.service.ChannelService channelService;
 
+    @Autowired
+    private MessageBroadcaster messageBroadcaster;
+
     @MessageMapping("/chat.send")
-    @SendTo("/topic/messages")
-    public ChatMessage sendMessage(Map<String, String> payload) {
+    public void sendMessage(Map<String, String> payload) {
         if (payload == null) {
             throw new IllegalArgumentException("Payload must not be null");
         }
@@ -61,12 +76,12 @@ public class ChatController {
         String trimmedUsername = username.trim();
         String trimmedContent = content.trim();
         
-        return chatService.saveMessage(trimmedUsername, trimmedContent, channelId);
+        ChatMessage saved = chatService.saveMessage(trimmedUsername, trimmedContent, channelId);
+        messageBroadcaster.broadcast(channelId, LEGACY_TOPIC, saved);
     }
 
     @MessageMapping("/chat.send/{channelId}")
-    @SendTo("/topic/messages/{channelId}")
-    public ChatMessage sendMessageToChannel(@DestinationVariable Long channelId, 
+    public void sendMessageToChannel(@DestinationVariable Long channelId, 
                                            Map<String, String> payload) {
         if (payload == null) {
             throw new IllegalArgumentException("Payload must not be null");
@@ -91,12 +106,63 @@ public class ChatController {
         String trimmedUsername = username.trim();
         String trimmedContent = content.trim();
         
-        return chatService.saveMessage(trimmedUsername, trimmedContent, channelId);
+        ChatMessage saved = chatService.saveMessage(trimmedUsername, trimmedContent, channelId);
+        messageBroadcaster.broadcast(channelId, CHANNEL_TOPIC_PREFIX + channelId, saved);
+    }
+
+    @MessageMapping("/chat.sendBatch")
+    public void sendBatch(List<Map<String, String>> payload) {
+        // Legacy batch send always uses the default channel, like /chat.send
+        Long channelId = channelService.getOrCreateDefaultChannel().getId();
+        List<ChatMessage> messages = validateBatch(payload, channelId);
+        messageBroadcaster.broadcast(channelId, LEGACY_TOPIC, chatService.saveMessages(channelId, messages));
+    }
+
+    /**
+     * Sends several messages in one frame, e.g. a burst relayed by a bridge bot. The batch is
+     * rejected as a whole if any message is invalid; otherwise it is saved with one batched
+     * insert and broadcast as a single frame whose body is a JSON array.
+     */
+    @MessageMapping("/chat.sendBatch/{channelId}")
+    public void sendBatchToChannel(@DestinationVariable Long channelId,
+                                                List<Map<String, String>> payload) {
+        List<ChatMessage> messages = validateBatch(payload, channelId);
+        
+        // Verify channel exists
+        if (!channelService.getChannelById(channelId).isPresent()) {
+            throw new IllegalArgumentException("Channel does not exist");
+        }
+        
+        List<ChatMessage> saved = chatService.saveMessages(channelId, messages);
+        messageBroadcaster.broadcast(channelId, CHANNEL_TOPIC_PREFIX + channelId, saved);
+    }
+
+    private List<ChatMessage> validateBatch(List<Map<String, String>> payload, Long channelId) {
+        if (payload == null || payload.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one message");
+        }
+        if (payload.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch must not contain more than " + maxBatchSize + " messages");
+        }
+        
+        List<ChatMessage> messages = new ArrayList<>(payload.size());
+        for (int i = 0; i < payload.size(); i++) {
+            Map<String, String> entry = payload.get(i);
+            String username = entry == null ? null : entry.get("username");
+            String content = entry == null ? null : entry.get("content");
+            if (!ValidationUtils.isValidUsername(username, minUsernameLength, maxUsernameLength)) {
+                throw new IllegalArgumentException("Invalid username in message " + i);
+            }
+            if (!ValidationUtils.isValidContent(content, maxMessageLength)) {
+                throw new IllegalArgumentException("Invalid message content in message " + i);
+            }
+            messages.add(new ChatMessage(username.trim(), content.trim(), channelId));
+        }
+        return messages;
     }
 
     @MessageMapping("/chat.join")
-    @SendTo("/topic/messages")
-    public ChatMessage userJoin(Map<String, String> payload) {
+    public void userJoin(Map<String, String> payload) {
         if (payload == null) {
             throw new IllegalArgumentException("Payload must not be null");
         }
@@ -112,12 +178,12 @@ public class ChatController {
         
         // Trim username before using in system message
         String trimmedUsername = username.trim();
-        return chatService.saveMessage("System", trimmedUsername + " has joined the chat", channelId);
+        ChatMessage saved = chatService.saveMessage("System", trimmedUsername + " has joined the chat", channelId);
+        messageBroadcaster.broadcast(channelId, LEGACY_TOPIC, saved);
     }
 
     @MessageMapping("/chat.join/{channelId}")
-    @SendTo("/topic/messages/{channelId}")
-    public ChatMessage userJoinChannel(@DestinationVariable Long channelId,
+    public void userJoinChannel(@DestinationVariable Long channelId,
                                       Map<String, String> payload) {
         if (payload == null) {
             throw new IllegalArgumentException("Payload must not be null");
@@ -135,7 +201,8 @@ public class ChatController {
         
         // Trim username before using in system message
         String trimmedUsername = username.trim();
-        return chatService.saveMessage("System", trimmedUsername + " has joined the chat", channelId);
+        ChatMessage saved = chatService.saveMessage("System", trimmedUsername + " has joined the chat", channelId);
+        messageBroadcaster.broadcast(channelId, CHANNEL_TOPIC_PREFIX + channelId, saved);
     }
 
     @MessageMapping("/chat.typing/{channelId}")
@@ -171,14 +238,24 @@ public class ChatController {
 class MessageRestController {
     
     private static final int MAX_LIMIT = 500;
+    private static final int MAX_SEARCH_LIMIT = 100;
 
     @Autowired
     private ChatService chatService;
 
+    @Autowired
+    private MessageSearchService messageSearchService;
+
+    /**
+     * Returns the newest {@code limit} messages, oldest first. With {@code afterId} (the newest
+     * message id a client already has) only newer messages are returned, so a client keeping
+     * its own copy of a channel only fetches the delta.
+     */
     @GetMapping("/api/messages")
-    public ResponseEntity<List<ChatMessage>> getMessages(
+    public ResponseEntity<?> getMessages(
             @RequestParam(defaultValue = "50") int limit,
-            @RequestParam(required = false) Long channelId) {
+            @RequestParam(required = false) Long channelId,
+            @RequestParam(required = false) Long afterId) {
         
         if (limit < 1) {
             limit = 1;
@@ -187,11 +264,34 @@ class MessageRestController {
         }
         
         List<ChatMessage> messages;
-        if (channelId != null) {
+        if (afterId != null) {
+            if (channelId == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "afterId requires channelId"));
+            }
+            messages = chatService.getMessagesAfter(channelId, Math.max(0, afterId), limit);
+        } else if (channelId != null) {
             messages = chatService.getRecentMessagesByChannel(channelId, limit);
         } else {
             messages = chatService.getRecentMessages(limit);
         }
         return ResponseEntity.ok(messages);
     }
+
+    @GetMapping("/api/messages/search")
+    public ResponseEntity<?> searchMessages(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Long channelId,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        if (query == null || query.trim().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Search query is required"));
+        }
+        limit = Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+
+        String trimmedUsername = username == null || username.trim().isEmpty() ? null : username.trim();
+        return ResponseEntity.ok(messageSearchService.search(query, channelId, trimmedUsername, from, to, limit));
+    }
 }
@@ -0,0 +1,78 @@
+package com.accordion.controller;
+
+import com.accordion.model.DirectMessage;
+import com.accordion.service.DirectMessageService;
+import com.accordion.util.ValidationUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@CrossOrigin(origins = "${app.cors.allowed-origins}")
+public class DirectMessageController {
+
+    private static final int MAX_LIMIT = 500;
+
+    @Value("${app.message.max-length}")
+    private int maxMessageLength;
+
+    @Value("${app.username.max-length}")
+    private int maxUsernameLength;
+
+    @Value("${app.username.min-length}")
+    private int minUsernameLength;
+
+    @Autowired
+    private DirectMessageService directMessageService;
+
+    /**
+     * Sends {@code {recipient, content}} from the authenticated user. Both users' sessions
+     * receive the saved message on /user/queue/dm.
+     */
+    @MessageMapping("/dm.send")
+    public void sendDirectMessage(Map<String, String> payload, Principal principal) {
+        if (principal == null) {
+            throw new IllegalArgumentException("Direct messages require an authenticated session");
+        }
+        if (payload == null) {
+            throw new IllegalArgumentException("Payload must not be null");
+        }
+
+        String recipient = payload.get("recipient");
+        String content = payload.get("content");
+
+        if (!ValidationUtils.isValidUsername(recipient, minUsernameLength, maxUsernameLength)) {
+            throw new IllegalArgumentException("Invalid recipient");
+        }
+        if (!ValidationUtils.isValidContent(content, maxMessageLength)) {
+            throw new IllegalArgumentException("Invalid message content");
+        }
+
+        directMessageService.sendMessage(principal.getName(), recipient.trim(), content.trim());
+    }
+
+    /**
+     * Pages backwards through the caller's conversation with {@code username}, oldest first.
+     */
+    @GetMapping("/api/dms/{username}")
+    public ResponseEntity<?> getConversation(@PathVariable String username,
+                                             @RequestParam(required = false) Long beforeId,
+                                             @RequestParam(defaultValue = "50") int limit,
+                                             Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Authentication required"));
+        }
+        limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<DirectMessage> messages = directMessageService.getConversation(
+                principal.getName(), username, beforeId, limit);
+        return ResponseEntity.ok(messages);
+    }
+}
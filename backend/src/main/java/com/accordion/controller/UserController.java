@@ -5,13 +5,21 @@ import com.accordion.dto.LoginRequest;
 import com.accordion.dto.RegisterRequest;
 import com.accordion.model.User;
 import com.accordion.security.JwtUtil;
+import com.accordion.security.PasswordHashingUnavailableException;
+import com.accordion.security.RateLimiter;
+import com.accordion.security.TokenRevocationList;
+import io.jsonwebtoken.Claims;
 import com.accordion.service.UserService;
 import com.accordion.util.ValidationUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,23 +28,16 @@ import java.util.Map;
 /**
  * User authentication controller handling registration and login.
  * 
- * SECURITY NOTE: Rate Limiting
+ * Rate limiting
  * ----------------------------------------------------------------------------
- * This controller lacks rate limiting protection, making it vulnerable to:
- * - Username enumeration attacks
- * - Brute force password attacks
- * - Resource exhaustion through repeated requests
- * 
- * For production deployments, consider implementing rate limiting using:
- * - Spring Security's built-in rate limiting (Spring Security 6.2+)
- * - Bucket4j library for token bucket rate limiting
- * - API Gateway rate limiting (e.g., AWS API Gateway, Kong)
- * - Web Application Firewall (WAF) with rate limiting rules
- * 
- * Recommended limits:
- * - 5-10 failed login attempts per username per 15 minutes
- * - 10-20 registration attempts per IP address per hour
- * - Consider CAPTCHA after repeated failures
+ * Registrations are limited per client IP address and login attempts per IP
+ * address and per username (see {@link RateLimiter}), which slows down brute
+ * force and enumeration attempts. Requests over budget get 429 Too Many Requests.
+ * The limits are in-process: behind a load balancer, each instance counts on
+ * its own and the servlet container must be configured to report the real
+ * client address.
+ *
+ * For internet-facing deployments, also consider CAPTCHA after repeated failures.
  * ----------------------------------------------------------------------------
  */
 @RestController
@@ -62,8 +63,19 @@ public class UserController {
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
+    public ResponseEntity<?> register(@RequestBody RegisterRequest request, HttpServletRequest httpRequest) {
+        if (!rateLimiter.tryAcquire(RateLimiter.Budget.REGISTER, httpRequest.getRemoteAddr())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(Map.of("error", "Too many registration attempts. Please try again later."));
+        }
+
         String username = request.getUsername();
         String password = request.getPassword();
         
@@ -86,21 +98,29 @@ public class UserController {
         
         try {
             User user = userService.registerUser(username.trim(), password);
-            String token = jwtUtil.generateToken(user.getUsername());
-            return ResponseEntity.ok(new AuthResponse(token, user.getUsername(), user.getId()));
+            return ResponseEntity.ok(issueTokens(user));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (PasswordHashingUnavailableException e) {
+            return serverBusy();
         }
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
+    public ResponseEntity<?> login(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
         String username = request.getUsername();
         String password = request.getPassword();
         
         if (username == null || username.trim().isEmpty() || password == null || password.isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("error", "Username and password are required"));
         }
+
+        // Per address against spraying many accounts, per username against distributed guessing
+        if (!rateLimiter.tryAcquire(RateLimiter.Budget.LOGIN, "ip:" + httpRequest.getRemoteAddr())
+                || !rateLimiter.tryAcquire(RateLimiter.Budget.LOGIN, "user:" + username.trim())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(Map.of("error", "Too many login attempts. Please try again later."));
+        }
         
         try {
             authenticationManager.authenticate(
@@ -110,11 +130,77 @@ public class UserController {
             User user = userService.findByUsername(username.trim())
                     .orElseThrow(() -> new BadCredentialsException("Invalid credentials"));
             
-            String token = jwtUtil.generateToken(user.getUsername());
-            return ResponseEntity.ok(new AuthResponse(token, user.getUsername(), user.getId()));
+            return ResponseEntity.ok(issueTokens(user));
         } catch (BadCredentialsException e) {
             return ResponseEntity.status(401).body(Map.of("error", "Invalid username or password"));
+        } catch (PasswordHashingUnavailableException e) {
+            return serverBusy();
+        } catch (InternalAuthenticationServiceException e) {
+            // The provider wraps failures while looking the user up, including its first hash
+            if (e.getCause() instanceof PasswordHashingUnavailableException) {
+                return serverBusy();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Trades a refresh token for a new access and refresh token pair. The password is not
+     * checked again; the old refresh token is revoked, so each one can be used once.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> payload) {
+        String refreshToken = payload == null ? null : payload.get("refreshToken");
+        Claims claims = refreshToken == null ? null : jwtUtil.parseRefreshToken(refreshToken);
+        if (claims == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid or expired refresh token"));
         }
+        // A user lookup, not a password check: only confirms the account still exists
+        User user = userService.findByUsername(claims.getSubject()).orElse(null);
+        // Revoking is the check: of concurrent refreshes with the same token only one succeeds
+        if (user == null || !tokenRevocationList.revoke(claims.getId(), claims.getExpiration().getTime())) {
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid or expired refresh token"));
+        }
+        return ResponseEntity.ok(issueTokens(user));
+    }
+
+    /**
+     * Revokes the caller's access token and, if given, their refresh token.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody(required = false) Map<String, String> payload,
+                                    @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            revokeQuietly(authorization.substring(7));
+        }
+        String refreshToken = payload == null ? null : payload.get("refreshToken");
+        if (refreshToken != null) {
+            Claims claims = jwtUtil.parseRefreshToken(refreshToken);
+            if (claims != null) {
+                tokenRevocationList.revoke(claims.getId(), claims.getExpiration().getTime());
+            }
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private AuthResponse issueTokens(User user) {
+        return new AuthResponse(jwtUtil.generateToken(user.getUsername()),
+                jwtUtil.generateRefreshToken(user.getUsername()), user.getUsername(), user.getId());
+    }
+
+    // Expired or forged tokens need no revoking
+    private void revokeQuietly(String accessToken) {
+        Claims claims = jwtUtil.parseAccessToken(accessToken);
+        if (claims != null) {
+            tokenRevocationList.revoke(claims.getId(), claims.getExpiration().getTime());
+        }
+    }
+
+    // Password hashing is saturated; clients should retry shortly rather than queue up
+    private ResponseEntity<?> serverBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "Server is busy. Please try again shortly."));
     }
 
     @GetMapping("/check/{username}")
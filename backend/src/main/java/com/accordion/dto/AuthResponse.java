@@ -2,6 +2,7 @@ package com.accordion.dto;
 
 public class AuthResponse {
     private String token;
+    private String refreshToken;
     private String username;
     private Long userId;
 
@@ -14,6 +15,13 @@ public class AuthResponse {
         this.userId = userId;
     }
 
+    public AuthResponse(String token, String refreshToken, String username, Long userId) {
+        this.token = token;
+        this.refreshToken = refreshToken;
+        this.username = username;
+        this.userId = userId;
+    }
+
     public String getToken() {
         return token;
     }
@@ -22,6 +30,14 @@ public class AuthResponse {
         this.token = token;
     }
 
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
     public String getUsername() {
         return username;
     }
@@ -0,0 +1,44 @@
+package com.accordion.dto;
+
+/**
+ * The fields of a channel needed to list it; settings such as retention are only returned
+ * by {@code GET /api/channels/{id}}.
+ */
+public class ChannelSummary {
+    private Long id;
+    private String name;
+    private String description;
+
+    public ChannelSummary() {
+    }
+
+    public ChannelSummary(Long id, String name, String description) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+}
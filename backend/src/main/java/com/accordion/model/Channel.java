@@ -23,6 +23,17 @@ public class Channel {
     @Column(nullable = false)
     private String createdBy;
 
+    // Retention policy; null means unlimited
+    @Column(nullable = true)
+    private Integer retentionMaxAgeDays;
+
+    @Column(nullable = true)
+    private Integer retentionMaxMessages;
+
+    // Broadcast coalescing window in milliseconds; null means every message is sent on its own
+    @Column(nullable = true)
+    private Integer broadcastWindowMs;
+
     public Channel() {
         this.createdAt = LocalDateTime.now();
     }
@@ -74,4 +85,32 @@ public class Channel {
     public void setCreatedBy(String createdBy) {
         this.createdBy = createdBy;
     }
+
+    public Integer getRetentionMaxAgeDays() {
+        return retentionMaxAgeDays;
+    }
+
+    public void setRetentionMaxAgeDays(Integer retentionMaxAgeDays) {
+        this.retentionMaxAgeDays = retentionMaxAgeDays;
+    }
+
+    public Integer getRetentionMaxMessages() {
+        return retentionMaxMessages;
+    }
+
+    public void setRetentionMaxMessages(Integer retentionMaxMessages) {
+        this.retentionMaxMessages = retentionMaxMessages;
+    }
+
+    public Integer getBroadcastWindowMs() {
+        return broadcastWindowMs;
+    }
+
+    public void setBroadcastWindowMs(Integer broadcastWindowMs) {
+        this.broadcastWindowMs = broadcastWindowMs;
+    }
+
+    public boolean hasRetentionPolicy() {
+        return retentionMaxAgeDays != null || retentionMaxMessages != null;
+    }
 }
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+    @Index(name = "idx_chat_messages_channel_timestamp", columnList = "channelId, timestamp"),
+    @Index(name = "idx_chat_messages_channel_seq", columnList = "channelId, seq")
+})
 public class ChatMessage {
 
     @Id
@@ -23,6 +26,10 @@ public class ChatMessage {
     @Column(nullable = true)
     private Long channelId;
 
+    // Per-channel, gap-free sequence number; lets clients detect and resume missed messages
+    @Column(nullable = true)
+    private Long seq;
+
     public ChatMessage() {
         this.timestamp = LocalDateTime.now();
     }
@@ -81,4 +88,12 @@ public class ChatMessage {
     public void setChannelId(Long channelId) {
         this.channelId = channelId;
     }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
 }
@@ -0,0 +1,96 @@
+package com.accordion.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "direct_messages", indexes = {
+    @Index(name = "idx_direct_messages_conversation", columnList = "conversationKey, id")
+})
+public class DirectMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String sender;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    // "alice:bob", usernames in sorted order, so either side finds the conversation with one index range
+    @Column(nullable = false)
+    private String conversationKey;
+
+    @Column(nullable = false, length = 1000)
+    private String content;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    public DirectMessage() {
+        this.timestamp = LocalDateTime.now();
+    }
+
+    public DirectMessage(String sender, String recipient, String content) {
+        this.sender = sender;
+        this.recipient = recipient;
+        this.conversationKey = conversationKey(sender, recipient);
+        this.content = content;
+        this.timestamp = LocalDateTime.now();
+    }
+
+    public static String conversationKey(String user, String otherUser) {
+        return user.compareTo(otherUser) <= 0 ? user + ":" + otherUser : otherUser + ":" + user;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public void setSender(String sender) {
+        this.sender = sender;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    public String getConversationKey() {
+        return conversationKey;
+    }
+
+    public void setConversationKey(String conversationKey) {
+        this.conversationKey = conversationKey;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -1,12 +1,23 @@
 package com.accordion.repository;
 
+import com.accordion.dto.ChannelSummary;
 import com.accordion.model.Channel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ChannelRepository extends JpaRepository<Channel, Long> {
     Optional<Channel> findByName(String name);
+    List<Channel> findByRetentionMaxAgeDaysIsNotNullOrRetentionMaxMessagesIsNotNull();
+
+    // Keyset paging in id order, selecting only the listed columns
+    @Query("SELECT new com.accordion.dto.ChannelSummary(c.id, c.name, c.description) FROM Channel c "
+            + "WHERE c.id > :afterId ORDER BY c.id")
+    List<ChannelSummary> findSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,20 @@
+package com.accordion.repository;
+
+import com.accordion.model.ChatMessage;
+
+import java.util.List;
+
+/**
+ * Bulk inserts for {@link ChatMessageRepository}. Hibernate cannot batch inserts of
+ * IDENTITY-keyed entities, so these go through JDBC directly.
+ */
+public interface ChatMessageBatchRepository {
+
+    /**
+     * Inserts all messages in one JDBC batch and sets their generated ids. The messages are
+     * not attached to the persistence context.
+     *
+     * @return the number of inserted messages
+     */
+    int insertAll(List<ChatMessage> messages);
+}
@@ -0,0 +1,62 @@
+package com.accordion.repository;
+
+import com.accordion.model.ChatMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+class ChatMessageBatchRepositoryImpl implements ChatMessageBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO chat_messages (username, content, timestamp, channel_id, seq) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertAll(List<ChatMessage> messages) {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ChatMessage message = messages.get(i);
+                        ps.setString(1, message.getUsername());
+                        ps.setString(2, message.getContent());
+                        ps.setTimestamp(3, Timestamp.valueOf(message.getTimestamp()));
+                        setNullableLong(ps, 4, message.getChannelId());
+                        setNullableLong(ps, 5, message.getSeq());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return messages.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < messages.size() && i < keys.size(); i++) {
+            messages.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+        return messages.size();
+    }
+
+    private static void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+}
@@ -1,14 +1,61 @@
 package com.accordion.repository;
 
 import com.accordion.model.ChatMessage;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
+public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>, ChatMessageBatchRepository {
     List<ChatMessage> findAllByOrderByTimestampDesc(Pageable pageable);
     List<ChatMessage> findByChannelIdOrderByTimestampDesc(Long channelId, Pageable pageable);
+
+    // Compaction into the cold archive
+    @Query("SELECT DISTINCT m.channelId FROM ChatMessage m WHERE m.timestamp < :cutoff AND m.channelId IS NOT NULL")
+    List<Long> findChannelIdsWithMessagesBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    List<ChatMessage> findByChannelIdAndTimestampBeforeAndIdGreaterThanOrderByIdAsc(
+            Long channelId, LocalDateTime cutoff, Long afterId, Pageable pageable);
+
+    // Retention purge: keyset-bounded id scans so each delete batch stays small
+    @Query("SELECT m.id FROM ChatMessage m WHERE m.channelId = :channelId AND m.id > :afterId "
+            + "AND m.timestamp < :cutoff ORDER BY m.id ASC")
+    List<Long> findIdsOlderThan(@Param("channelId") Long channelId, @Param("afterId") long afterId,
+                                @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Query("SELECT m.id FROM ChatMessage m WHERE m.channelId = :channelId AND m.id > :afterId "
+            + "AND m.id <= :maxId ORDER BY m.id ASC")
+    List<Long> findIdsUpTo(@Param("channelId") Long channelId, @Param("afterId") long afterId,
+                           @Param("maxId") long maxId, Pageable pageable);
+
+    @Query("SELECT m.id FROM ChatMessage m WHERE m.channelId = :channelId ORDER BY m.id DESC")
+    List<Long> findIdsNewestFirst(@Param("channelId") Long channelId, Pageable pageable);
+
+    long countByChannelId(Long channelId);
+
+    // Keyset paging over the whole table (search index rebuild)
+    List<ChatMessage> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    // Subscription replay beyond the recent-message cache
+    List<ChatMessage> findByChannelIdAndIdGreaterThanOrderByIdDesc(Long channelId, Long afterId, Pageable pageable);
+
+    // Per-channel sequence numbers
+    @Query("SELECT MAX(m.seq) FROM ChatMessage m WHERE m.channelId = :channelId")
+    Long findMaxSeqByChannelId(@Param("channelId") Long channelId);
+
+    List<ChatMessage> findByChannelIdAndSeqGreaterThanOrderBySeqDesc(Long channelId, Long afterSeq, Pageable pageable);
+
+    // Channel export: server-side cursor, must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT m FROM ChatMessage m WHERE m.channelId = :channelId ORDER BY m.id ASC")
+    Stream<ChatMessage> streamByChannelId(@Param("channelId") Long channelId);
 }
@@ -0,0 +1,15 @@
+package com.accordion.repository;
+
+import com.accordion.model.DirectMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DirectMessageRepository extends JpaRepository<DirectMessage, Long> {
+    // Keyset paging backwards through one conversation
+    List<DirectMessage> findByConversationKeyAndIdLessThanOrderByIdDesc(String conversationKey, Long beforeId,
+                                                                       Pageable pageable);
+}
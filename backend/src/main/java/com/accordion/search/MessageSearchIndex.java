@@ -0,0 +1,317 @@
+package com.accordion.search;
+
+import com.accordion.model.ChatMessage;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory inverted index over message content.
+ *
+ * Terms map to sorted postings of message ids; per-message metadata (channel, author,
+ * timestamp) is kept alongside so channel, user and time filters never touch the database.
+ * All query terms must match; the last one also matches as a prefix so partial words work.
+ * Removed messages are dropped from the metadata map and skipped when postings are read;
+ * once enough have piled up, the next removal prunes them from the postings as well.
+ */
+@Component
+public class MessageSearchIndex {
+
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    // Prune once removals reach this many, or a quarter of the indexed messages if that is more
+    private static final int MIN_REMOVALS_BEFORE_PRUNE = 1024;
+
+    private final ConcurrentSkipListMap<String, Postings> terms = new ConcurrentSkipListMap<>();
+    private final Map<Long, IndexedMessage> documents = new ConcurrentHashMap<>();
+    private final AtomicInteger removedSincePrune = new AtomicInteger();
+    private final ReentrantLock pruneLock = new ReentrantLock();
+
+    private record IndexedMessage(Long channelId, String username, long epochSecond) {
+    }
+
+    /**
+     * Indexes a persisted message. Adding the same id twice is a no-op.
+     */
+    public void add(ChatMessage message) {
+        if (!addDocument(message)) {
+            return;
+        }
+        for (String term : tokenize(message.getContent())) {
+            while (!terms.computeIfAbsent(term, t -> new Postings()).add(message.getId())) {
+                // Pruned away as empty in the meantime
+            }
+        }
+    }
+
+    /**
+     * Starts loading many messages in no particular id order, as a rebuild does.
+     * Nothing is searchable by content until {@link BulkLoad#finish()} has been called.
+     */
+    public BulkLoad bulkLoad() {
+        return new BulkLoad();
+    }
+
+    private boolean addDocument(ChatMessage message) {
+        if (message.getId() == null || message.getContent() == null) {
+            return false;
+        }
+        IndexedMessage document = new IndexedMessage(message.getChannelId(), message.getUsername(),
+                message.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        return documents.putIfAbsent(message.getId(), document) == null;
+    }
+
+    /**
+     * Collects the ids of each term and sorts them once when finished, rather than inserting
+     * every out-of-order id into its postings, which copies the postings each time.
+     * Messages added to the index directly in the meantime are merged with the loaded ones.
+     * Not thread-safe; one thread fills a load.
+     */
+    public final class BulkLoad {
+
+        private final Map<String, IdBuffer> pending = new HashMap<>();
+
+        private BulkLoad() {
+        }
+
+        public void add(ChatMessage message) {
+            if (!addDocument(message)) {
+                return;
+            }
+            for (String term : tokenize(message.getContent())) {
+                pending.computeIfAbsent(term, t -> new IdBuffer()).add(message.getId());
+            }
+        }
+
+        public void finish() {
+            Iterator<Map.Entry<String, IdBuffer>> entries = pending.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, IdBuffer> entry = entries.next();
+                IdBuffer buffer = entry.getValue();
+                int count = buffer.sortUnique();
+                while (!terms.computeIfAbsent(entry.getKey(), t -> new Postings()).addAll(buffer.ids, count)) {
+                    // Pruned away as empty in the meantime
+                }
+                entries.remove();
+            }
+        }
+    }
+
+    private static final class IdBuffer {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[size++] = id;
+        }
+
+        /**
+         * Sorts the ids and drops repeats, returning how many remain.
+         */
+        int sortUnique() {
+            Arrays.sort(ids, 0, size);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique == 0 || ids[unique - 1] != ids[i]) {
+                    ids[unique++] = ids[i];
+                }
+            }
+            return unique;
+        }
+    }
+
+    public void remove(Long id) {
+        if (documents.remove(id) == null) {
+            return;
+        }
+        if (removedSincePrune.incrementAndGet() >= Math.max(MIN_REMOVALS_BEFORE_PRUNE, documents.size() / 4)) {
+            prune();
+        }
+    }
+
+    /**
+     * Drops removed ids from every postings list and forgets terms left without any.
+     * Skipped if another thread is already pruning.
+     */
+    void prune() {
+        if (!pruneLock.tryLock()) {
+            return;
+        }
+        try {
+            removedSincePrune.set(0);
+            for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+                if (entry.getValue().retainIf(documents::containsKey)) {
+                    terms.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            pruneLock.unlock();
+        }
+    }
+
+    int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * Returns the channel of an indexed message, or null if it is not indexed.
+     */
+    public Long getChannelId(Long id) {
+        IndexedMessage document = documents.get(id);
+        return document == null ? null : document.channelId();
+    }
+
+    public void clear() {
+        terms.clear();
+        documents.clear();
+        removedSincePrune.set(0);
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Finds messages containing every term of the query, newest first.
+     *
+     * @param channelId optional channel filter
+     * @param username  optional author filter
+     * @param from      optional inclusive lower time bound
+     * @param to        optional inclusive upper time bound
+     * @return matching message ids, newest first, at most {@code limit}
+     */
+    public List<Long> search(String query, Long channelId, String username,
+                             LocalDateTime from, LocalDateTime to, int limit) {
+        List<String> queryTerms = new ArrayList<>(tokenize(query));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<Postings.Snapshot> lists = new ArrayList<>(queryTerms.size());
+        for (int i = 0; i < queryTerms.size(); i++) {
+            Postings.Snapshot snapshot = i == queryTerms.size() - 1
+                    ? prefixPostings(queryTerms.get(i))
+                    : exactPostings(queryTerms.get(i));
+            if (snapshot == null || snapshot.size == 0) {
+                return Collections.emptyList();
+            }
+            lists.add(snapshot);
+        }
+        // Drive the intersection from the rarest term
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        Postings.Snapshot driver = lists.get(0);
+
+        long fromSecond = from == null ? Long.MIN_VALUE : from.toEpochSecond(ZoneOffset.UTC);
+        long toSecond = to == null ? Long.MAX_VALUE : to.toEpochSecond(ZoneOffset.UTC);
+
+        List<Long> results = new ArrayList<>(Math.min(limit, driver.size));
+        for (int d = driver.size - 1; d >= 0 && results.size() < limit; d--) {
+            long id = driver.ids[d];
+            boolean matchesAll = true;
+            for (int i = 1; i < lists.size() && matchesAll; i++) {
+                matchesAll = lists.get(i).contains(id);
+            }
+            if (!matchesAll) {
+                continue;
+            }
+            IndexedMessage document = documents.get(id);
+            if (document == null
+                    || (channelId != null && !channelId.equals(document.channelId()))
+                    || (username != null && !username.equals(document.username()))
+                    || document.epochSecond() < fromSecond
+                    || document.epochSecond() > toSecond) {
+                continue;
+            }
+            results.add(id);
+        }
+        return results;
+    }
+
+    private Postings.Snapshot exactPostings(String term) {
+        Postings postings = terms.get(term);
+        return postings == null ? null : postings.snapshot();
+    }
+
+    private Postings.Snapshot prefixPostings(String prefix) {
+        Map<String, Postings> matches = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (matches.isEmpty()) {
+            return null;
+        }
+        if (matches.size() == 1) {
+            return matches.values().iterator().next().snapshot();
+        }
+        // Union of the (bounded number of) expansions; prefer the exact term if present
+        List<Postings.Snapshot> expansions = new ArrayList<>();
+        Postings exact = terms.get(prefix);
+        if (exact != null) {
+            expansions.add(exact.snapshot());
+        }
+        for (Map.Entry<String, Postings> entry : matches.entrySet()) {
+            if (expansions.size() >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            if (!entry.getKey().equals(prefix)) {
+                expansions.add(entry.getValue().snapshot());
+            }
+        }
+        int total = 0;
+        for (Postings.Snapshot snapshot : expansions) {
+            total += snapshot.size;
+        }
+        long[] merged = new long[total];
+        int n = 0;
+        for (Postings.Snapshot snapshot : expansions) {
+            System.arraycopy(snapshot.ids, 0, merged, n, snapshot.size);
+            n += snapshot.size;
+        }
+        Arrays.sort(merged);
+        int unique = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (unique == 0 || merged[unique - 1] != merged[i]) {
+                merged[unique++] = merged[i];
+            }
+        }
+        return new Postings.Snapshot(merged, unique);
+    }
+
+    /**
+     * Splits text into lower-cased runs of letters and digits.
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start <= MAX_TERM_LENGTH) {
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
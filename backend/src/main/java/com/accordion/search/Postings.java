@@ -0,0 +1,157 @@
+package com.accordion.search;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Sorted, append-mostly list of message ids for one term.
+ *
+ * Ids normally arrive in ascending order, so adding is an amortised O(1) append into spare
+ * capacity that readers never look at. A snapshot is therefore just the current array and
+ * length. An out-of-order id is inserted in place while no snapshot of the array has been
+ * handed out; once one has, it goes into a fresh copy so that published snapshots are never
+ * modified underneath a reader. Bulk loads sort their ids once and merge them with
+ * {@link #addAll} instead of inserting one at a time.
+ *
+ * Postings that {@link #retainIf} leaves empty are retired and refuse further adds, so a
+ * writer racing with the index dropping them goes back to the term map for fresh ones.
+ */
+class Postings {
+
+    private long[] ids = new long[4];
+    private int size;
+    // Whether a snapshot may still be reading the first size entries of ids
+    private boolean shared;
+    private boolean retired;
+
+    /**
+     * @return false if these postings are retired and the id was not added
+     */
+    synchronized boolean add(long id) {
+        if (retired) {
+            return false;
+        }
+        if (size > 0 && ids[size - 1] >= id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return true;
+            }
+            int insertAt = -index - 1;
+            if (shared || size == ids.length) {
+                long[] copy = new long[size == ids.length ? ids.length * 2 : ids.length];
+                System.arraycopy(ids, 0, copy, 0, insertAt);
+                System.arraycopy(ids, insertAt, copy, insertAt + 1, size - insertAt);
+                ids = copy;
+                shared = false;
+            } else {
+                System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            }
+            ids[insertAt] = id;
+            size++;
+            return true;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            shared = false;
+        }
+        ids[size++] = id;
+        return true;
+    }
+
+    /**
+     * Merges the first {@code count} entries of {@code sorted}, which must be ascending and
+     * free of duplicates, in a single pass.
+     *
+     * @return false if these postings are retired and nothing was added
+     */
+    synchronized boolean addAll(long[] sorted, int count) {
+        if (retired) {
+            return false;
+        }
+        if (count == 0) {
+            return true;
+        }
+        if (size == 0 || ids[size - 1] < sorted[0]) {
+            if (size + count > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(ids.length * 2, size + count));
+                shared = false;
+            }
+            System.arraycopy(sorted, 0, ids, size, count);
+            size += count;
+            return true;
+        }
+        long[] merged = new long[Math.max(ids.length, size + count)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < size && j < count) {
+            long a = ids[i];
+            long b = sorted[j];
+            merged[n++] = Math.min(a, b);
+            if (a <= b) {
+                i++;
+            }
+            if (b <= a) {
+                j++;
+            }
+        }
+        System.arraycopy(ids, i, merged, n, size - i);
+        n += size - i;
+        System.arraycopy(sorted, j, merged, n, count - j);
+        n += count - j;
+        ids = merged;
+        size = n;
+        shared = false;
+        return true;
+    }
+
+    /**
+     * Drops the ids that fail {@code keep}, into a fresh array if any do.
+     *
+     * @return true if nothing is left, in which case these postings are now retired
+     */
+    synchronized boolean retainIf(LongPredicate keep) {
+        long[] kept = null;
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (keep.test(ids[i])) {
+                if (kept != null) {
+                    kept[n] = ids[i];
+                }
+                n++;
+            } else if (kept == null) {
+                kept = new long[ids.length];
+                System.arraycopy(ids, 0, kept, 0, i);
+            }
+        }
+        if (kept != null) {
+            ids = kept;
+            size = n;
+            shared = false;
+        }
+        retired = size == 0;
+        return retired;
+    }
+
+    synchronized Snapshot snapshot() {
+        shared = true;
+        return new Snapshot(ids, size);
+    }
+
+    /**
+     * Immutable view of the first {@code size} entries of a postings array.
+     */
+    static final class Snapshot {
+        final long[] ids;
+        final int size;
+
+        Snapshot(long[] ids, int size) {
+            this.ids = ids;
+            this.size = size;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package com.accordion.security;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.SerializationException;
+import io.jsonwebtoken.io.Serializer;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -12,66 +18,119 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
 
+/**
+ * Issues and checks JWTs. Access tokens are short-lived and sent with every request; refresh
+ * tokens live longer and are only accepted by the refresh endpoint, which trades one for a
+ * new pair without checking the password again. Every token carries a unique id
+ * ({@code jti}) so it can be revoked individually, see {@link TokenRevocationList}.
+ *
+ * The signing key, the parser and the JSON serializer are built once at startup and shared
+ * by all threads (all three are immutable). Left to itself, jjwt would derive the key and
+ * look up a JSON implementation, creating a new ObjectMapper, for every token it issues or
+ * parses.
+ */
 @Component
 public class JwtUtil {
 
+    static final String TOKEN_TYPE_CLAIM = "typ";
+    static final String ACCESS_TOKEN = "access";
+    static final String REFRESH_TOKEN = "refresh";
+
     @Value("${jwt.secret}")
     private String secret;
 
+    // Access token lifetime in milliseconds
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-    }
-
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
+    @Value("${jwt.refresh-expiration:1209600000}")
+    private Long refreshExpiration;
 
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
+    private Key signingKey;
+    private JwtParser parser;
+    private Serializer<Map<String, ?>> serializer;
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        serializer = claims -> {
+            try {
+                return objectMapper.writeValueAsBytes(claims);
+            } catch (JsonProcessingException e) {
+                throw new SerializationException("Unable to serialize JWT claims", e);
+            }
+        };
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Issues an access token.
+     */
+    public String generateToken(String username) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(TOKEN_TYPE_CLAIM, ACCESS_TOKEN);
+        return createToken(claims, username, expiration);
     }
 
-    public String generateToken(String username) {
+    public String generateRefreshToken(String username) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, username);
+        claims.put(TOKEN_TYPE_CLAIM, REFRESH_TOKEN);
+        return createToken(claims, username, refreshExpiration);
+    }
+
+    public long getExpiration() {
+        return expiration;
     }
 
-    private String createToken(Map<String, Object> claims, String subject) {
+    private String createToken(Map<String, Object> claims, String subject, long ttlMillis) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + ttlMillis))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .serializeToJsonWith(serializer)
                 .compact();
     }
 
-    public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        // Note: This validation only checks token expiration and username match.
-        // It does not verify if the user still exists in the database.
-        // For enhanced security, consider implementing a token revocation mechanism.
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+    /**
+     * Parses and checks an access token in one pass. Revocation is checked separately against
+     * {@link TokenRevocationList}.
+     *
+     * @return its claims, or null if it is malformed, expired, badly signed or a refresh token
+     */
+    public Claims parseAccessToken(String token) {
+        try {
+            Claims claims = extractAllClaims(token);
+            // Tokens issued before token types were introduced carry none and are access tokens
+            return REFRESH_TOKEN.equals(claims.get(TOKEN_TYPE_CLAIM)) ? null : claims;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a refresh token.
+     *
+     * @return its claims, or null if it is not a valid, unexpired refresh token
+     */
+    public Claims parseRefreshToken(String token) {
+        try {
+            Claims claims = extractAllClaims(token);
+            return REFRESH_TOKEN.equals(claims.get(TOKEN_TYPE_CLAIM)) ? claims : null;
+        } catch (Exception e) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,16 @@
+package com.accordion.security;
+
+/**
+ * Thrown when a password cannot be hashed or checked right now because the hashing executor
+ * is saturated. Callers should answer 503 rather than wait.
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,110 @@
+package com.accordion.security;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drops SEND frames that exceed the sender's {@link RateLimiter} budget before they reach
+ * the message handlers.
+ *
+ * Chat messages (single, joins and DMs) are limited per user and channel, and in total per
+ * channel. A batch frame is charged one token per message it carries, against its own
+ * per-user budget (sized for at least one full batch) and the channel's; typing indicators
+ * have a separate per-user, per-channel budget. When the sender's budget allows a frame
+ * but the channel's does not, the sender's tokens are given back. Users
+ * are identified by the principal set on CONNECT, or by session if there is none. A dropped
+ * frame is discarded silently, like a rejected CONNECT in {@link WebSocketAuthInterceptor}.
+ */
+@Component
+public class RateLimitInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitInterceptor.class);
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final Pattern LIMITED_DESTINATION =
+            Pattern.compile("^/app/(chat\\.send|chat\\.sendBatch|chat\\.join|chat\\.typing|dm\\.send)(?:/(\\d+))?$");
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SEND.equals(accessor.getCommand()) || accessor.getDestination() == null) {
+            return message;
+        }
+        Matcher matcher = LIMITED_DESTINATION.matcher(accessor.getDestination());
+        if (!matcher.matches()) {
+            return message;
+        }
+
+        boolean typing = matcher.group(1).equals("chat.typing");
+        boolean direct = matcher.group(1).equals("dm.send");
+        boolean batch = matcher.group(1).equals("chat.sendBatch");
+        // Legacy destinations without an id all go to the default channel
+        String scope = direct ? "dm" : matcher.group(2) == null ? "default" : matcher.group(2);
+        String sender = sender(accessor);
+
+        boolean allowed;
+        if (typing) {
+            allowed = rateLimiter.tryAcquire(RateLimiter.Budget.TYPING, sender + "/" + scope);
+        } else {
+            RateLimiter.Budget budget = batch ? RateLimiter.Budget.BATCH : RateLimiter.Budget.MESSAGE;
+            int count = batch ? countMessages(message.getPayload()) : 1;
+            // The sender's budget goes first so that a flooding sender cannot drain the channel's
+            allowed = rateLimiter.tryAcquire(budget, sender + "/" + scope, count);
+            if (allowed && !direct && !rateLimiter.tryAcquire(RateLimiter.Budget.CHANNEL, scope, count)) {
+                rateLimiter.release(budget, sender + "/" + scope, count);
+                allowed = false;
+            }
+        }
+        if (!allowed) {
+            logger.debug("Rate limit exceeded: dropping {} from '{}'", accessor.getDestination(), sender);
+            return null;
+        }
+        return message;
+    }
+
+    // Top-level elements of a batch's JSON array, without binding them; 1 for anything else,
+    // which the controller rejects anyway
+    static int countMessages(Object payload) {
+        if (!(payload instanceof byte[] bytes)) {
+            return 1;
+        }
+        try (JsonParser parser = JSON.createParser(bytes)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return 1;
+            }
+            int count = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+                count++;
+            }
+            return Math.max(1, count);
+        } catch (IOException e) {
+            return 1;
+        }
+    }
+
+    private static String sender(StompHeaderAccessor accessor) {
+        Principal user = accessor.getUser();
+        return user != null ? "user:" + user.getName() : "session:" + accessor.getSessionId();
+    }
+}
@@ -0,0 +1,193 @@
+package com.accordion.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process token buckets, one per budget and key (a username, IP address or channel).
+ *
+ * Each budget refills one token every {@code refill-ms} up to {@code capacity}, so clients
+ * may burst up to the capacity and then sustain the refill rate. A bucket is a single
+ * {@link AtomicLong} holding the time at which it will be full again (the generic cell rate
+ * algorithm), updated with compare-and-set, and buckets live in a concurrent map per budget,
+ * so concurrent callers never block each other. Full buckets carry no information and are
+ * swept periodically, which keeps memory proportional to recently active keys.
+ *
+ * Throttled requests are counted in {@value #METRIC_THROTTLED}, tagged by budget.
+ */
+@Component
+public class RateLimiter {
+
+    static final String METRIC_THROTTLED = "accordion.ratelimit.throttled";
+
+    public enum Budget {
+        /** Chat messages sent by one user to one channel. */
+        MESSAGE,
+        /** Chat messages sent in batches by one user to one channel, counted per message. */
+        BATCH,
+        /** Chat messages sent to one channel by everyone. */
+        CHANNEL,
+        /** Typing indicators sent by one user to one channel. */
+        TYPING,
+        /** Login attempts per IP address and per username. */
+        LOGIN,
+        /** Registrations per IP address. */
+        REGISTER
+    }
+
+    @Value("${app.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ratelimit.message.refill-ms:250}")
+    private long messageRefillMs;
+
+    @Value("${app.ratelimit.message.capacity:20}")
+    private int messageCapacity;
+
+    @Value("${app.ratelimit.batch.refill-ms:250}")
+    private long batchRefillMs;
+
+    @Value("${app.ratelimit.batch.capacity:100}")
+    private int batchCapacity;
+
+    @Value("${app.ratelimit.channel.refill-ms:10}")
+    private long channelRefillMs;
+
+    @Value("${app.ratelimit.channel.capacity:200}")
+    private int channelCapacity;
+
+    @Value("${app.ratelimit.typing.refill-ms:500}")
+    private long typingRefillMs;
+
+    @Value("${app.ratelimit.typing.capacity:10}")
+    private int typingCapacity;
+
+    @Value("${app.ratelimit.login.refill-ms:6000}")
+    private long loginRefillMs;
+
+    @Value("${app.ratelimit.login.capacity:5}")
+    private int loginCapacity;
+
+    @Value("${app.ratelimit.register.refill-ms:180000}")
+    private long registerRefillMs;
+
+    @Value("${app.ratelimit.register.capacity:5}")
+    private int registerCapacity;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Time at which each bucket is full again, in clock nanoseconds
+    private final Map<Budget, ConcurrentMap<String, AtomicLong>> buckets = new EnumMap<>(Budget.class);
+
+    LongSupplier clock = System::nanoTime;
+
+    public RateLimiter() {
+        for (Budget budget : Budget.values()) {
+            buckets.put(budget, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Takes one token from the key's bucket.
+     *
+     * @return false if the bucket is empty and the request should be rejected
+     */
+    public boolean tryAcquire(Budget budget, String key) {
+        return tryAcquire(budget, key, 1);
+    }
+
+    /**
+     * Takes {@code permits} tokens from the key's bucket at once, or none. More permits than
+     * the budget's capacity are never granted.
+     *
+     * @return false if the bucket holds fewer tokens and the request should be rejected
+     */
+    public boolean tryAcquire(Budget budget, String key, int permits) {
+        if (!enabled) {
+            return true;
+        }
+        long interval = TimeUnit.MILLISECONDS.toNanos(refillMs(budget));
+        long cost = interval * Math.max(1, permits);
+        // How far the full-again time may run ahead of now while a token is still left
+        long tolerance = interval * (capacity(budget) - 1L);
+        long now = clock.getAsLong();
+        AtomicLong fullAt = buckets.get(budget).computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = fullAt.get();
+            long start = current - now > 0 ? current : now;
+            if (start + cost - interval - now > tolerance) {
+                meterRegistry.counter(METRIC_THROTTLED, "budget", budget.name().toLowerCase(Locale.ROOT)).increment();
+                return false;
+            }
+            if (fullAt.compareAndSet(current, start + cost)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Puts back {@code permits} tokens taken by {@link #tryAcquire} for a request that was
+     * rejected after all, e.g. by a second budget. A bucket that has since refilled
+     * completely is left as it is.
+     */
+    public void release(Budget budget, String key, int permits) {
+        if (!enabled) {
+            return;
+        }
+        AtomicLong fullAt = buckets.get(budget).get(key);
+        if (fullAt != null) {
+            fullAt.addAndGet(-TimeUnit.MILLISECONDS.toNanos(refillMs(budget)) * Math.max(1, permits));
+        }
+    }
+
+    /**
+     * Drops buckets that have refilled completely; they behave exactly like new ones. A caller
+     * racing with the sweep may lose one recorded token, never more.
+     */
+    @Scheduled(fixedDelayString = "${app.ratelimit.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = clock.getAsLong();
+        for (ConcurrentMap<String, AtomicLong> budgetBuckets : buckets.values()) {
+            budgetBuckets.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+        }
+    }
+
+    int getBucketCount(Budget budget) {
+        return buckets.get(budget).size();
+    }
+
+    private long refillMs(Budget budget) {
+        return switch (budget) {
+            case MESSAGE -> messageRefillMs;
+            case BATCH -> batchRefillMs;
+            case CHANNEL -> channelRefillMs;
+            case TYPING -> typingRefillMs;
+            case LOGIN -> loginRefillMs;
+            case REGISTER -> registerRefillMs;
+        };
+    }
+
+    private int capacity(Budget budget) {
+        return Math.max(1, switch (budget) {
+            case MESSAGE -> messageCapacity;
+            case BATCH -> batchCapacity;
+            case CHANNEL -> channelCapacity;
+            case TYPING -> typingCapacity;
+            case LOGIN -> loginCapacity;
+            case REGISTER -> registerCapacity;
+        });
+    }
+}
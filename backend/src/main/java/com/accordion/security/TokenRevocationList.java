@@ -0,0 +1,135 @@
+package com.accordion.security;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ids ({@code jti}) of tokens revoked before their expiry, e.g. on logout or refresh token
+ * rotation.
+ *
+ * Every authenticated request asks {@link #isRevoked}, and almost every answer is no, so
+ * lookups go through a fixed-size bloom filter first: a miss in the filter is a definite no
+ * without touching the set of revoked ids, and only filter hits are confirmed against it.
+ * Entries are kept until the token would have expired anyway; the periodic sweep drops
+ * those and rebuilds the filter so it does not fill up over time.
+ *
+ * The list lives in memory only, so revocations are lost on restart. Access tokens are
+ * short-lived, which bounds how long a revoked one could be reused after a restart.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final int HASHES = 4;
+
+    @Value("${app.jwt.revocation.bloom-bits:1048576}")
+    private int bloomBits;
+
+    // Expiry in epoch milliseconds by token id
+    private final ConcurrentMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+    // The filter being replaced, still consulted while the sweep fills its successor
+    private volatile BloomFilter retiring;
+
+    @PostConstruct
+    void init() {
+        filter = new BloomFilter(bloomBits);
+    }
+
+    /**
+     * Revokes a token until {@code expiresAtMillis}, after which it is rejected as expired anyway.
+     * Of several concurrent calls for the same token, exactly one sees it revoked by itself.
+     *
+     * @return true if this call revoked the token, false if it was already revoked or has expired
+     */
+    public boolean revoke(String tokenId, long expiresAtMillis) {
+        if (tokenId == null || expiresAtMillis <= System.currentTimeMillis()) {
+            return false;
+        }
+        if (revoked.putIfAbsent(tokenId, expiresAtMillis) != null) {
+            return false;
+        }
+        filter.add(tokenId);
+        return true;
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        BloomFilter previous = retiring;
+        if (!filter.mightContain(tokenId) && (previous == null || !previous.mightContain(tokenId))) {
+            return false;
+        }
+        return revoked.containsKey(tokenId);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.sweep-interval-ms:300000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        // Swapped in empty while the old filter keeps answering: ids revoked before the swap
+        // are in the set when the copy starts, later ones are added by revoke() itself
+        BloomFilter rebuilt = new BloomFilter(bloomBits);
+        retiring = filter;
+        filter = rebuilt;
+        revoked.keySet().forEach(rebuilt::add);
+        retiring = null;
+    }
+
+    private static final class BloomFilter {
+        private final AtomicLongArray bits;
+        private final int mask;
+
+        BloomFilter(int requestedBits) {
+            int size = Integer.highestOneBit(Math.max(64, requestedBits));
+            this.bits = new AtomicLongArray(size / 64);
+            this.mask = size - 1;
+        }
+
+        void add(String id) {
+            long hash = hash(id);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & mask;
+                long flag = 1L << (bit & 63);
+                bits.getAndAccumulate(bit >>> 6, flag, (current, f) -> current | f);
+            }
+        }
+
+        boolean mightContain(String id) {
+            long hash = hash(id);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & mask;
+                if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 64-bit FNV-1a, split into the two halves used for double hashing
+        private static long hash(String id) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : id.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+}
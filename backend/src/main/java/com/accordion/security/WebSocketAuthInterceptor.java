@@ -1,5 +1,6 @@
 package com.accordion.security;
 
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +26,9 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
         StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
@@ -44,13 +48,22 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
 
             String token = authToken.substring(7);
             try {
-                String username = jwtUtil.extractUsername(token);
+                Claims claims = jwtUtil.parseAccessToken(token);
+                if (claims == null) {
+                    logger.warn("WebSocket CONNECT rejected: JWT validation failed");
+                    return null;
+                }
+                String username = claims.getSubject();
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
                 
-                if (!jwtUtil.validateToken(token, userDetails.getUsername())) {
+                if (!username.equals(userDetails.getUsername())) {
                     logger.warn("WebSocket CONNECT rejected: JWT validation failed for user '{}'", username);
                     return null;
                 }
+                if (tokenRevocationList.isRevoked(claims.getId())) {
+                    logger.warn("WebSocket CONNECT rejected: token of user '{}' has been revoked", username);
+                    return null;
+                }
 
                 UsernamePasswordAuthenticationToken authentication = 
                     new UsernamePasswordAuthenticationToken(
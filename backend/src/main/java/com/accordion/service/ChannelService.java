@@ -1,19 +1,41 @@
 package com.accordion.service;
 
+import com.accordion.dto.ChannelSummary;
 import com.accordion.model.Channel;
 import com.accordion.repository.ChannelRepository;
+import com.accordion.websocket.ChannelEventPublisher;
+import com.accordion.websocket.MessageBroadcaster;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class ChannelService {
 
+    static final String DEFAULT_CHANNEL_NAME = "general";
+
     @Autowired
     private ChannelRepository channelRepository;
 
+    @Autowired
+    private MessageBroadcaster messageBroadcaster;
+
+    @Autowired
+    private ChannelEventPublisher channelEventPublisher;
+
+    @Autowired
+    private MessageRetentionService messageRetentionService;
+
+    // Bumped after every change to the listed fields of any channel; the epoch tells apart
+    // counters of different runs (and instances), which all start from zero
+    private final String listVersionEpoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong listVersion = new AtomicLong();
+
     public Channel createChannel(String name, String description, String createdBy) {
         // Check if channel with this name already exists
         if (channelRepository.findByName(name).isPresent()) {
@@ -21,13 +43,31 @@ public class ChannelService {
         }
         
         Channel channel = new Channel(name, description, createdBy);
-        return channelRepository.save(channel);
+        Channel saved = channelRepository.save(channel);
+        listVersion.incrementAndGet();
+        channelEventPublisher.created(saved);
+        return saved;
     }
 
     public List<Channel> getAllChannels() {
         return channelRepository.findAll();
     }
 
+    /**
+     * Returns up to {@code limit} channels with an id greater than {@code afterId}, in id order.
+     */
+    public List<ChannelSummary> getChannelSummaries(Long afterId, int limit) {
+        return channelRepository.findSummariesAfter(afterId == null ? 0L : afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Identifies the current state of the channel list. It changes only after a change has been
+     * saved, so a listing read after taking the version is at least as new as the version says.
+     */
+    public String getChannelListVersion() {
+        return listVersionEpoch + "-" + listVersion.get();
+    }
+
     public Optional<Channel> getChannelById(Long id) {
         return channelRepository.findById(id);
     }
@@ -36,11 +76,63 @@ public class ChannelService {
         return channelRepository.findByName(name);
     }
 
+    public Channel updateRetention(Long id, Integer maxAgeDays, Integer maxMessages) {
+        Channel channel = channelRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Channel does not exist"));
+        channel.setRetentionMaxAgeDays(maxAgeDays);
+        channel.setRetentionMaxMessages(maxMessages);
+        Channel saved = channelRepository.save(channel);
+        messageRetentionService.retentionChanged(saved);
+        return saved;
+    }
+
+    public Channel updateDescription(Long id, String description) {
+        Channel channel = channelRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Channel does not exist"));
+        if (Objects.equals(channel.getDescription(), description)) {
+            return channel;
+        }
+        channel.setDescription(description);
+        Channel saved = channelRepository.save(channel);
+        listVersion.incrementAndGet();
+        channelEventPublisher.updated(saved);
+        return saved;
+    }
+
+    /**
+     * Deletes a channel and then its messages. The default channel cannot be deleted.
+     */
+    public void deleteChannel(Long id) {
+        Channel channel = channelRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Channel does not exist"));
+        if (DEFAULT_CHANNEL_NAME.equals(channel.getName())) {
+            throw new IllegalArgumentException("The default channel cannot be deleted");
+        }
+        channelRepository.delete(channel);
+        listVersion.incrementAndGet();
+        channelEventPublisher.deleted(channel);
+        // The channel is gone either way; messages left behind are unreachable through the API,
+        // so removing them, which can take a while, does not hold up the request
+        messageRetentionService.purgeDeletedChannelLater(id);
+    }
+
+    public Channel updateBroadcastWindow(Long id, Integer windowMs) {
+        Channel channel = channelRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Channel does not exist"));
+        channel.setBroadcastWindowMs(windowMs);
+        Channel saved = channelRepository.save(channel);
+        messageBroadcaster.setWindow(id, windowMs);
+        return saved;
+    }
+
     public Channel getOrCreateDefaultChannel() {
-        return channelRepository.findByName("general")
+        return channelRepository.findByName(DEFAULT_CHANNEL_NAME)
                 .orElseGet(() -> {
-                    Channel defaultChannel = new Channel("general", "General discussion", "System");
-                    return channelRepository.save(defaultChannel);
+                    Channel defaultChannel = new Channel(DEFAULT_CHANNEL_NAME, "General discussion", "System");
+                    Channel saved = channelRepository.save(defaultChannel);
+                    listVersion.incrementAndGet();
+                    channelEventPublisher.created(saved);
+                    return saved;
                 });
     }
 }
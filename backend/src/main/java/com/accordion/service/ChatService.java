@@ -2,11 +2,14 @@ package com.accordion.service;
 
 import com.accordion.model.ChatMessage;
 import com.accordion.repository.ChatMessageRepository;
+import com.accordion.search.MessageSearchIndex;
+import com.accordion.storage.MessageArchive;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -19,9 +22,52 @@ public class ChatService {
     @Autowired
     private ChannelService channelService;
 
+    @Autowired
+    private MessageArchive messageArchive;
+
+    @Autowired
+    private MessageSearchIndex messageSearchIndex;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private MessageSequencer messageSequencer;
+
     public ChatMessage saveMessage(String username, String content, Long channelId) {
         ChatMessage message = new ChatMessage(username, content, channelId);
-        return chatMessageRepository.save(message);
+        ChatMessage saved = channelId == null
+                ? chatMessageRepository.save(message)
+                : messageSequencer.next(channelId, seq -> {
+                    message.setSeq(seq);
+                    return chatMessageRepository.save(message);
+                });
+        messageSearchIndex.add(saved);
+        recentMessageCache.record(saved);
+        return saved;
+    }
+
+    /**
+     * Saves several messages to one channel with a single batched insert. They get
+     * consecutive sequence numbers in list order.
+     */
+    public List<ChatMessage> saveMessages(Long channelId, List<ChatMessage> messages) {
+        if (messages.isEmpty()) {
+            return messages;
+        }
+        messageSequencer.reserve(channelId, messages.size(), firstSeq -> {
+            for (int i = 0; i < messages.size(); i++) {
+                ChatMessage message = messages.get(i);
+                message.setChannelId(channelId);
+                message.setSeq(firstSeq + i);
+            }
+            return chatMessageRepository.insertAll(messages);
+        });
+        for (ChatMessage message : messages) {
+            messageSearchIndex.add(message);
+            recentMessageCache.record(message);
+        }
+        return messages;
     }
 
     public ChatMessage saveMessage(String username, String content) {
@@ -34,6 +80,10 @@ public class ChatService {
         Pageable pageable = PageRequest.of(0, limit);
         List<ChatMessage> messages = chatMessageRepository.findAllByOrderByTimestampDesc(pageable);
         Collections.reverse(messages); // Show oldest first
+        if (messages.size() < limit && messageArchive.isEnabled()) {
+            // Hot tier exhausted; archived messages are all older than anything still in the database
+            return prependArchived(messageArchive.readRecent(limit - messages.size()), messages);
+        }
         return messages;
     }
 
@@ -41,6 +91,73 @@ public class ChatService {
         Pageable pageable = PageRequest.of(0, limit);
         List<ChatMessage> messages = chatMessageRepository.findByChannelIdOrderByTimestampDesc(channelId, pageable);
         Collections.reverse(messages); // Show oldest first
+        if (messages.size() < limit && messageArchive.isEnabled()) {
+            long beforeId = messages.isEmpty() ? Long.MAX_VALUE : messages.get(0).getId();
+            return prependArchived(messageArchive.readBefore(channelId, beforeId, limit - messages.size()), messages);
+        }
         return messages;
     }
+
+    /**
+     * Returns the newest {@code limit} messages of a channel with an id greater than
+     * {@code afterId} (0 for none), oldest first. Served from {@link RecentMessageCache}
+     * where possible; used to replay history when a client subscribes.
+     */
+    public List<ChatMessage> getMessagesAfter(Long channelId, long afterId, int limit) {
+        List<ChatMessage> cached = recentMessageCache.getAfter(channelId, afterId, limit);
+        if (cached == null) {
+            loadRecentMessageCache(channelId);
+            cached = recentMessageCache.getAfter(channelId, afterId, limit);
+        }
+        if (cached != null) {
+            return cached;
+        }
+        // The requested range reaches further back than the cached window
+        List<ChatMessage> messages = chatMessageRepository.findByChannelIdAndIdGreaterThanOrderByIdDesc(
+                channelId, afterId, PageRequest.of(0, limit));
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    /**
+     * Returns the newest {@code limit} messages of a channel with a sequence number greater
+     * than {@code afterSeq}, oldest first. Used to fill the gap when a client resumes.
+     */
+    public List<ChatMessage> getMessagesAfterSeq(Long channelId, long afterSeq, int limit) {
+        List<ChatMessage> cached = recentMessageCache.getAfterSeq(channelId, afterSeq, limit);
+        if (cached == null) {
+            loadRecentMessageCache(channelId);
+            cached = recentMessageCache.getAfterSeq(channelId, afterSeq, limit);
+        }
+        if (cached != null) {
+            return cached;
+        }
+        List<ChatMessage> messages = chatMessageRepository.findByChannelIdAndSeqGreaterThanOrderBySeqDesc(
+                channelId, afterSeq, PageRequest.of(0, limit));
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    /**
+     * Returns the sequence number of the newest message in a channel.
+     */
+    public long getLatestSeq(Long channelId) {
+        return messageSequencer.current(channelId);
+    }
+
+    private void loadRecentMessageCache(Long channelId) {
+        int capacity = recentMessageCache.getCapacity();
+        List<ChatMessage> recent = getRecentMessagesByChannel(channelId, capacity);
+        recentMessageCache.load(channelId, recent, recent.size() < capacity);
+    }
+
+    private List<ChatMessage> prependArchived(List<ChatMessage> archived, List<ChatMessage> hot) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<ChatMessage> combined = new ArrayList<>(archived.size() + hot.size());
+        combined.addAll(archived);
+        combined.addAll(hot);
+        return combined;
+    }
 }
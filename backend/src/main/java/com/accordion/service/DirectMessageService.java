@@ -0,0 +1,54 @@
+package com.accordion.service;
+
+import com.accordion.model.DirectMessage;
+import com.accordion.repository.DirectMessageRepository;
+import com.accordion.repository.UserRepository;
+import com.accordion.websocket.DirectMessageDelivery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One-to-one messages between users. They are stored apart from channel messages, in a
+ * table indexed by conversation, and delivered only to the two users' sessions.
+ */
+@Service
+public class DirectMessageService {
+
+    @Autowired
+    private DirectMessageRepository directMessageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DirectMessageDelivery directMessageDelivery;
+
+    public DirectMessage sendMessage(String sender, String recipient, String content) {
+        if (sender.equals(recipient)) {
+            throw new IllegalArgumentException("Cannot send a direct message to yourself");
+        }
+        if (!userRepository.existsByUsername(recipient)) {
+            throw new IllegalArgumentException("Recipient does not exist");
+        }
+        DirectMessage saved = directMessageRepository.save(new DirectMessage(sender, recipient, content));
+        directMessageDelivery.deliver(saved);
+        return saved;
+    }
+
+    /**
+     * Returns up to {@code limit} messages between the two users with an id below
+     * {@code beforeId} (null for the newest), oldest first.
+     */
+    public List<DirectMessage> getConversation(String user, String otherUser, Long beforeId, int limit) {
+        List<DirectMessage> messages = directMessageRepository.findByConversationKeyAndIdLessThanOrderByIdDesc(
+                DirectMessage.conversationKey(user, otherUser),
+                beforeId == null ? Long.MAX_VALUE : beforeId,
+                PageRequest.of(0, limit));
+        Collections.reverse(messages); // Show oldest first
+        return messages;
+    }
+}
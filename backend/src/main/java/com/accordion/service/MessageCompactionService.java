@@ -0,0 +1,93 @@
+package com.accordion.service;
+
+import com.accordion.model.ChatMessage;
+import com.accordion.repository.ChatMessageRepository;
+import com.accordion.storage.MessageArchive;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves messages older than the hot window out of the database and into the
+ * compressed {@link MessageArchive}. Runs periodically when the archive is enabled.
+ */
+@Service
+public class MessageCompactionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageCompactionService.class);
+
+    @Value("${app.storage.hot-retention-days:7}")
+    private int hotRetentionDays;
+
+    @Value("${app.storage.compaction.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private MessageArchive messageArchive;
+
+    @Scheduled(fixedDelayString = "${app.storage.compaction.interval-ms:3600000}",
+               initialDelayString = "${app.storage.compaction.initial-delay-ms:60000}")
+    public void scheduledCompaction() {
+        if (!messageArchive.isEnabled()) {
+            return;
+        }
+        try {
+            int moved = compact(LocalDateTime.now().minusDays(hotRetentionDays));
+            if (moved > 0) {
+                logger.info("Compacted {} message(s) into the archive", moved);
+            }
+        } catch (Exception e) {
+            logger.error("Message compaction failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Archives and deletes every channel message older than the cutoff, one block per batch.
+     * Each batch is appended (and fsynced) before it is deleted, so a crash can only leave
+     * rows that are already archived; those are recognised by the archive on the next run.
+     * Only rows the archive reports as archived are deleted: a row whose id is below the
+     * archive's newest one (ids do not follow timestamps, e.g. for imported history) cannot
+     * be appended and stays in the database.
+     *
+     * @return the number of messages removed from the database
+     */
+    public int compact(LocalDateTime cutoff) throws IOException {
+        int moved = 0;
+        for (Long channelId : chatMessageRepository.findChannelIdsWithMessagesBefore(cutoff)) {
+            List<ChatMessage> batch;
+            long afterId = 0;
+            int kept = 0;
+            do {
+                // Keyset paging, so rows left in the database are not fetched again
+                batch = chatMessageRepository.findByChannelIdAndTimestampBeforeAndIdGreaterThanOrderByIdAsc(
+                        channelId, cutoff, afterId, PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                afterId = batch.get(batch.size() - 1).getId();
+                List<ChatMessage> archived = messageArchive.append(channelId, batch);
+                if (!archived.isEmpty()) {
+                    chatMessageRepository.deleteAllInBatch(archived);
+                }
+                moved += archived.size();
+                kept += batch.size() - archived.size();
+            } while (batch.size() == batchSize);
+            if (kept > 0) {
+                logger.warn("Kept {} message(s) of channel {} in the database: their ids are older than the archive's newest",
+                        kept, channelId);
+            }
+        }
+        return moved;
+    }
+}
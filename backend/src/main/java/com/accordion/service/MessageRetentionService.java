@@ -0,0 +1,258 @@
+package com.accordion.service;
+
+import com.accordion.model.Channel;
+import com.accordion.repository.ChannelRepository;
+import com.accordion.repository.ChatMessageRepository;
+import com.accordion.search.MessageSearchIndex;
+import com.accordion.storage.MessageArchive;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces per-channel retention policies ({@link Channel#getRetentionMaxAgeDays()},
+ * {@link Channel#getRetentionMaxMessages()}).
+ *
+ * Expired rows are located with keyset scans over the message id and deleted in small
+ * batches, each in its own short transaction, so the purge never holds long locks.
+ * In dry-run mode nothing is deleted; the job only logs and counts what it would remove.
+ *
+ * The messages of deleted channels are removed on a dedicated background thread, one
+ * channel at a time, so the request that deleted the channel does not wait for them.
+ */
+@Service
+public class MessageRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageRetentionService.class);
+
+    static final String METRIC_DELETED = "accordion.retention.deleted";
+    static final String METRIC_BATCHES = "accordion.retention.batches";
+    static final String METRIC_RUN = "accordion.retention.run";
+
+    @Value("${app.retention.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.retention.batch-pause-ms:10}")
+    private long batchPauseMs;
+
+    @Value("${app.retention.dry-run:false}")
+    private boolean dryRun;
+
+    @Autowired
+    private ChannelRepository channelRepository;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private MessageArchive messageArchive;
+
+    @Autowired
+    private MessageSearchIndex messageSearchIndex;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ExecutorService deletedChannelPurges = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "deleted-channel-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Lets a purge in progress finish before the archive it writes to is closed
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        deletedChannelPurges.shutdown();
+        if (!deletedChannelPurges.awaitTermination(10, TimeUnit.SECONDS)) {
+            logger.warn("Deleted channel purge still running at shutdown; its remaining messages are left behind");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.retention.interval-ms:300000}",
+               initialDelayString = "${app.retention.initial-delay-ms:30000}")
+    public void scheduledPurge() {
+        try {
+            long purged = purgeAll();
+            if (purged > 0) {
+                logger.info("Retention purge {} {} message(s)", dryRun ? "would remove" : "removed", purged);
+            }
+        } catch (Exception e) {
+            logger.error("Retention purge failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Applies the retention policy of every channel that has one.
+     *
+     * @return the number of messages removed (or that would be removed in dry-run mode)
+     */
+    public long purgeAll() throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long total = 0;
+        try {
+            for (Channel channel : channelRepository.findByRetentionMaxAgeDaysIsNotNullOrRetentionMaxMessagesIsNotNull()) {
+                total += purgeChannel(channel, LocalDateTime.now());
+            }
+        } finally {
+            sample.stop(meterRegistry.timer(METRIC_RUN, "dryRun", String.valueOf(dryRun)));
+        }
+        return total;
+    }
+
+    long purgeChannel(Channel channel, LocalDateTime now) throws IOException {
+        long purged = 0;
+        Long channelId = channel.getId();
+
+        Integer maxAgeDays = channel.getRetentionMaxAgeDays();
+        if (maxAgeDays != null && maxAgeDays > 0) {
+            LocalDateTime cutoff = now.minusDays(maxAgeDays);
+            long afterId = 0;
+            List<Long> ids;
+            do {
+                ids = chatMessageRepository.findIdsOlderThan(channelId, afterId, cutoff, PageRequest.of(0, batchSize));
+                if (!ids.isEmpty()) {
+                    deleteBatch(channelId, ids, "age");
+                    purged += ids.size();
+                    afterId = ids.get(ids.size() - 1);
+                }
+            } while (ids.size() == batchSize);
+            purged += record(messageArchive.purgeOlderThan(channelId, cutoff, dryRun,
+                    messageSearchIndex::remove), "age");
+        }
+
+        Integer maxMessages = channel.getRetentionMaxMessages();
+        if (maxMessages != null && maxMessages > 0) {
+            // The newest id that falls outside the window; everything up to it goes
+            List<Long> boundary = chatMessageRepository.findIdsNewestFirst(channelId, PageRequest.of(maxMessages, 1));
+            if (!boundary.isEmpty()) {
+                long maxId = boundary.get(0);
+                long afterId = 0;
+                List<Long> ids;
+                do {
+                    ids = chatMessageRepository.findIdsUpTo(channelId, afterId, maxId, PageRequest.of(0, batchSize));
+                    if (!ids.isEmpty()) {
+                        deleteBatch(channelId, ids, "count");
+                        purged += ids.size();
+                        afterId = ids.get(ids.size() - 1);
+                    }
+                } while (ids.size() == batchSize);
+            }
+            if (messageArchive.isEnabled()) {
+                long hot = dryRun ? Math.min(maxMessages, chatMessageRepository.countByChannelId(channelId))
+                                  : chatMessageRepository.countByChannelId(channelId);
+                purged += record(messageArchive.purgeExceeding(channelId, maxMessages - hot, dryRun,
+                        messageSearchIndex::remove), "count");
+            }
+        }
+
+        if (purged > 0) {
+            logger.debug("Retention for channel {} {} {} message(s)", channelId, dryRun ? "would remove" : "removed", purged);
+        }
+        return purged;
+    }
+
+    /**
+     * Applies a channel's new age policy to reads from the archive straight away, rather than
+     * at the next purge. A channel without one is never visited by the purge, so this is also
+     * what stops its archived messages from being hidden by the cutoff of an earlier policy.
+     */
+    public void retentionChanged(Channel channel) {
+        Integer maxAgeDays = channel.getRetentionMaxAgeDays();
+        LocalDateTime cutoff = maxAgeDays != null && maxAgeDays > 0 && !dryRun
+                ? LocalDateTime.now().minusDays(maxAgeDays)
+                : null;
+        messageArchive.setExpiredBefore(channel.getId(), cutoff);
+    }
+
+    /**
+     * Queues {@link #purgeDeletedChannel} to run in the background. Failures are logged.
+     */
+    public Future<?> purgeDeletedChannelLater(Long channelId) {
+        return deletedChannelPurges.submit(() -> {
+            try {
+                purgeDeletedChannel(channelId);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to remove the messages of deleted channel {}: {}", channelId, e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Removes every message of a channel, stored and archived, after the channel itself has
+     * been deleted. This is an explicit request rather than a policy, so dry-run mode does
+     * not apply.
+     *
+     * @return the number of messages removed
+     */
+    public long purgeDeletedChannel(Long channelId) throws IOException {
+        long purged = 0;
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            ids = chatMessageRepository.findIdsUpTo(channelId, afterId, Long.MAX_VALUE, PageRequest.of(0, batchSize));
+            if (!ids.isEmpty()) {
+                removeBatch(channelId, ids);
+                purged += ids.size();
+                afterId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == batchSize);
+        purged += messageArchive.purgeExceeding(channelId, 0, false, messageSearchIndex::remove);
+        recentMessageCache.invalidate(channelId);
+        if (purged > 0) {
+            meterRegistry.counter(METRIC_DELETED, "reason", "channel", "dryRun", "false").increment(purged);
+            logger.info("Removed {} message(s) of deleted channel {}", purged, channelId);
+        }
+        return purged;
+    }
+
+    private void deleteBatch(Long channelId, List<Long> ids, String reason) {
+        if (!dryRun) {
+            removeBatch(channelId, ids);
+        }
+        record(ids.size(), reason);
+    }
+
+    private void removeBatch(Long channelId, List<Long> ids) {
+        chatMessageRepository.deleteAllByIdInBatch(ids);
+        ids.forEach(messageSearchIndex::remove);
+        recentMessageCache.remove(channelId, ids);
+        meterRegistry.counter(METRIC_BATCHES).increment();
+        pause();
+    }
+
+    private long record(long count, String reason) {
+        if (count > 0) {
+            meterRegistry.counter(METRIC_DELETED, "reason", reason, "dryRun", String.valueOf(dryRun)).increment(count);
+        }
+        return count;
+    }
+
+    private void pause() {
+        if (batchPauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(batchPauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.accordion.service;
+
+import com.accordion.model.ChatMessage;
+import com.accordion.repository.ChatMessageRepository;
+import com.accordion.search.MessageSearchIndex;
+import com.accordion.storage.MessageArchive;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Full-text message search backed by {@link MessageSearchIndex}.
+ * The index is rebuilt from the database and the archive at startup and kept current by
+ * {@link ChatService#saveMessage}; queries only hit storage to load the final page of hits.
+ */
+@Service
+public class MessageSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageSearchService.class);
+
+    @Value("${app.search.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    @Autowired
+    private MessageSearchIndex messageSearchIndex;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private MessageArchive messageArchive;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        long start = System.currentTimeMillis();
+        // Archive and table ids interleave, so load them unordered and sort each term once
+        MessageSearchIndex.BulkLoad load = messageSearchIndex.bulkLoad();
+        messageArchive.forEach(load::add);
+
+        long afterId = 0;
+        List<ChatMessage> page;
+        do {
+            page = chatMessageRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, rebuildBatchSize));
+            for (ChatMessage message : page) {
+                load.add(message);
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == rebuildBatchSize);
+        load.finish();
+
+        logger.info("Search index rebuilt with {} message(s) in {} ms",
+                messageSearchIndex.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Returns messages matching every term of the query, newest first.
+     */
+    public List<ChatMessage> search(String query, Long channelId, String username,
+                                    LocalDateTime from, LocalDateTime to, int limit) {
+        List<Long> ids = messageSearchIndex.search(query, channelId, username, from, to, limit);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, ChatMessage> found = new HashMap<>();
+        for (ChatMessage message : chatMessageRepository.findAllById(ids)) {
+            found.put(message.getId(), message);
+        }
+
+        List<ChatMessage> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ChatMessage message = found.get(id);
+            if (message == null) {
+                // Compacted out of the hot tier since it was indexed
+                Long messageChannelId = messageSearchIndex.getChannelId(id);
+                Optional<ChatMessage> archived = messageChannelId == null
+                        ? Optional.empty()
+                        : messageArchive.findById(messageChannelId, id);
+                message = archived.orElse(null);
+            }
+            if (message != null) {
+                results.add(message);
+            }
+        }
+        return results;
+    }
+}
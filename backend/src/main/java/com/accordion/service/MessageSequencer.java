@@ -0,0 +1,72 @@
+package com.accordion.service;
+
+import com.accordion.repository.ChatMessageRepository;
+import com.accordion.storage.MessageArchive;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongFunction;
+
+/**
+ * Hands out per-channel message sequence numbers.
+ *
+ * Each channel's counter is seeded from the highest sequence in the database or the archive
+ * the first time it is used. A number is only consumed if the action given it succeeds, and
+ * actions for the same channel run one at a time, so sequences are gap-free and follow
+ * insertion (and therefore id) order.
+ */
+@Component
+public class MessageSequencer {
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private MessageArchive messageArchive;
+
+    private final ConcurrentMap<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    private static final class Counter {
+        private long value;
+
+        Counter(long value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Runs {@code action} with the channel's next sequence number.
+     */
+    public <T> T next(Long channelId, LongFunction<T> action) {
+        return reserve(channelId, 1, action);
+    }
+
+    /**
+     * Runs {@code action} with the first of {@code count} consecutive sequence numbers.
+     */
+    public <T> T reserve(Long channelId, int count, LongFunction<T> action) {
+        Counter counter = counters.computeIfAbsent(channelId, this::seed);
+        synchronized (counter) {
+            T result = action.apply(counter.value + 1);
+            counter.value += count;
+            return result;
+        }
+    }
+
+    /**
+     * Returns the last sequence number handed out for a channel.
+     */
+    public long current(Long channelId) {
+        Counter counter = counters.computeIfAbsent(channelId, this::seed);
+        synchronized (counter) {
+            return counter.value;
+        }
+    }
+
+    private Counter seed(Long channelId) {
+        Long hot = chatMessageRepository.findMaxSeqByChannelId(channelId);
+        return new Counter(Math.max(hot == null ? 0 : hot, messageArchive.getLastSeq(channelId)));
+    }
+}
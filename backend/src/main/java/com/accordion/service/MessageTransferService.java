@@ -0,0 +1,195 @@
+package com.accordion.service;
+
+import com.accordion.model.ChatMessage;
+import com.accordion.repository.ChatMessageRepository;
+import com.accordion.search.MessageSearchIndex;
+import com.accordion.storage.MessageArchive;
+import com.accordion.util.ValidationUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Bulk export and import of a channel's full history as newline-delimited JSON, one
+ * {@link ChatMessage} per line.
+ *
+ * Export reads the archive first and then walks the hot table through a server-side cursor,
+ * detaching each row once written, so memory use does not depend on the channel size.
+ * Import inserts in JDBC batches; imported messages get new ids in the target channel but
+ * no sequence number. Sequence numbers tell clients which live messages they missed, and a
+ * client resuming with {@code resume-from-seq} must not be handed an imported backlog as if
+ * it had just been sent.
+ */
+@Service
+public class MessageTransferService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageTransferService.class);
+
+    @Value("${app.transfer.import-batch-size:500}")
+    private int importBatchSize;
+
+    @Value("${app.message.max-length}")
+    private int maxMessageLength;
+
+    @Value("${app.username.max-length}")
+    private int maxUsernameLength;
+
+    @Value("${app.username.min-length}")
+    private int minUsernameLength;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private MessageArchive messageArchive;
+
+    @Autowired
+    private MessageSearchIndex messageSearchIndex;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Writes every message of a channel to {@code out}, oldest first.
+     *
+     * @return the number of messages written
+     */
+    @Transactional(readOnly = true)
+    public long exportChannel(Long channelId, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(ChatMessage.class);
+        OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        long[] state = new long[2]; // count, newest archived id
+
+        try {
+            messageArchive.forEachInChannel(channelId, message -> {
+                try {
+                    writeLine(writer, buffered, message);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                state[0]++;
+                state[1] = message.getId();
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        try (Stream<ChatMessage> messages = chatMessageRepository.streamByChannelId(channelId)) {
+            Iterator<ChatMessage> iterator = messages.iterator();
+            while (iterator.hasNext()) {
+                ChatMessage message = iterator.next();
+                // Rows being compacted can briefly exist in both tiers
+                if (message.getId() > state[1]) {
+                    writeLine(writer, buffered, message);
+                    state[0]++;
+                }
+                entityManager.detach(message);
+            }
+        }
+        buffered.flush();
+        return state[0];
+    }
+
+    /**
+     * Reads NDJSON messages from {@code in} and inserts them into a channel. Lines that are not
+     * valid JSON or fail the usual username/content validation are skipped. Each batch is
+     * committed on its own, so a failure part way through keeps the batches already written.
+     *
+     * @return the number of imported and skipped lines
+     */
+    public ImportResult importChannel(Long channelId, InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<ChatMessage> batch = new ArrayList<>(importBatchSize);
+        long imported = 0;
+        long skipped = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            ChatMessage message = parseLine(line, channelId);
+            if (message == null) {
+                skipped++;
+                continue;
+            }
+            batch.add(message);
+            if (batch.size() == importBatchSize) {
+                imported += insertBatch(channelId, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            imported += insertBatch(channelId, batch);
+        }
+        if (imported > 0) {
+            recentMessageCache.invalidate(channelId);
+        }
+
+        logger.info("Imported {} message(s) into channel {} ({} skipped)", imported, channelId, skipped);
+        return new ImportResult(imported, skipped);
+    }
+
+    private ChatMessage parseLine(String line, Long channelId) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            String username = node.path("username").asText(null);
+            String content = node.path("content").asText(null);
+            if (!ValidationUtils.isValidUsername(username, minUsernameLength, maxUsernameLength)
+                    || !ValidationUtils.isValidContent(content, maxMessageLength)) {
+                return null;
+            }
+            ChatMessage message = new ChatMessage(username.trim(), content.trim(), channelId);
+            JsonNode timestamp = node.get("timestamp");
+            if (timestamp != null && !timestamp.isNull()) {
+                message.setTimestamp(objectMapper.treeToValue(timestamp, LocalDateTime.class));
+            }
+            return message;
+        } catch (IOException e) {
+            logger.debug("Skipping unreadable import line: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private int insertBatch(Long channelId, List<ChatMessage> batch) {
+        int inserted = chatMessageRepository.insertAll(batch);
+        batch.forEach(messageSearchIndex::add);
+        return inserted;
+    }
+
+    private void writeLine(ObjectWriter writer, OutputStream out, ChatMessage message) throws IOException {
+        out.write(writer.writeValueAsBytes(message));
+        out.write('\n');
+    }
+
+    public record ImportResult(long imported, long skipped) {
+    }
+}
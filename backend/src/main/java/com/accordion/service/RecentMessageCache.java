@@ -0,0 +1,154 @@
+package com.accordion.service;
+
+import com.accordion.model.ChatMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded per-channel window of the newest messages, ordered by id (and therefore by
+ * sequence number, which {@link MessageSequencer} assigns in id order).
+ *
+ * Windows are filled lazily from storage the first time a channel is replayed and then kept
+ * current by {@link ChatService#saveMessage}. Messages saved before a window is loaded are
+ * kept and merged with the loaded rows, so a load racing a save cannot lose the new message.
+ */
+@Component
+public class RecentMessageCache {
+
+    @Value("${app.replay.cache-size:200}")
+    private int capacity;
+
+    private final ConcurrentMap<Long, Window> windows = new ConcurrentHashMap<>();
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void record(ChatMessage message) {
+        if (message.getId() == null || message.getChannelId() == null) {
+            return;
+        }
+        window(message.getChannelId()).put(message);
+    }
+
+    /**
+     * Seeds a channel's window with rows read from storage.
+     *
+     * @param complete true if {@code messages} is the channel's entire history
+     */
+    public void load(Long channelId, List<ChatMessage> messages, boolean complete) {
+        window(channelId).load(messages, complete);
+    }
+
+    public void remove(Long channelId, Collection<Long> ids) {
+        Window window = windows.get(channelId);
+        if (window != null) {
+            window.remove(ids);
+        }
+    }
+
+    /**
+     * Forgets a channel's window so the next read reloads it, e.g. after a bulk import
+     * inserted rows whose ids do not follow their timestamps.
+     */
+    public void invalidate(Long channelId) {
+        windows.remove(channelId);
+    }
+
+    /**
+     * Returns the newest {@code limit} messages with an id greater than {@code afterId}, oldest
+     * first, or null if the window is not loaded or cannot tell whether older matches exist.
+     */
+    public List<ChatMessage> getAfter(Long channelId, long afterId, int limit) {
+        Window window = windows.get(channelId);
+        return window == null ? null : window.getAfter(afterId, limit, ChatMessage::getId);
+    }
+
+    /**
+     * Like {@link #getAfter} but bounded by sequence number instead of id. Messages without
+     * one (imported, or saved before sequences existed) are left out.
+     */
+    public List<ChatMessage> getAfterSeq(Long channelId, long afterSeq, int limit) {
+        Window window = windows.get(channelId);
+        return window == null ? null : window.getAfter(afterSeq, limit, RecentMessageCache::seqOf);
+    }
+
+    // Negative for messages without a sequence number, which getAfter skips
+    private static long seqOf(ChatMessage message) {
+        return message.getSeq() == null ? -1 : message.getSeq();
+    }
+
+    private Window window(Long channelId) {
+        return windows.computeIfAbsent(channelId, id -> new Window());
+    }
+
+    private final class Window {
+        private final TreeMap<Long, ChatMessage> messages = new TreeMap<>();
+        private boolean loaded;
+        // No messages older than the window exist in storage
+        private boolean complete;
+
+        synchronized void put(ChatMessage message) {
+            messages.put(message.getId(), message);
+            trim();
+        }
+
+        synchronized void load(List<ChatMessage> loadedMessages, boolean loadedComplete) {
+            for (ChatMessage message : loadedMessages) {
+                messages.putIfAbsent(message.getId(), message);
+            }
+            loaded = true;
+            complete = loadedComplete;
+            trim();
+        }
+
+        synchronized void remove(Collection<Long> ids) {
+            ids.forEach(messages::remove);
+        }
+
+        // Walks back from the newest message; key must increase with id among the messages
+        // that have one (a non-negative key)
+        synchronized List<ChatMessage> getAfter(long after, int limit, ToLongFunction<ChatMessage> key) {
+            if (!loaded) {
+                return null;
+            }
+            List<ChatMessage> result = new ArrayList<>(Math.min(limit, messages.size()));
+            boolean reachedBound = false;
+            for (ChatMessage message : messages.descendingMap().values()) {
+                long messageKey = key.applyAsLong(message);
+                if (messageKey < 0) {
+                    continue;
+                }
+                if (messageKey <= after) {
+                    reachedBound = true;
+                    break;
+                }
+                if (result.size() == limit) {
+                    break;
+                }
+                result.add(message);
+            }
+            if (result.size() < limit && !reachedBound && !complete) {
+                return null;
+            }
+            Collections.reverse(result);
+            return result;
+        }
+
+        private void trim() {
+            while (messages.size() > capacity) {
+                messages.pollFirstEntry();
+                complete = false;
+            }
+        }
+    }
+}
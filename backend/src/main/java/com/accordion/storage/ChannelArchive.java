@@ -0,0 +1,318 @@
+package com.accordion.storage;
+
+import com.accordion.model.ChatMessage;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Cold-tier history for one channel: an ordered list of append-only segment files.
+ * Only the newest segment receives appends; it is rolled once it reaches the size limit.
+ *
+ * The age policy can only delete whole segments, so a segment may hold expired messages
+ * long after the cutoff has passed them. Reads therefore leave out messages older than
+ * the cutoff of the last age purge, see {@link #setExpiredBefore}.
+ */
+public class ChannelArchive implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Long channelId;
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final List<MessageSegment> segments = new CopyOnWriteArrayList<>();
+    // Messages with an older timestamp (epoch seconds, UTC) have expired and are not read
+    private volatile long expiredBefore = Long.MIN_VALUE;
+
+    ChannelArchive(Long channelId, Path directory, long maxSegmentBytes) throws IOException {
+        this.channelId = channelId;
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        Files.createDirectories(directory);
+        loadSegments();
+    }
+
+    private void loadSegments() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(paths::add);
+        }
+        // Segment names are zero-padded first ids, so lexical order is id order
+        paths.sort(Comparator.comparing(p -> p.getFileName().toString()));
+        for (Path path : paths) {
+            MessageSegment segment = MessageSegment.open(path);
+            if (segment.isEmpty()) {
+                segment.close();
+                Files.deleteIfExists(path);
+            } else {
+                segments.add(segment);
+            }
+        }
+    }
+
+    /**
+     * Appends messages (ascending id order) as a new block. Messages already archived are
+     * not written again, so that a compaction run interrupted between append and delete can
+     * be safely retried. Messages with an id not greater than the last archived id that are
+     * not in the archive (ids are not in timestamp order, e.g. for imported history) cannot
+     * be appended without breaking the id order of the segments and are left out.
+     *
+     * @return the messages that are now archived: those written plus those already there
+     */
+    public synchronized List<ChatMessage> append(List<ChatMessage> messages) throws IOException {
+        long lastId = getLastId();
+        List<ChatMessage> archived = new ArrayList<>(messages.size());
+        List<ChatMessage> fresh = new ArrayList<>(messages.size());
+        for (ChatMessage message : messages) {
+            if (message.getId() == null) {
+                continue;
+            }
+            if (message.getId() > lastId) {
+                fresh.add(message);
+                archived.add(message);
+            } else if (findById(message.getId()).isPresent()) {
+                archived.add(message);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return archived;
+        }
+
+        MessageSegment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        // Segments in an older format are left as they are and a new one is started
+        if (active == null || active.size() >= maxSegmentBytes || !active.isCurrentVersion()) {
+            Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, fresh.get(0).getId(), SEGMENT_SUFFIX));
+            active = MessageSegment.open(path);
+            segments.add(active);
+        }
+        active.append(fresh);
+        return archived;
+    }
+
+    /**
+     * Returns up to {@code limit} of the newest unexpired archived messages with an id
+     * strictly below {@code beforeId}, oldest first.
+     */
+    public List<ChatMessage> readBefore(long beforeId, int limit) {
+        long expiredBefore = this.expiredBefore;
+        List<ChatMessage> newestFirst = new ArrayList<>(limit);
+        segments:
+        for (int s = segments.size() - 1; s >= 0 && newestFirst.size() < limit; s--) {
+            MessageSegment segment = segments.get(s);
+            if (segment.getFirstId() >= beforeId) {
+                continue;
+            }
+            List<SegmentBlock> blocks = segment.getBlocks();
+            for (int b = blocks.size() - 1; b >= 0 && newestFirst.size() < limit; b--) {
+                SegmentBlock block = blocks.get(b);
+                if (block.getFirstId() >= beforeId) {
+                    continue;
+                }
+                // Like the age purge, take the newest id to be the newest message; every
+                // block before this one has expired as well
+                if (block.getLastEpochSecond() < expiredBefore) {
+                    break segments;
+                }
+                List<ChatMessage> decoded = segment.readBlock(block, channelId);
+                for (int i = decoded.size() - 1; i >= 0 && newestFirst.size() < limit; i--) {
+                    ChatMessage message = decoded.get(i);
+                    if (message.getId() < beforeId && !isExpired(message, expiredBefore)) {
+                        newestFirst.add(message);
+                    }
+                }
+            }
+        }
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    /**
+     * Looks up a single unexpired archived message using the sparse block index; decodes at
+     * most one block.
+     */
+    public Optional<ChatMessage> findById(long id) {
+        long expiredBefore = this.expiredBefore;
+        return find(id).filter(message -> !isExpired(message, expiredBefore));
+    }
+
+    private Optional<ChatMessage> find(long id) {
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            MessageSegment segment = segments.get(s);
+            if (id < segment.getFirstId()) {
+                continue;
+            }
+            if (id > segment.getLastId()) {
+                return Optional.empty();
+            }
+            List<SegmentBlock> blocks = segment.getBlocks();
+            int low = 0;
+            int high = blocks.size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                SegmentBlock block = blocks.get(mid);
+                if (id < block.getFirstId()) {
+                    high = mid - 1;
+                } else if (id > block.getLastId()) {
+                    low = mid + 1;
+                } else {
+                    for (ChatMessage message : segment.readBlock(block, channelId)) {
+                        if (message.getId() == id) {
+                            return Optional.of(message);
+                        }
+                    }
+                    return Optional.empty();
+                }
+            }
+            return Optional.empty();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Visits every unexpired archived message in ascending id order, one decoded block at a time.
+     */
+    public void forEach(Consumer<ChatMessage> consumer) {
+        long expiredBefore = this.expiredBefore;
+        for (MessageSegment segment : segments) {
+            for (SegmentBlock block : segment.getBlocks()) {
+                if (block.getLastEpochSecond() < expiredBefore) {
+                    continue;
+                }
+                for (ChatMessage message : segment.readBlock(block, channelId)) {
+                    if (!isExpired(message, expiredBefore)) {
+                        consumer.accept(message);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Hides messages with a timestamp before the cutoff from reads until they are dropped;
+     * {@link Long#MIN_VALUE} hides nothing.
+     */
+    public void setExpiredBefore(long cutoffEpochSecond) {
+        expiredBefore = cutoffEpochSecond;
+    }
+
+    private static boolean isExpired(ChatMessage message, long expiredBefore) {
+        return expiredBefore != Long.MIN_VALUE
+                && message.getTimestamp().toEpochSecond(ZoneOffset.UTC) < expiredBefore;
+    }
+
+    /**
+     * Deletes whole segments whose newest message is older than the cutoff.
+     * The active segment is dropped too once everything in it has expired. Unless this is a
+     * dry run, older messages in the segments that remain are hidden from reads.
+     *
+     * @param removed receives the id of every message removed; not called when {@code dryRun}
+     * @return the number of messages removed (or that would be removed when {@code dryRun})
+     */
+    public synchronized long dropSegmentsOlderThan(long cutoffEpochSecond, boolean dryRun, LongConsumer removed)
+            throws IOException {
+        if (!dryRun) {
+            setExpiredBefore(cutoffEpochSecond);
+        }
+        long dropped = 0;
+        for (MessageSegment segment : new ArrayList<>(segments)) {
+            List<SegmentBlock> blocks = segment.getBlocks();
+            if (blocks.get(blocks.size() - 1).getLastEpochSecond() >= cutoffEpochSecond) {
+                break;
+            }
+            dropped += countMessages(segment);
+            if (!dryRun) {
+                drop(segment, removed);
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Deletes the oldest whole segments as long as at least {@code keep} archived messages remain.
+     *
+     * @param removed receives the id of every message removed; not called when {@code dryRun}
+     * @return the number of messages removed (or that would be removed when {@code dryRun})
+     */
+    public synchronized long dropSegmentsExceeding(long keep, boolean dryRun, LongConsumer removed)
+            throws IOException {
+        long remaining = countMessages();
+        long dropped = 0;
+        for (MessageSegment segment : new ArrayList<>(segments)) {
+            long count = countMessages(segment);
+            if (remaining - count < keep) {
+                break;
+            }
+            remaining -= count;
+            dropped += count;
+            if (!dryRun) {
+                drop(segment, removed);
+            }
+        }
+        return dropped;
+    }
+
+    public long countMessages() {
+        long total = 0;
+        for (MessageSegment segment : segments) {
+            total += countMessages(segment);
+        }
+        return total;
+    }
+
+    private static long countMessages(MessageSegment segment) {
+        long count = 0;
+        for (SegmentBlock block : segment.getBlocks()) {
+            count += block.getCount();
+        }
+        return count;
+    }
+
+    private void drop(MessageSegment segment, LongConsumer removed) throws IOException {
+        for (SegmentBlock block : segment.getBlocks()) {
+            segment.readBlock(block, channelId).forEach(message -> removed.accept(message.getId()));
+        }
+        segments.remove(segment);
+        segment.close();
+        Files.deleteIfExists(segment.getPath());
+    }
+
+    public long getLastId() {
+        return segments.isEmpty() ? Long.MIN_VALUE : segments.get(segments.size() - 1).getLastId();
+    }
+
+    /**
+     * Returns the sequence number of the newest archived message, or 0 if there is none.
+     */
+    public long getLastSeq() {
+        if (segments.isEmpty()) {
+            return 0;
+        }
+        // Expired or not, the newest message holds the sequence to continue from
+        Long seq = find(getLastId()).map(ChatMessage::getSeq).orElse(null);
+        return seq == null ? 0 : seq;
+    }
+
+    public Long getChannelId() {
+        return channelId;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (MessageSegment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+}
@@ -0,0 +1,223 @@
+package com.accordion.storage;
+
+import com.accordion.model.ChatMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Cold tier of the message store. Holds compacted history as one {@link ChannelArchive}
+ * per channel under {@code app.storage.archive.dir}.
+ *
+ * Disabled by default: the archive lives on disk, so it must only be enabled together with
+ * a persistent datasource, otherwise message ids restart while archived ids do not.
+ */
+@Component
+public class MessageArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageArchive.class);
+
+    private static final String CHANNEL_DIR_PREFIX = "channel-";
+
+    @Value("${app.storage.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.storage.archive.dir:data/archive}")
+    private String archiveDir;
+
+    @Value("${app.storage.archive.segment-max-bytes:67108864}")
+    private long maxSegmentBytes;
+
+    private final ConcurrentMap<Long, ChannelArchive> channels = new ConcurrentHashMap<>();
+    private Path root;
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        // Segments are mapped with int offsets
+        maxSegmentBytes = Math.min(maxSegmentBytes, Integer.MAX_VALUE / 2);
+        root = Paths.get(archiveDir);
+        Files.createDirectories(root);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, CHANNEL_DIR_PREFIX + "*")) {
+            for (Path dir : stream) {
+                String suffix = dir.getFileName().toString().substring(CHANNEL_DIR_PREFIX.length());
+                try {
+                    Long channelId = Long.parseLong(suffix);
+                    channels.put(channelId, new ChannelArchive(channelId, dir, maxSegmentBytes));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring unexpected directory in message archive: {}", dir);
+                }
+            }
+        }
+        logger.info("Message archive opened at {} with {} channel(s)", root.toAbsolutePath(), channels.size());
+    }
+
+    @PreDestroy
+    void close() {
+        for (ChannelArchive archive : channels.values()) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close archive for channel {}: {}", archive.getChannelId(), e.getMessage());
+            }
+        }
+        channels.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends a batch of messages (ascending id order) for one channel.
+     *
+     * @return the messages that are now archived, see {@link ChannelArchive#append}
+     */
+    public List<ChatMessage> append(Long channelId, List<ChatMessage> messages) throws IOException {
+        if (!enabled) {
+            throw new IllegalStateException("Message archive is disabled");
+        }
+        return channelArchive(channelId).append(messages);
+    }
+
+    /**
+     * Returns up to {@code limit} archived messages of a channel older than {@code beforeId}, oldest first.
+     */
+    public List<ChatMessage> readBefore(Long channelId, long beforeId, int limit) {
+        ChannelArchive archive = enabled ? channels.get(channelId) : null;
+        if (archive == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        return archive.readBefore(beforeId, limit);
+    }
+
+    /**
+     * Returns up to {@code limit} of the newest archived messages across all channels, oldest first.
+     */
+    public List<ChatMessage> readRecent(int limit) {
+        if (!enabled || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<ChatMessage> candidates = new ArrayList<>();
+        for (ChannelArchive archive : channels.values()) {
+            candidates.addAll(archive.readBefore(Long.MAX_VALUE, limit));
+        }
+        candidates.sort(Comparator.comparing(ChatMessage::getTimestamp).thenComparing(ChatMessage::getId));
+        int from = Math.max(0, candidates.size() - limit);
+        return new ArrayList<>(candidates.subList(from, candidates.size()));
+    }
+
+    public Optional<ChatMessage> findById(Long channelId, long id) {
+        ChannelArchive archive = enabled ? channels.get(channelId) : null;
+        return archive == null ? Optional.empty() : archive.findById(id);
+    }
+
+    /**
+     * Visits every archived message of every channel, channel by channel in ascending id order.
+     */
+    public void forEach(Consumer<ChatMessage> consumer) {
+        if (!enabled) {
+            return;
+        }
+        for (ChannelArchive archive : channels.values()) {
+            archive.forEach(consumer);
+        }
+    }
+
+    /**
+     * Visits the archived messages of one channel in ascending id order.
+     */
+    public void forEachInChannel(Long channelId, Consumer<ChatMessage> consumer) {
+        ChannelArchive archive = enabled ? channels.get(channelId) : null;
+        if (archive != null) {
+            archive.forEach(consumer);
+        }
+    }
+
+    /**
+     * Drops archived segments of a channel that only hold messages older than the cutoff, and
+     * unless this is a dry run hides the older messages left in other segments from reads.
+     *
+     * @param removed receives the id of every message removed; not called when {@code dryRun}
+     * @return the number of messages removed (or that would be removed when {@code dryRun})
+     */
+    public long purgeOlderThan(Long channelId, LocalDateTime cutoff, boolean dryRun, LongConsumer removed)
+            throws IOException {
+        ChannelArchive archive = enabled ? channels.get(channelId) : null;
+        if (archive == null) {
+            return 0;
+        }
+        return archive.dropSegmentsOlderThan(cutoff.toEpochSecond(ZoneOffset.UTC), dryRun, removed);
+    }
+
+    /**
+     * Hides a channel's archived messages older than the cutoff from reads, or stops hiding
+     * any when {@code cutoff} is null. {@link #purgeOlderThan} sets the cutoff as well.
+     */
+    public void setExpiredBefore(Long channelId, LocalDateTime cutoff) {
+        ChannelArchive archive = enabled ? channels.get(channelId) : null;
+        if (archive != null) {
+            archive.setExpiredBefore(cutoff == null ? Long.MIN_VALUE : cutoff.toEpochSecond(ZoneOffset.UTC));
+        }
+    }
+
+    /**
+     * Drops the oldest archived segments of a channel while at least {@code keep} archived messages remain.
+     *
+     * @param removed receives the id of every message removed; not called when {@code dryRun}
+     * @return the number of messages removed (or that would be removed when {@code dryRun})
+     */
+    public long purgeExceeding(Long channelId, long keep, boolean dryRun, LongConsumer removed) throws IOException {
+        ChannelArchive archive = enabled ? channels.get(channelId) : null;
+        if (archive == null) {
+            return 0;
+        }
+        return archive.dropSegmentsExceeding(Math.max(0, keep), dryRun, removed);
+    }
+
+    /**
+     * Returns the sequence number of a channel's newest archived message, or 0 if there is none.
+     */
+    public long getLastSeq(Long channelId) {
+        ChannelArchive archive = enabled ? channels.get(channelId) : null;
+        return archive == null ? 0 : archive.getLastSeq();
+    }
+
+    public Set<Long> getChannelIds() {
+        return Collections.unmodifiableSet(channels.keySet());
+    }
+
+    private ChannelArchive channelArchive(Long channelId) {
+        return channels.computeIfAbsent(channelId, id -> {
+            try {
+                return new ChannelArchive(id, root.resolve(CHANNEL_DIR_PREFIX + id), maxSegmentBytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open archive for channel " + id, e);
+            }
+        });
+    }
+}
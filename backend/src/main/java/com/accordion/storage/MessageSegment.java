@@ -0,0 +1,321 @@
+package com.accordion.storage;
+
+import com.accordion.model.ChatMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only segment file holding archived messages for a single channel.
+ *
+ * The file starts with a magic number and a format version byte, followed by a sequence of
+ * blocks, each a fixed header followed by a DEFLATE-compressed batch of records. Blocks are
+ * never rewritten; the in-memory list of block headers acts as the sparse index and is
+ * rebuilt on open by skipping from header to header.
+ * Reads go through a read-only memory mapping of the file.
+ *
+ * Files written before the version header existed start directly with a block, whose first
+ * field is a positive length where the magic number is negative. They are read as version 1,
+ * whose records have no sequence number, and are never appended to.
+ */
+public class MessageSegment implements AutoCloseable {
+
+    // "ACCS" with the high bit set, so it can never be the length that starts a version 1 file
+    private static final int MAGIC = 0xC1434353;
+    private static final int FILE_HEADER_SIZE = 4 + 1;
+
+    /** Records without a sequence number; files without a header. */
+    static final byte VERSION_1 = 1;
+    /** Records carry the channel sequence number after the id. */
+    static final byte VERSION_2 = 2;
+    static final byte CURRENT_VERSION = VERSION_2;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final List<SegmentBlock> blocks = new CopyOnWriteArrayList<>();
+    private byte version;
+    private long size;
+
+    private MappedByteBuffer mapped;
+    private long mappedSize;
+
+    private MessageSegment(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens (or creates) a segment file and rebuilds its block index.
+     * A trailing partially written block, e.g. from a crash mid-append, is truncated.
+     */
+    public static MessageSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MessageSegment segment = new MessageSegment(path, channel);
+        segment.loadIndex();
+        return segment;
+    }
+
+    private void loadIndex() throws IOException {
+        long fileSize = channel.size();
+        long position = readFileHeader(fileSize);
+        ByteBuffer header = ByteBuffer.allocate(SegmentBlock.HEADER_SIZE);
+        while (position + SegmentBlock.HEADER_SIZE <= fileSize) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            SegmentBlock block = readHeader(header, position);
+            if (block.getCompressedLength() <= 0 || block.getEnd() > fileSize) {
+                break;
+            }
+            blocks.add(block);
+            position = block.getEnd();
+        }
+        if (position < fileSize) {
+            channel.truncate(position);
+        }
+        size = position;
+    }
+
+    /**
+     * Determines the format version, writing the header of a new file.
+     *
+     * @return the offset of the first block
+     */
+    private long readFileHeader(long fileSize) throws IOException {
+        // Too short for a version 1 block, so at most a header torn by a crash
+        if (fileSize < FILE_HEADER_SIZE) {
+            channel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).put(CURRENT_VERSION);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(false);
+            version = CURRENT_VERSION;
+            return FILE_HEADER_SIZE;
+        }
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            version = VERSION_1;
+            return 0;
+        }
+        version = header.get();
+        if (version < VERSION_1 || version > CURRENT_VERSION) {
+            throw new IOException("Unsupported archive segment format version " + version + " in " + path);
+        }
+        return FILE_HEADER_SIZE;
+    }
+
+    private static SegmentBlock readHeader(ByteBuffer header, long offset) {
+        int compressedLength = header.getInt();
+        int rawLength = header.getInt();
+        int count = header.getInt();
+        long firstId = header.getLong();
+        long lastId = header.getLong();
+        long firstEpochSecond = header.getLong();
+        long lastEpochSecond = header.getLong();
+        return new SegmentBlock(offset, compressedLength, rawLength, count,
+                firstId, lastId, firstEpochSecond, lastEpochSecond);
+    }
+
+    /**
+     * Appends the given messages as one compressed block and forces it to disk.
+     * Messages must be ordered by ascending id and all belong to this segment's channel.
+     */
+    public synchronized SegmentBlock append(List<ChatMessage> messages) throws IOException {
+        if (messages.isEmpty()) {
+            throw new IllegalArgumentException("Cannot append an empty block");
+        }
+        if (version != CURRENT_VERSION) {
+            throw new IllegalStateException("Cannot append to a version " + version + " segment " + path);
+        }
+        byte[] raw = encode(messages);
+        byte[] compressed = compress(raw);
+
+        ChatMessage first = messages.get(0);
+        ChatMessage last = messages.get(messages.size() - 1);
+        SegmentBlock block = new SegmentBlock(size, compressed.length, raw.length, messages.size(),
+                first.getId(), last.getId(),
+                first.getTimestamp().toEpochSecond(ZoneOffset.UTC),
+                last.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+
+        ByteBuffer buffer = ByteBuffer.allocate(SegmentBlock.HEADER_SIZE + compressed.length);
+        buffer.putInt(block.getCompressedLength())
+                .putInt(block.getRawLength())
+                .putInt(block.getCount())
+                .putLong(block.getFirstId())
+                .putLong(block.getLastId())
+                .putLong(block.getFirstEpochSecond())
+                .putLong(block.getLastEpochSecond())
+                .put(compressed);
+        buffer.flip();
+
+        long position = size;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+
+        size = position;
+        blocks.add(block);
+        return block;
+    }
+
+    /**
+     * Decodes every message in the given block, in ascending id order.
+     */
+    public List<ChatMessage> readBlock(SegmentBlock block, Long channelId) {
+        ByteBuffer payload = slice(block);
+        byte[] raw = new byte[block.getRawLength()];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload);
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, raw.length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != raw.length) {
+                throw new IllegalStateException("Corrupt archive block at offset " + block.getOffset() + " in " + path);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt archive block at offset " + block.getOffset() + " in " + path, e);
+        } finally {
+            inflater.end();
+        }
+        return decode(raw, block.getCount(), channelId, version);
+    }
+
+    private synchronized ByteBuffer slice(SegmentBlock block) {
+        try {
+            if (mapped == null || block.getEnd() > mappedSize) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                mappedSize = size;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map archive segment " + path, e);
+        }
+        ByteBuffer view = mapped.duplicate();
+        int start = (int) (block.getOffset() + SegmentBlock.HEADER_SIZE);
+        view.limit(start + block.getCompressedLength());
+        view.position(start);
+        return view.slice();
+    }
+
+    public List<SegmentBlock> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    public boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+
+    /**
+     * Whether the segment is in the current format; only such segments are appended to.
+     */
+    public boolean isCurrentVersion() {
+        return version == CURRENT_VERSION;
+    }
+
+    public long getFirstId() {
+        return blocks.isEmpty() ? Long.MAX_VALUE : blocks.get(0).getFirstId();
+    }
+
+    public long getLastId() {
+        return blocks.isEmpty() ? Long.MIN_VALUE : blocks.get(blocks.size() - 1).getLastId();
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mapped = null;
+        channel.close();
+    }
+
+    private static byte[] encode(List<ChatMessage> messages) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(messages.size() * 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (ChatMessage message : messages) {
+                LocalDateTime timestamp = message.getTimestamp();
+                out.writeLong(message.getId());
+                out.writeLong(message.getSeq() == null ? 0 : message.getSeq());
+                out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(timestamp.getNano());
+                out.writeUTF(message.getUsername());
+                out.writeUTF(message.getContent());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<ChatMessage> decode(byte[] raw, int count, Long channelId, byte version) {
+        List<ChatMessage> messages = new ArrayList<>(count);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw))) {
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                long seq = version >= VERSION_2 ? in.readLong() : 0;
+                long epochSecond = in.readLong();
+                int nano = in.readInt();
+                String username = in.readUTF();
+                String content = in.readUTF();
+
+                ChatMessage message = new ChatMessage(username, content, channelId);
+                message.setId(id);
+                message.setSeq(seq == 0 ? null : seq);
+                message.setTimestamp(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+                messages.add(message);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode archive block", e);
+        }
+        return messages;
+    }
+
+    private static byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
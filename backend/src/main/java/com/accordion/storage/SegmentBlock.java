@@ -0,0 +1,74 @@
+package com.accordion.storage;
+
+/**
+ * Sparse index entry describing one compressed block inside a segment file.
+ * Only block boundaries are indexed, so lookups by id or timestamp decode at most one block.
+ */
+public class SegmentBlock {
+
+    /** Size of the fixed block header written before every compressed payload. */
+    static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 8 + 8 + 8;
+
+    private final long offset;
+    private final int compressedLength;
+    private final int rawLength;
+    private final int count;
+    private final long firstId;
+    private final long lastId;
+    private final long firstEpochSecond;
+    private final long lastEpochSecond;
+
+    SegmentBlock(long offset, int compressedLength, int rawLength, int count,
+                 long firstId, long lastId, long firstEpochSecond, long lastEpochSecond) {
+        this.offset = offset;
+        this.compressedLength = compressedLength;
+        this.rawLength = rawLength;
+        this.count = count;
+        this.firstId = firstId;
+        this.lastId = lastId;
+        this.firstEpochSecond = firstEpochSecond;
+        this.lastEpochSecond = lastEpochSecond;
+    }
+
+    /** Offset of the block header within its segment file. */
+    public long getOffset() {
+        return offset;
+    }
+
+    /** Offset of the first byte following this block. */
+    public long getEnd() {
+        return offset + HEADER_SIZE + compressedLength;
+    }
+
+    public int getCompressedLength() {
+        return compressedLength;
+    }
+
+    public int getRawLength() {
+        return rawLength;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getFirstId() {
+        return firstId;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public long getFirstEpochSecond() {
+        return firstEpochSecond;
+    }
+
+    public long getLastEpochSecond() {
+        return lastEpochSecond;
+    }
+
+    public boolean containsId(long id) {
+        return id >= firstId && id <= lastId;
+    }
+}
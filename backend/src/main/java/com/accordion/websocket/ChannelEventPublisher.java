@@ -0,0 +1,46 @@
+package com.accordion.websocket;
+
+import com.accordion.dto.ChannelSummary;
+import com.accordion.model.Channel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Publishes changes to the channel list on {@value #CHANNELS_TOPIC} as
+ * {@code {"type":"created"|"updated"|"deleted","channel":{id,name,description}}}.
+ *
+ * Clients load the list once from {@code GET /api/channels} and apply these events on top,
+ * instead of fetching the list again whenever it might have changed. Only changes to the
+ * listed fields are published; settings such as retention are not part of the list.
+ */
+@Component
+public class ChannelEventPublisher {
+
+    public static final String CHANNELS_TOPIC = "/topic/channels";
+
+    // Lazy: comes from the broker configuration, like in MessageBroadcaster
+    @Autowired
+    @Lazy
+    private SimpMessagingTemplate messagingTemplate;
+
+    public void created(Channel channel) {
+        publish("created", channel);
+    }
+
+    public void updated(Channel channel) {
+        publish("updated", channel);
+    }
+
+    public void deleted(Channel channel) {
+        publish("deleted", channel);
+    }
+
+    private void publish(String type, Channel channel) {
+        messagingTemplate.convertAndSend(CHANNELS_TOPIC, Map.of("type", type,
+                "channel", new ChannelSummary(channel.getId(), channel.getName(), channel.getDescription())));
+    }
+}
@@ -0,0 +1,49 @@
+package com.accordion.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.List;
+
+/**
+ * WebSocket handshake handler that decides whether permessage-deflate may be negotiated.
+ *
+ * The servlet container implements the compression itself and accepts it whenever a client
+ * offers it, which browsers always do. {@code app.websocket.compression.enabled=false}
+ * removes the offer before the container sees it. Each handshake is counted by whether it
+ * ended up compressed, so the share of compressed sessions shows in the metrics endpoint.
+ */
+@Component
+public class CompressionHandshakeHandler extends DefaultHandshakeHandler {
+
+    static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+    static final String METRIC_HANDSHAKES = "accordion.websocket.handshakes";
+
+    @Value("${app.websocket.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                                                                 List<WebSocketExtension> requestedExtensions,
+                                                                 List<WebSocketExtension> supportedExtensions) {
+        List<WebSocketExtension> accepted = super.filterRequestedExtensions(request, requestedExtensions,
+                supportedExtensions);
+        if (!compressionEnabled) {
+            accepted = accepted.stream()
+                    .filter(extension -> !PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName()))
+                    .toList();
+        }
+        boolean compressed = accepted.stream()
+                .anyMatch(extension -> PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName()));
+        meterRegistry.counter(METRIC_HANDSHAKES, "compression", String.valueOf(compressed)).increment();
+        return accepted;
+    }
+}
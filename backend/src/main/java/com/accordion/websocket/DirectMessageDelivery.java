@@ -0,0 +1,93 @@
+package com.accordion.websocket;
+
+import com.accordion.model.DirectMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpSubscription;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Delivers direct messages straight to the sessions of the two users involved.
+ *
+ * Clients subscribe to {@code /user/queue/dm}. Instead of resolving that into a per-session
+ * broker destination and letting the broker match subscriptions, the user's sessions and
+ * their DM subscriptions are looked up by name in the {@link SimpUserRegistry} and each gets
+ * a MESSAGE frame on the outbound channel, the same way subscription replays are sent. The
+ * message is serialized once, and the broker that fans out channel topics never sees it.
+ */
+@Component
+public class DirectMessageDelivery {
+
+    public static final String DM_DESTINATION = "/user/queue/dm";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Lazy: both come from the broker configuration, like in SubscriptionReplayInterceptor
+    @Autowired
+    @Lazy
+    private SimpUserRegistry simpUserRegistry;
+
+    @Autowired
+    @Lazy
+    @Qualifier("clientOutboundChannel")
+    private MessageChannel clientOutboundChannel;
+
+    /**
+     * Sends the message to every DM subscription of its recipient, and of its sender so their
+     * other sessions stay in sync.
+     *
+     * @return the number of recipient sessions reached; 0 means the recipient is offline
+     */
+    public int deliver(DirectMessage message) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize direct message", e);
+        }
+        int delivered = sendToUser(message.getRecipient(), payload);
+        if (!message.getSender().equals(message.getRecipient())) {
+            sendToUser(message.getSender(), payload);
+        }
+        return delivered;
+    }
+
+    private int sendToUser(String username, byte[] payload) {
+        SimpUser user = simpUserRegistry.getUser(username);
+        if (user == null) {
+            return 0;
+        }
+        int sent = 0;
+        for (SimpSession session : user.getSessions()) {
+            for (SimpSubscription subscription : session.getSubscriptions()) {
+                if (DM_DESTINATION.equals(subscription.getDestination())) {
+                    send(session.getId(), subscription.getId(), payload);
+                    sent++;
+                }
+            }
+        }
+        return sent;
+    }
+
+    private void send(String sessionId, String subscriptionId, byte[] payload) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(DM_DESTINATION);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        clientOutboundChannel.send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+}
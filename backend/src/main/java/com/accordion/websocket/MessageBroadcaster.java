@@ -0,0 +1,108 @@
+package com.accordion.websocket;
+
+import com.accordion.model.Channel;
+import com.accordion.model.ChatMessage;
+import com.accordion.repository.ChannelRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Publishes saved chat messages to their STOMP topic.
+ *
+ * By default every message goes out as its own frame, as it is sent. A channel with a
+ * broadcast window instead collects the messages saved within that many milliseconds of the
+ * first one and publishes them together as one frame whose body is a JSON array, oldest
+ * first, so busy channels cost subscribers fewer frames. A window that ends up holding a
+ * single message sends it as a plain object, exactly like an unbatched channel.
+ */
+@Component
+public class MessageBroadcaster {
+
+    // Lazy, like the scheduler: both come from the broker configuration, which depends on
+    // services that use this class
+    @Autowired
+    @Lazy
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ChannelRepository channelRepository;
+
+    @Autowired
+    @Lazy
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    // Window per channel id, 0 when disabled; read from the channel on first use
+    private final ConcurrentMap<Long, Integer> windows = new ConcurrentHashMap<>();
+
+    // Messages waiting for their window to close, by destination
+    private final ConcurrentMap<String, List<ChatMessage>> pending = new ConcurrentHashMap<>();
+
+    public void broadcast(Long channelId, String destination, ChatMessage message) {
+        broadcast(channelId, destination, List.of(message));
+    }
+
+    public void broadcast(Long channelId, String destination, List<ChatMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        int windowMs = getWindow(channelId);
+        if (windowMs <= 0) {
+            send(destination, messages);
+            return;
+        }
+        pending.compute(destination, (key, queued) -> {
+            if (queued == null) {
+                queued = new ArrayList<>();
+                messageBrokerTaskScheduler.schedule(() -> flush(key),
+                        Instant.now().plus(Duration.ofMillis(windowMs)));
+            }
+            queued.addAll(messages);
+            return queued;
+        });
+    }
+
+    /**
+     * Updates a channel's window after its settings change.
+     *
+     * @param windowMs milliseconds to collect messages for, or null/0 to send each immediately
+     */
+    public void setWindow(Long channelId, Integer windowMs) {
+        windows.put(channelId, windowMs == null ? 0 : windowMs);
+    }
+
+    int getWindow(Long channelId) {
+        if (channelId == null) {
+            return 0;
+        }
+        return windows.computeIfAbsent(channelId, id -> channelRepository.findById(id)
+                .map(Channel::getBroadcastWindowMs)
+                .orElse(0));
+    }
+
+    void flush(String destination) {
+        List<ChatMessage> messages = pending.remove(destination);
+        if (messages == null) {
+            return;
+        }
+        // Concurrent senders may have queued out of order; ids follow save order
+        messages.sort(Comparator.comparing(ChatMessage::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        send(destination, messages);
+    }
+
+    private void send(String destination, List<ChatMessage> messages) {
+        messagingTemplate.convertAndSend(destination, messages.size() == 1 ? messages.get(0) : messages);
+    }
+}
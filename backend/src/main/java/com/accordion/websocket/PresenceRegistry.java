@@ -0,0 +1,269 @@
+package com.accordion.websocket;
+
+import com.accordion.service.ChannelService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tracks which users are online in which channel, from the STOMP session lifecycle.
+ *
+ * A user is online in a channel while at least one of their sessions is subscribed to its
+ * message topic ({@code /topic/messages} counts as the default channel). Members are counted
+ * per channel, so a user with two tabs open stays online until both have left.
+ *
+ * Changes are published to {@code /topic/presence/{channelId}} as deltas,
+ * {@code {"channelId":1,"joined":[...],"left":[...]}}, at most once per broadcast interval
+ * per channel; a user who leaves and comes back within one interval is not reported at all.
+ * Clients load the full list once from {@code GET /api/channels/{id}/presence} and apply the
+ * deltas on top.
+ *
+ * All state lives in concurrent maps keyed by session and by channel. Membership changes
+ * take only their channel's lock, so sessions in different channels never contend, and
+ * snapshots are read without locking.
+ */
+@Component
+public class PresenceRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresenceRegistry.class);
+
+    static final String PRESENCE_TOPIC_PREFIX = "/topic/presence/";
+
+    private static final Pattern CHANNEL_TOPIC = Pattern.compile("^/topic/messages(?:/(\\d+))?$");
+
+    @Value("${app.presence.broadcast-interval-ms:1000}")
+    private long broadcastIntervalMs;
+
+    @Autowired
+    private ChannelService channelService;
+
+    // Lazy: both come from the broker configuration, like in MessageBroadcaster
+    @Autowired
+    @Lazy
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    @Lazy
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    private final ConcurrentMap<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, ChannelPresence> channels = new ConcurrentHashMap<>();
+
+    // Resolved on the first subscription to the legacy topic
+    private volatile Long defaultChannelId;
+
+    private static final class SessionState {
+        volatile String username;
+        // Channel id by subscription id
+        final ConcurrentMap<String, Long> subscriptions = new ConcurrentHashMap<>();
+    }
+
+    private static final class ChannelPresence {
+        // Subscribed sessions per online user; written under this object's lock
+        final ConcurrentMap<String, Integer> members = new ConcurrentHashMap<>();
+        // Unpublished changes, true for joined; guarded by this object
+        final Map<String, Boolean> changes = new LinkedHashMap<>();
+        boolean flushScheduled;
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        SessionState session = sessions.computeIfAbsent(sessionId(event), id -> new SessionState());
+        Principal user = event.getUser();
+        if (user != null) {
+            session.username = user.getName();
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Long channelId = channelIdOf(accessor.getDestination());
+        String subscriptionId = accessor.getSubscriptionId();
+        if (channelId == null || subscriptionId == null) {
+            return;
+        }
+        SessionState session = sessions.computeIfAbsent(sessionId(event), id -> new SessionState());
+        // The authenticated user is attached after CONNECT is published, so it may only show up here
+        if (event.getUser() != null) {
+            session.username = event.getUser().getName();
+        }
+        if (session.username == null) {
+            return;
+        }
+        if (session.subscriptions.putIfAbsent(subscriptionId, channelId) == null) {
+            join(channelId, session.username);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SessionState session = sessions.get(sessionId(event));
+        String subscriptionId = StompHeaderAccessor.wrap(event.getMessage()).getSubscriptionId();
+        if (session == null || subscriptionId == null) {
+            return;
+        }
+        Long channelId = session.subscriptions.remove(subscriptionId);
+        if (channelId != null) {
+            leave(channelId, session.username);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        // Spring may publish the disconnect twice (DISCONNECT frame, then socket close); only the first finds the session
+        SessionState session = sessions.remove(event.getSessionId());
+        if (session == null) {
+            return;
+        }
+        for (Long channelId : session.subscriptions.values()) {
+            leave(channelId, session.username);
+        }
+    }
+
+    /**
+     * Returns the users currently online in a channel, sorted by name, as a list the caller
+     * may modify.
+     */
+    public List<String> getOnlineUsers(Long channelId) {
+        ChannelPresence presence = channels.get(channelId);
+        List<String> online = presence == null ? new ArrayList<>() : new ArrayList<>(presence.members.keySet());
+        online.sort(null);
+        return online;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    void join(Long channelId, String username) {
+        ChannelPresence presence = channels.computeIfAbsent(channelId, id -> new ChannelPresence());
+        boolean schedule;
+        synchronized (presence) {
+            if (presence.members.merge(username, 1, Integer::sum) > 1) {
+                return;
+            }
+            schedule = recordChange(presence, username, true);
+        }
+        if (schedule) {
+            scheduleFlush(channelId);
+        }
+    }
+
+    void leave(Long channelId, String username) {
+        ChannelPresence presence = channels.get(channelId);
+        if (presence == null || username == null) {
+            return;
+        }
+        boolean schedule;
+        synchronized (presence) {
+            Integer count = presence.members.get(username);
+            if (count == null) {
+                return;
+            }
+            if (count > 1) {
+                presence.members.put(username, count - 1);
+                return;
+            }
+            presence.members.remove(username);
+            schedule = recordChange(presence, username, false);
+        }
+        if (schedule) {
+            scheduleFlush(channelId);
+        }
+    }
+
+    // Returns true if a flush needs scheduling; the caller holds the channel's lock
+    private static boolean recordChange(ChannelPresence presence, String username, boolean joined) {
+        // An opposite change still waiting cancels out: the published state is already correct
+        Boolean previous = presence.changes.remove(username);
+        if (previous == null || previous == joined) {
+            presence.changes.put(username, joined);
+        }
+        if (presence.changes.isEmpty() || presence.flushScheduled) {
+            return false;
+        }
+        presence.flushScheduled = true;
+        return true;
+    }
+
+    private void scheduleFlush(Long channelId) {
+        messageBrokerTaskScheduler.schedule(() -> flush(channelId),
+                Instant.now().plus(Duration.ofMillis(broadcastIntervalMs)));
+    }
+
+    void flush(Long channelId) {
+        ChannelPresence presence = channels.get(channelId);
+        if (presence == null) {
+            return;
+        }
+        List<String> joined = new ArrayList<>();
+        List<String> left = new ArrayList<>();
+        synchronized (presence) {
+            presence.flushScheduled = false;
+            presence.changes.forEach((username, isJoin) -> (isJoin ? joined : left).add(username));
+            presence.changes.clear();
+        }
+        if (joined.isEmpty() && left.isEmpty()) {
+            return;
+        }
+        messagingTemplate.convertAndSend(PRESENCE_TOPIC_PREFIX + channelId,
+                Map.of("channelId", channelId, "joined", joined, "left", left));
+    }
+
+    private Long channelIdOf(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        Matcher matcher = CHANNEL_TOPIC.matcher(destination);
+        if (!matcher.matches()) {
+            return null;
+        }
+        if (matcher.group(1) != null) {
+            try {
+                return Long.valueOf(matcher.group(1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        Long id = defaultChannelId;
+        if (id == null) {
+            try {
+                id = defaultChannelId = channelService.getOrCreateDefaultChannel().getId();
+            } catch (RuntimeException e) {
+                logger.warn("Could not resolve the default channel for presence: {}", e.getMessage());
+            }
+        }
+        return id;
+    }
+
+    private static String sessionId(AbstractSubProtocolEvent event) {
+        return StompHeaderAccessor.wrap(event.getMessage()).getSessionId();
+    }
+}
@@ -0,0 +1,160 @@
+package com.accordion.websocket;
+
+import com.accordion.model.ChatMessage;
+import com.accordion.service.ChannelService;
+import com.accordion.service.ChatService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays recent history to a client as part of its SUBSCRIBE.
+ *
+ * A SUBSCRIBE to {@code /topic/messages} or {@code /topic/messages/{channelId}} carrying a
+ * {@code limit} and/or {@code since} (last seen message id) header is answered with one
+ * MESSAGE frame whose body is a JSON array of messages, oldest first, marked with an
+ * {@code x-replay} header. The replay is sent after the broker has registered the
+ * subscription, so every message saved later reaches the client live; one saved just before
+ * may arrive both ways, so clients drop messages whose id they have already seen.
+ *
+ * A reconnecting client sends {@code resume-from-seq} with the last per-channel sequence
+ * number it saw and gets only the messages after it. If that gap cannot be filled exactly
+ * (too large, partly purged, or from before a server reset) the client instead receives the
+ * usual recent window with an {@code x-replay-reset} header and should redraw from scratch.
+ *
+ * Clients hold back live messages until the replay arrives, so a replay is sent even when
+ * the headers are invalid or history cannot be read: an empty one marked
+ * {@code x-replay-error}, after which the client keeps what it already shows.
+ */
+@Component
+public class SubscriptionReplayInterceptor implements ExecutorChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionReplayInterceptor.class);
+
+    static final String SINCE_HEADER = "since";
+    static final String LIMIT_HEADER = "limit";
+    static final String RESUME_HEADER = "resume-from-seq";
+    static final String REPLAY_HEADER = "x-replay";
+    static final String RESET_HEADER = "x-replay-reset";
+    static final String ERROR_HEADER = "x-replay-error";
+
+    private static final byte[] EMPTY_REPLAY = "[]".getBytes(StandardCharsets.UTF_8);
+
+    private static final Pattern CHANNEL_TOPIC = Pattern.compile("^/topic/messages(?:/(\\d+))?$");
+
+    @Value("${app.replay.max-limit:100}")
+    private int maxLimit;
+
+    @Value("${app.replay.max-resume:500}")
+    private int maxResume;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private ChannelService channelService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Lazy: the outbound channel is defined by the same broker configuration this interceptor is registered with
+    @Autowired
+    @Lazy
+    @Qualifier("clientOutboundChannel")
+    private MessageChannel clientOutboundChannel;
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex != null || !(handler instanceof AbstractBrokerMessageHandler)) {
+            return;
+        }
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        if (!StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            return;
+        }
+        String since = accessor.getFirstNativeHeader(SINCE_HEADER);
+        String limit = accessor.getFirstNativeHeader(LIMIT_HEADER);
+        String resume = accessor.getFirstNativeHeader(RESUME_HEADER);
+        String destination = accessor.getDestination();
+        if ((since == null && limit == null && resume == null) || destination == null) {
+            return;
+        }
+        Matcher matcher = CHANNEL_TOPIC.matcher(destination);
+        if (!matcher.matches()) {
+            return;
+        }
+
+        try {
+            Long channelId = matcher.group(1) != null
+                    ? Long.valueOf(matcher.group(1))
+                    : channelService.getOrCreateDefaultChannel().getId();
+            int count = limit == null ? maxLimit : Math.max(1, Math.min(Integer.parseInt(limit), maxLimit));
+
+            if (resume != null) {
+                long afterSeq = Math.max(0, Long.parseLong(resume));
+                List<ChatMessage> gap = afterSeq > chatService.getLatestSeq(channelId)
+                        ? null
+                        : chatService.getMessagesAfterSeq(channelId, afterSeq, maxResume);
+                if (gap != null && (gap.isEmpty() || seqOf(gap.get(0)) == afterSeq + 1)) {
+                    sendReplay(accessor, destination, gap, false);
+                    return;
+                }
+                sendReplay(accessor, destination, chatService.getMessagesAfter(channelId, 0, count), true);
+                return;
+            }
+
+            long afterId = since == null ? 0 : Math.max(0, Long.parseLong(since));
+            List<ChatMessage> history = chatService.getMessagesAfter(channelId, afterId, count);
+            sendReplay(accessor, destination, history, false);
+        } catch (NumberFormatException e) {
+            logger.debug("Invalid replay headers on {}: {}", destination, e.getMessage());
+            send(accessor, destination, EMPTY_REPLAY, ERROR_HEADER);
+        } catch (Exception e) {
+            logger.error("Failed to replay history for {}: {}", destination, e.getMessage(), e);
+            send(accessor, destination, EMPTY_REPLAY, ERROR_HEADER);
+        }
+    }
+
+    private static long seqOf(ChatMessage message) {
+        return message.getSeq() == null ? 0 : message.getSeq();
+    }
+
+    private void sendReplay(StompHeaderAccessor subscribe, String destination, List<ChatMessage> history,
+                            boolean reset) throws JsonProcessingException {
+        send(subscribe, destination, objectMapper.writeValueAsBytes(history), reset ? RESET_HEADER : null);
+    }
+
+    private void send(StompHeaderAccessor subscribe, String destination, byte[] payload, String flagHeader) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSessionId(subscribe.getSessionId());
+        accessor.setSubscriptionId(subscribe.getSubscriptionId());
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(REPLAY_HEADER, "true");
+        if (flagHeader != null) {
+            accessor.setNativeHeader(flagHeader, "true");
+        }
+        accessor.setLeaveMutable(true);
+        clientOutboundChannel.send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+}
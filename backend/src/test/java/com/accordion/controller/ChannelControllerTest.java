@@ -1,7 +1,10 @@
 package com.accordion.controller;
 
+import com.accordion.dto.ChannelSummary;
 import com.accordion.model.Channel;
 import com.accordion.service.ChannelService;
+import com.accordion.service.MessageTransferService;
+import com.accordion.websocket.PresenceRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,15 +12,23 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -40,21 +51,63 @@ class ChannelControllerTest {
     @MockBean
     private ChannelService channelService;
 
+    @MockBean
+    private MessageTransferService messageTransferService;
+
+    @MockBean
+    private PresenceRegistry presenceRegistry;
+
     @Test
     void testGetAllChannels() throws Exception {
-        Channel channel1 = new Channel("general", "General discussion", "System");
-        Channel channel2 = new Channel("random", "Random stuff", "Admin");
-
-        when(channelService.getAllChannels()).thenReturn(Arrays.asList(channel1, channel2));
+        when(channelService.getChannelListVersion()).thenReturn("abc-2");
+        when(channelService.getChannelSummaries(null, 100)).thenReturn(Arrays.asList(
+                new ChannelSummary(1L, "general", "General discussion"),
+                new ChannelSummary(2L, "random", "Random stuff")));
 
         mockMvc.perform(get("/api/channels"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc-2\""))
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(2))
                 .andExpect(jsonPath("$[0].name").value("general"))
-                .andExpect(jsonPath("$[1].name").value("random"));
+                .andExpect(jsonPath("$[1].name").value("random"))
+                .andExpect(jsonPath("$[0].retentionMaxAgeDays").doesNotExist());
 
-        verify(channelService).getAllChannels();
+        verify(channelService).getChannelSummaries(null, 100);
+    }
+
+    @Test
+    void testGetAllChannelsPagesAndCapsLimit() throws Exception {
+        when(channelService.getChannelListVersion()).thenReturn("abc-2");
+        when(channelService.getChannelSummaries(2L, 500)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/channels").param("afterId", "2").param("limit", "100000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+
+        verify(channelService).getChannelSummaries(2L, 500);
+    }
+
+    @Test
+    void testGetAllChannelsNotModified() throws Exception {
+        when(channelService.getChannelListVersion()).thenReturn("abc-2");
+
+        mockMvc.perform(get("/api/channels").header("If-None-Match", "\"abc-1\", W/\"abc-2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc-2\""))
+                .andExpect(content().string(""));
+
+        verify(channelService, never()).getChannelSummaries(any(), anyInt());
+    }
+
+    @Test
+    void testGetAllChannelsStaleETag() throws Exception {
+        when(channelService.getChannelListVersion()).thenReturn("abc-3");
+        when(channelService.getChannelSummaries(null, 100)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/channels").header("If-None-Match", "\"abc-2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc-3\""));
     }
 
     @Test
@@ -81,6 +134,38 @@ class ChannelControllerTest {
         verify(channelService).getChannelById(999L);
     }
 
+    @Test
+    void testGetPresenceListsUsers() throws Exception {
+        when(channelService.getChannelById(1L)).thenReturn(Optional.of(new Channel("general", null, "System")));
+        when(presenceRegistry.getOnlineUsers(1L)).thenReturn(List.of("alice", "carol"));
+
+        mockMvc.perform(get("/api/channels/1/presence"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.channelId").value(1))
+                .andExpect(jsonPath("$.online[0]").value("alice"))
+                .andExpect(jsonPath("$.online[1]").value("carol"));
+    }
+
+    @Test
+    void testGetPresenceEmptyChannel() throws Exception {
+        when(channelService.getChannelById(1L)).thenReturn(Optional.of(new Channel("general", null, "System")));
+        when(presenceRegistry.getOnlineUsers(1L)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/channels/1/presence"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.online").isEmpty());
+    }
+
+    @Test
+    void testGetPresenceChannelNotFound() throws Exception {
+        when(channelService.getChannelById(999L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/channels/999/presence"))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(presenceRegistry);
+    }
+
     @Test
     void testCreateChannel() throws Exception {
         Channel channel = new Channel("tech-talk", "Tech discussions", "TestUser");
@@ -185,4 +270,230 @@ class ChannelControllerTest {
 
         verify(channelService, never()).createChannel(any(), any(), any());
     }
+
+    @Test
+    void testUpdateChannelRetention() throws Exception {
+        Channel channel = new Channel("busy", "Busy channel", "alice");
+        channel.setId(5L);
+        Channel updated = new Channel("busy", "Busy channel", "alice");
+        updated.setRetentionMaxAgeDays(30);
+        when(channelService.getChannelById(5L)).thenReturn(Optional.of(channel));
+        when(channelService.updateRetention(5L, 30, null)).thenReturn(updated);
+
+        mockMvc.perform(patch("/api/channels/5")
+                        .principal(() -> "alice")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"retentionMaxAgeDays\": 30}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.retentionMaxAgeDays").value(30));
+
+        verify(channelService).updateRetention(5L, 30, null);
+    }
+
+    @Test
+    void testUpdateChannelRetentionRejectsNonCreator() throws Exception {
+        Channel channel = new Channel("busy", "Busy channel", "alice");
+        when(channelService.getChannelById(5L)).thenReturn(Optional.of(channel));
+
+        mockMvc.perform(patch("/api/channels/5")
+                        .principal(() -> "mallory")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"retentionMaxMessages\": 10}"))
+                .andExpect(status().isForbidden());
+
+        verify(channelService, never()).updateRetention(any(), any(), any());
+    }
+
+    @Test
+    void testUpdateChannelRetentionRejectsInvalidValue() throws Exception {
+        Channel channel = new Channel("busy", "Busy channel", "alice");
+        when(channelService.getChannelById(5L)).thenReturn(Optional.of(channel));
+
+        mockMvc.perform(patch("/api/channels/5")
+                        .principal(() -> "alice")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"retentionMaxMessages\": -1}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+
+        verify(channelService, never()).updateRetention(any(), any(), any());
+    }
+
+    @Test
+    void testUpdateChannelBroadcastWindow() throws Exception {
+        Channel channel = new Channel("busy", "Busy channel", "alice");
+        channel.setId(5L);
+        Channel updated = new Channel("busy", "Busy channel", "alice");
+        updated.setBroadcastWindowMs(10);
+        when(channelService.getChannelById(5L)).thenReturn(Optional.of(channel));
+        when(channelService.updateBroadcastWindow(5L, 10)).thenReturn(updated);
+
+        mockMvc.perform(patch("/api/channels/5")
+                        .principal(() -> "alice")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"broadcastWindowMs\": 10}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.broadcastWindowMs").value(10));
+
+        verify(channelService).updateBroadcastWindow(5L, 10);
+        verify(channelService, never()).updateRetention(any(), any(), any());
+    }
+
+    @Test
+    void testUpdateChannelBroadcastWindowRejectsTooLong() throws Exception {
+        Channel channel = new Channel("busy", "Busy channel", "alice");
+        when(channelService.getChannelById(5L)).thenReturn(Optional.of(channel));
+
+        mockMvc.perform(patch("/api/channels/5")
+                        .principal(() -> "alice")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"broadcastWindowMs\": 5000}"))
+                .andExpect(status().isBadRequest());
+
+        verify(channelService, never()).updateBroadcastWindow(any(), any());
+    }
+
+    @Test
+    void testUpdateChannelDescription() throws Exception {
+        Channel channel = new Channel("busy", "Busy channel", "alice");
+        Channel updated = new Channel("busy", "Quiet now", "alice");
+        when(channelService.getChannelById(5L)).thenReturn(Optional.of(channel));
+        when(channelService.updateDescription(5L, "Quiet now")).thenReturn(updated);
+
+        mockMvc.perform(patch("/api/channels/5")
+                        .principal(() -> "alice")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\": \"Quiet now\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("Quiet now"));
+
+        verify(channelService).updateDescription(5L, "Quiet now");
+        verify(channelService, never()).updateRetention(any(), any(), any());
+    }
+
+    @Test
+    void testUpdateChannelDescriptionRejectsTooLong() throws Exception {
+        Channel channel = new Channel("busy", "Busy channel", "alice");
+        when(channelService.getChannelById(5L)).thenReturn(Optional.of(channel));
+
+        mockMvc.perform(patch("/api/channels/5")
+                        .principal(() -> "alice")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("description", "a".repeat(501)))))
+                .andExpect(status().isBadRequest());
+
+        verify(channelService, never()).updateDescription(any(), any());
+    }
+
+    @Test
+    void testDeleteChannel() throws Exception {
+        Channel channel = new Channel("busy", "Busy channel", "alice");
+        when(channelService.getChannelById(5L)).thenReturn(Optional.of(channel));
+
+        mockMvc.perform(delete("/api/channels/5").principal(() -> "alice"))
+                .andExpect(status().isNoContent());
+
+        verify(channelService).deleteChannel(5L);
+    }
+
+    @Test
+    void testDeleteChannelRejectsNonCreator() throws Exception {
+        Channel channel = new Channel("busy", "Busy channel", "alice");
+        when(channelService.getChannelById(5L)).thenReturn(Optional.of(channel));
+
+        mockMvc.perform(delete("/api/channels/5").principal(() -> "mallory"))
+                .andExpect(status().isForbidden());
+
+        verify(channelService, never()).deleteChannel(any());
+    }
+
+    @Test
+    void testDeleteDefaultChannelIsRejected() throws Exception {
+        Channel channel = new Channel("general", "General discussion", "System");
+        when(channelService.getChannelById(1L)).thenReturn(Optional.of(channel));
+        doThrow(new IllegalArgumentException("The default channel cannot be deleted"))
+                .when(channelService).deleteChannel(1L);
+
+        mockMvc.perform(delete("/api/channels/1").principal(() -> "System"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("The default channel cannot be deleted"));
+    }
+
+    @Test
+    void testDeleteChannelNotFound() throws Exception {
+        when(channelService.getChannelById(99L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(delete("/api/channels/99").principal(() -> "alice"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testExportChannel() throws Exception {
+        Channel channel = new Channel("busy", "Busy channel", "alice");
+        when(channelService.getChannelById(5L)).thenReturn(Optional.of(channel));
+        when(messageTransferService.exportChannel(eq(5L), any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        });
+
+        mockMvc.perform(get("/api/channels/5/export"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", startsWith("application/x-ndjson")))
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"=?UTF-8?Q?busy.ndjson?=\"; filename*=UTF-8''busy.ndjson"))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    void testExportChannelEncodesTheFileName() throws Exception {
+        Channel channel = new Channel("caf\u00e9 \"news\"", "Quoted", "alice");
+        when(channelService.getChannelById(5L)).thenReturn(Optional.of(channel));
+
+        String disposition = mockMvc.perform(get("/api/channels/5/export"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Content-Disposition");
+
+        assertEquals("caf\u00e9 \"news\".ndjson", ContentDisposition.parse(disposition).getFilename());
+    }
+
+    @Test
+    void testExportChannelNotFound() throws Exception {
+        when(channelService.getChannelById(9L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/channels/9/export"))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(messageTransferService);
+    }
+
+    @Test
+    void testImportChannel() throws Exception {
+        Channel channel = new Channel("busy", "Busy channel", "alice");
+        when(channelService.getChannelById(5L)).thenReturn(Optional.of(channel));
+        when(messageTransferService.importChannel(eq(5L), any(InputStream.class)))
+                .thenReturn(new MessageTransferService.ImportResult(2, 1));
+
+        mockMvc.perform(post("/api/channels/5/import")
+                        .principal(() -> "alice")
+                        .contentType("application/x-ndjson")
+                        .content("{\"username\":\"bob\",\"content\":\"hi\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.skipped").value(1));
+    }
+
+    @Test
+    void testImportChannelRejectsNonCreator() throws Exception {
+        Channel channel = new Channel("busy", "Busy channel", "alice");
+        when(channelService.getChannelById(5L)).thenReturn(Optional.of(channel));
+
+        mockMvc.perform(post("/api/channels/5/import")
+                        .principal(() -> "mallory")
+                        .contentType("application/x-ndjson")
+                        .content("{}"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(messageTransferService);
+    }
 }
@@ -0,0 +1,111 @@
+package com.accordion.controller;
+
+import com.accordion.model.Channel;
+import com.accordion.model.ChatMessage;
+import com.accordion.repository.ChatMessageRepository;
+import com.accordion.service.ChannelService;
+import com.accordion.websocket.MessageBroadcaster;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class ChatBatchSendTest {
+
+    @Autowired
+    private ChatController chatController;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @MockBean
+    private ChannelService channelService;
+
+    @MockBean
+    private MessageBroadcaster messageBroadcaster;
+
+    private void mockChannel(Long channelId) {
+        Channel channel = new Channel();
+        channel.setId(channelId);
+        channel.setName("bridge");
+        when(channelService.getChannelById(channelId)).thenReturn(Optional.of(channel));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSendBatchToChannel_SavesAllWithConsecutiveSeqs() {
+        Long channelId = 901L;
+        mockChannel(channelId);
+        List<Map<String, String>> payload = List.of(
+                Map.of("username", "relaybot", "content", " first "),
+                Map.of("username", "relaybot", "content", "second"),
+                Map.of("username", "otheruser", "content", "third"));
+
+        chatController.sendBatchToChannel(channelId, payload);
+
+        ArgumentCaptor<List<ChatMessage>> broadcast = ArgumentCaptor.forClass(List.class);
+        verify(messageBroadcaster).broadcast(eq(channelId), eq("/topic/messages/901"), broadcast.capture());
+        List<ChatMessage> result = broadcast.getValue();
+
+        assertEquals(3, result.size());
+        assertEquals("first", result.get(0).getContent());
+        assertEquals("otheruser", result.get(2).getUsername());
+        for (int i = 0; i < result.size(); i++) {
+            assertNotNull(result.get(i).getId());
+            assertEquals(channelId, result.get(i).getChannelId());
+            assertEquals(i + 1L, result.get(i).getSeq());
+        }
+        assertEquals(3, chatMessageRepository.countByChannelId(channelId));
+    }
+
+    @Test
+    public void testSendBatchToChannel_RejectsWholeBatchIfOneMessageIsInvalid() {
+        Long channelId = 902L;
+        mockChannel(channelId);
+        List<Map<String, String>> payload = List.of(
+                Map.of("username", "relaybot", "content", "fine"),
+                Map.of("username", "relaybot", "content", "   "));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> chatController.sendBatchToChannel(channelId, payload));
+
+        assertEquals("Invalid message content in message 1", e.getMessage());
+        assertEquals(0, chatMessageRepository.countByChannelId(channelId));
+        verify(messageBroadcaster, never()).broadcast(anyLong(), anyString(), anyList());
+    }
+
+    @Test
+    public void testSendBatchToChannel_RejectsOversizedBatch() {
+        Long channelId = 903L;
+        mockChannel(channelId);
+        List<Map<String, String>> payload = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            payload.add(Map.of("username", "relaybot", "content", "message " + i));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> chatController.sendBatchToChannel(channelId, payload));
+        assertThrows(IllegalArgumentException.class, () -> chatController.sendBatchToChannel(channelId, List.of()));
+    }
+
+    @Test
+    public void testSendBatchToChannel_UnknownChannel() {
+        when(channelService.getChannelById(904L)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> chatController.sendBatchToChannel(904L,
+                List.of(Map.of("username", "relaybot", "content", "hello"))));
+    }
+}
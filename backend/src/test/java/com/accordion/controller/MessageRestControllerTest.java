@@ -2,6 +2,7 @@ package com.accordion.controller;
 
 import com.accordion.model.ChatMessage;
 import com.accordion.service.ChatService;
+import com.accordion.service.MessageSearchService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,10 +13,15 @@ import org.springframework.context.annotation.FilterType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -37,6 +43,9 @@ class MessageRestControllerTest {
     @MockBean
     private ChatService chatService;
 
+    @MockBean
+    private MessageSearchService messageSearchService;
+
     private List<ChatMessage> testMessages;
 
     @BeforeEach
@@ -117,4 +126,67 @@ class MessageRestControllerTest {
 
         verify(chatService, times(1)).getRecentMessages(50);
     }
+
+    @Test
+    void testGetMessages_AfterId() throws Exception {
+        when(chatService.getMessagesAfter(3L, 42L, 50)).thenReturn(testMessages);
+
+        mockMvc.perform(get("/api/messages")
+                .param("channelId", "3")
+                .param("afterId", "42"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+
+        verify(chatService, never()).getRecentMessagesByChannel(anyLong(), anyInt());
+    }
+
+    @Test
+    void testGetMessages_AfterIdWithoutChannel() throws Exception {
+        mockMvc.perform(get("/api/messages")
+                .param("afterId", "42"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("afterId requires channelId"));
+
+        verifyNoInteractions(chatService);
+    }
+
+    @Test
+    void testSearchMessages() throws Exception {
+        when(messageSearchService.search(eq("hello"), eq(3L), eq("user1"), isNull(), isNull(), eq(20)))
+                .thenReturn(testMessages.subList(0, 1));
+
+        mockMvc.perform(get("/api/messages/search")
+                .param("q", "hello")
+                .param("channelId", "3")
+                .param("username", "user1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].content").value("Hello"));
+    }
+
+    @Test
+    void testSearchMessages_CapsLimitAndParsesTimeRange() throws Exception {
+        when(messageSearchService.search(eq("x"), isNull(), isNull(), any(), any(), eq(100)))
+                .thenReturn(Arrays.asList());
+
+        mockMvc.perform(get("/api/messages/search")
+                .param("q", "x")
+                .param("from", "2024-01-01T00:00:00")
+                .param("to", "2024-01-31T23:59:59")
+                .param("limit", "5000"))
+                .andExpect(status().isOk());
+
+        verify(messageSearchService).search(eq("x"), isNull(), isNull(),
+                eq(LocalDateTime.of(2024, 1, 1, 0, 0)),
+                eq(LocalDateTime.of(2024, 1, 31, 23, 59, 59)), eq(100));
+    }
+
+    @Test
+    void testSearchMessages_BlankQuery() throws Exception {
+        mockMvc.perform(get("/api/messages/search").param("q", "   "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+
+        verifyNoInteractions(messageSearchService);
+    }
 }
@@ -4,6 +4,11 @@ import com.accordion.dto.LoginRequest;
 import com.accordion.dto.RegisterRequest;
 import com.accordion.model.User;
 import com.accordion.security.JwtUtil;
+import com.accordion.security.PasswordHashingUnavailableException;
+import com.accordion.security.RateLimiter;
+import com.accordion.security.TokenRevocationList;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import com.accordion.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -55,6 +60,12 @@ class UserControllerTest {
     @MockBean
     private AuthenticationManager authenticationManager;
 
+    @MockBean
+    private RateLimiter rateLimiter;
+
+    @MockBean
+    private TokenRevocationList tokenRevocationList;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -65,6 +76,7 @@ class UserControllerTest {
         testUser = new User("testuser");
         testUser.setId(1L);
         testUser.setPassword("$2a$10$encoded.password.hash");
+        when(rateLimiter.tryAcquire(any(RateLimiter.Budget.class), anyString())).thenReturn(true);
     }
 
     @Test
@@ -140,6 +152,126 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.userId").value(1));
     }
 
+    @Test
+    void testLogin_RateLimited() throws Exception {
+        LoginRequest request = new LoginRequest("testuser", "Password1");
+        when(rateLimiter.tryAcquire(RateLimiter.Budget.LOGIN, "user:testuser")).thenReturn(false);
+
+        mockMvc.perform(post("/api/users/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.error").exists());
+
+        verifyNoInteractions(authenticationManager);
+    }
+
+    @Test
+    void testRegister_RateLimited() throws Exception {
+        RegisterRequest request = new RegisterRequest("newuser", "Password1");
+        when(rateLimiter.tryAcquire(eq(RateLimiter.Budget.REGISTER), anyString())).thenReturn(false);
+
+        mockMvc.perform(post("/api/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests());
+
+        verify(userService, never()).registerUser(anyString(), anyString());
+    }
+
+    @Test
+    void testLogin_HashingSaturated() throws Exception {
+        LoginRequest request = new LoginRequest("testuser", "Password1");
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new PasswordHashingUnavailableException("saturated"));
+
+        mockMvc.perform(post("/api/users/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void testRegister_HashingSaturated() throws Exception {
+        RegisterRequest request = new RegisterRequest("newuser", "Password1");
+        when(userService.registerUser("newuser", "Password1"))
+                .thenThrow(new PasswordHashingUnavailableException("saturated"));
+
+        mockMvc.perform(post("/api/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    private static Claims refreshClaims(String subject) {
+        Claims claims = Jwts.claims();
+        claims.setSubject(subject);
+        claims.setId("refresh-id");
+        claims.setExpiration(new java.util.Date(System.currentTimeMillis() + 60000));
+        return claims;
+    }
+
+    @Test
+    void testRefresh_Success() throws Exception {
+        when(jwtUtil.parseRefreshToken("old.refresh")).thenReturn(refreshClaims("testuser"));
+        when(userService.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(jwtUtil.generateToken("testuser")).thenReturn("new.access");
+        when(jwtUtil.generateRefreshToken("testuser")).thenReturn("new.refresh");
+        when(tokenRevocationList.revoke(eq("refresh-id"), anyLong())).thenReturn(true);
+
+        mockMvc.perform(post("/api/users/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\":\"old.refresh\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("new.access"))
+                .andExpect(jsonPath("$.refreshToken").value("new.refresh"));
+
+        verify(tokenRevocationList).revoke(eq("refresh-id"), anyLong());
+        verifyNoInteractions(authenticationManager);
+    }
+
+    @Test
+    void testRefresh_RevokedToken() throws Exception {
+        when(jwtUtil.parseRefreshToken("old.refresh")).thenReturn(refreshClaims("testuser"));
+        when(userService.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(tokenRevocationList.revoke(eq("refresh-id"), anyLong())).thenReturn(false);
+
+        mockMvc.perform(post("/api/users/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\":\"old.refresh\"}"))
+                .andExpect(status().isUnauthorized());
+
+        verify(jwtUtil, never()).generateToken(anyString());
+    }
+
+    @Test
+    void testRefresh_InvalidToken() throws Exception {
+        when(jwtUtil.parseRefreshToken("garbage")).thenReturn(null);
+
+        mockMvc.perform(post("/api/users/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\":\"garbage\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testLogout_RevokesBothTokens() throws Exception {
+        Claims accessClaims = Jwts.claims().setSubject("testuser").setId("access-id")
+                .setExpiration(new java.util.Date(System.currentTimeMillis() + 60000));
+        when(jwtUtil.parseAccessToken("access.token")).thenReturn(accessClaims);
+        when(jwtUtil.parseRefreshToken("old.refresh")).thenReturn(refreshClaims("testuser"));
+
+        mockMvc.perform(post("/api/users/logout")
+                .header("Authorization", "Bearer access.token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\":\"old.refresh\"}"))
+                .andExpect(status().isNoContent());
+
+        verify(tokenRevocationList).revoke(eq("access-id"), anyLong());
+        verify(tokenRevocationList).revoke(eq("refresh-id"), anyLong());
+    }
+
     @Test
     void testLogin_InvalidCredentials() throws Exception {
         LoginRequest request = new LoginRequest("testuser", "WrongPassword");
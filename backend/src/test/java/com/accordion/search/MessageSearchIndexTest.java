@@ -0,0 +1,173 @@
+package com.accordion.search;
+
+import com.accordion.model.ChatMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageSearchIndexTest {
+
+    private MessageSearchIndex index;
+
+    private static ChatMessage message(long id, String username, String content, Long channelId, LocalDateTime timestamp) {
+        ChatMessage message = new ChatMessage(username, content, channelId);
+        message.setId(id);
+        message.setTimestamp(timestamp);
+        return message;
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new MessageSearchIndex();
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 9, 0);
+        index.add(message(1, "alice", "Deploy the backend tonight", 1L, base));
+        index.add(message(2, "bob", "Backend deploy finished!", 1L, base.plusHours(1)));
+        index.add(message(3, "alice", "Lunch anyone?", 2L, base.plusHours(2)));
+        index.add(message(4, "carol", "The deployment broke the BACKEND", 2L, base.plusHours(3)));
+    }
+
+    @Test
+    void testSearch_AllTermsMustMatchNewestFirst() {
+        assertEquals(List.of(2L, 1L), index.search("deploy backend", null, null, null, null, 10));
+    }
+
+    @Test
+    void testSearch_LastTermMatchesAsPrefix() {
+        assertEquals(List.of(4L, 2L, 1L), index.search("backend depl", null, null, null, null, 10));
+    }
+
+    @Test
+    void testSearch_IsCaseInsensitive() {
+        assertEquals(List.of(3L), index.search("LUNCH", null, null, null, null, 10));
+    }
+
+    @Test
+    void testSearch_Filters() {
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+        assertEquals(List.of(4L), index.search("backend", 2L, null, null, null, 10));
+        assertEquals(List.of(1L), index.search("backend", null, "alice", null, null, 10));
+        assertEquals(List.of(2L), index.search("backend", null, null, base.plusMinutes(30), base.plusHours(2), 10));
+    }
+
+    @Test
+    void testSearch_RespectsLimit() {
+        assertEquals(List.of(4L, 2L), index.search("backend", null, null, null, null, 2));
+    }
+
+    @Test
+    void testSearch_NoMatch() {
+        assertTrue(index.search("frontend", null, null, null, null, 10).isEmpty());
+        assertTrue(index.search("backend lunch", null, null, null, null, 10).isEmpty());
+        assertTrue(index.search("  !!  ", null, null, null, null, 10).isEmpty());
+    }
+
+    @Test
+    void testRemove_HidesMessage() {
+        index.remove(2L);
+
+        assertEquals(List.of(1L), index.search("deploy backend", null, null, null, null, 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testPrune_DropsRemovedIdsAndEmptyTerms() {
+        int terms = index.termCount();
+        index.remove(3L);
+
+        index.prune();
+
+        assertEquals(terms - 2, index.termCount());
+        assertTrue(index.search("lunch", null, null, null, null, 10).isEmpty());
+        assertEquals(List.of(4L, 2L, 1L), index.search("backend", null, null, null, null, 10));
+
+        index.add(message(5, "dave", "lunch at noon", 1L, LocalDateTime.now()));
+        assertEquals(List.of(5L), index.search("lunch", null, null, null, null, 10));
+    }
+
+    @Test
+    void testRemove_PrunesOnceEnoughHavePiledUp() {
+        LocalDateTime now = LocalDateTime.now();
+        for (long id = 100; id < 2100; id++) {
+            index.add(message(id, "dave", "bulk " + id, 3L, now));
+        }
+        int terms = index.termCount();
+        for (long id = 100; id < 1123; id++) {
+            index.remove(id);
+        }
+        assertEquals(terms, index.termCount());
+
+        index.remove(1123L);
+
+        assertEquals(terms - 1024, index.termCount());
+        assertEquals(976, index.search("bulk", null, null, null, null, 5000).size());
+    }
+
+    @Test
+    void testAdd_OutOfOrderAndDuplicateIds() {
+        LocalDateTime now = LocalDateTime.now();
+        index.add(message(10, "dave", "zebra", 3L, now));
+        index.add(message(7, "dave", "zebra crossing", 3L, now));
+        index.add(message(10, "dave", "zebra", 3L, now));
+
+        assertEquals(List.of(10L, 7L), index.search("zebra", null, null, null, null, 10));
+        assertEquals(3L, index.getChannelId(7L));
+    }
+
+    @Test
+    void testBulkLoad_SortsUnorderedIdsAndMergesLiveAdds() {
+        LocalDateTime now = LocalDateTime.now();
+        MessageSearchIndex.BulkLoad load = index.bulkLoad();
+        load.add(message(30, "dave", "zebra", 3L, now));
+        load.add(message(12, "dave", "zebra crossing", 3L, now));
+        load.add(message(30, "dave", "zebra", 3L, now));
+        load.add(message(21, "erin", "backend zebra", 3L, now));
+        index.add(message(25, "erin", "zebra live", 3L, now));
+
+        assertEquals(List.of(25L), index.search("zebra", null, null, null, null, 10));
+
+        load.finish();
+
+        assertEquals(List.of(30L, 25L, 21L, 12L), index.search("zebra", null, null, null, null, 10));
+        assertEquals(List.of(21L, 4L, 2L, 1L), index.search("backend", null, null, null, null, 10));
+        assertEquals(8, index.size());
+    }
+
+    @Test
+    void testPostings_OutOfOrderAddLeavesSnapshotsIntact() {
+        Postings postings = new Postings();
+        postings.add(10);
+        postings.add(30);
+        postings.add(20);
+        Postings.Snapshot before = postings.snapshot();
+
+        postings.add(15);
+
+        assertArrayEquals(new long[] {10, 20, 30}, Arrays.copyOf(before.ids, before.size));
+        Postings.Snapshot after = postings.snapshot();
+        assertArrayEquals(new long[] {10, 15, 20, 30}, Arrays.copyOf(after.ids, after.size));
+    }
+
+    @Test
+    void testPostings_AddAllMergesAndDropsDuplicates() {
+        Postings postings = new Postings();
+        postings.add(5);
+        postings.add(20);
+
+        postings.addAll(new long[] {1, 5, 10, 30}, 4);
+        postings.addAll(new long[] {40, 50}, 2);
+
+        Postings.Snapshot snapshot = postings.snapshot();
+        assertArrayEquals(new long[] {1, 5, 10, 20, 30, 40, 50}, Arrays.copyOf(snapshot.ids, snapshot.size));
+    }
+
+    @Test
+    void testTokenize() {
+        assertEquals(List.of("hello", "world", "42"), List.copyOf(MessageSearchIndex.tokenize("Hello, world! 42 hello")));
+    }
+}
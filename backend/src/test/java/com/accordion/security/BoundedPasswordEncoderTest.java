@@ -0,0 +1,86 @@
+package com.accordion.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BoundedPasswordEncoderTest {
+
+    private PasswordEncoder delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private BoundedPasswordEncoder encoder;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(PasswordEncoder.class);
+        meterRegistry = new SimpleMeterRegistry();
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, meterRegistry);
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void testDelegatesAndRecordsHashingTime() {
+        when(delegate.encode("secret")).thenReturn("hash");
+        when(delegate.matches("secret", "hash")).thenReturn(true);
+
+        assertEquals("hash", encoder.encode("secret"));
+        assertTrue(encoder.matches("secret", "hash"));
+
+        assertEquals(1, meterRegistry.timer(BoundedPasswordEncoder.METRIC_HASHING, "operation", "encode").count());
+        assertEquals(1, meterRegistry.timer(BoundedPasswordEncoder.METRIC_HASHING, "operation", "matches").count());
+    }
+
+    @Test
+    void testFailsFastWhenThreadsAndQueueAreFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.encode(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "hash";
+        });
+
+        Future<String> running = callers.submit(() -> encoder.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<String> queued = callers.submit(() -> encoder.encode("second"));
+        // Wait until the second call occupies the single queue slot
+        for (int i = 0; i < 500 && meterRegistry.get(BoundedPasswordEncoder.METRIC_HASHING + ".queued").gauge().value() < 1; i++) {
+            Thread.sleep(10);
+        }
+
+        assertThrows(PasswordHashingUnavailableException.class, () -> encoder.encode("third"));
+        assertEquals(1, meterRegistry.counter(BoundedPasswordEncoder.METRIC_REJECTED).count());
+
+        release.countDown();
+        assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testDelegateExceptionsPropagateUnchanged() {
+        when(delegate.matches(any(), any())).thenThrow(new IllegalArgumentException("bad hash"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> encoder.matches("secret", "not-a-hash"));
+        assertEquals("bad hash", e.getMessage());
+    }
+}
@@ -0,0 +1,77 @@
+package com.accordion.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "TestSecretKeyMinimum32BytesForHS256AlgorithmCompatibility");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 3600000L);
+        jwtUtil.init();
+    }
+
+    @Test
+    void testAccessTokenIsNotARefreshToken() {
+        String token = jwtUtil.generateToken("alice");
+
+        assertNull(jwtUtil.parseRefreshToken(token));
+    }
+
+    @Test
+    void testRefreshTokenIsNotAnAccessToken() {
+        String token = jwtUtil.generateRefreshToken("alice");
+
+        assertNull(jwtUtil.parseAccessToken(token));
+        Claims claims = jwtUtil.parseRefreshToken(token);
+        assertNotNull(claims);
+        assertEquals("alice", claims.getSubject());
+        assertTrue(claims.getExpiration().getTime() - System.currentTimeMillis() > 60000);
+    }
+
+    @Test
+    void testEveryTokenHasItsOwnId() {
+        String first = jwtUtil.generateToken("alice");
+        String second = jwtUtil.generateToken("alice");
+
+        String firstId = jwtUtil.parseAccessToken(first).getId();
+        assertNotNull(firstId);
+        assertNotEquals(firstId, jwtUtil.parseAccessToken(second).getId());
+    }
+
+    @Test
+    void testParseAccessTokenReturnsClaimsOfAccessTokensOnly() {
+        Claims claims = jwtUtil.parseAccessToken(jwtUtil.generateToken("alice"));
+
+        assertNotNull(claims);
+        assertEquals("alice", claims.getSubject());
+        assertNotNull(claims.getId());
+        assertNull(jwtUtil.parseAccessToken(jwtUtil.generateRefreshToken("alice")));
+        assertNull(jwtUtil.parseAccessToken("not.a.token"));
+    }
+
+    @Test
+    void testTokensFromAnotherKeyAreRejected() {
+        JwtUtil other = new JwtUtil();
+        ReflectionTestUtils.setField(other, "secret", "AnotherSecretKeyMinimum32BytesForHS256AlgorithmTests");
+        ReflectionTestUtils.setField(other, "expiration", 60000L);
+        ReflectionTestUtils.setField(other, "refreshExpiration", 3600000L);
+        other.init();
+
+        assertNull(jwtUtil.parseAccessToken(other.generateToken("alice")));
+    }
+
+    @Test
+    void testParseRefreshTokenRejectsGarbage() {
+        assertNull(jwtUtil.parseRefreshToken("not.a.token"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.accordion.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitInterceptorTest {
+
+    @Mock
+    private RateLimiter rateLimiter;
+
+    @Mock
+    private MessageChannel channel;
+
+    @InjectMocks
+    private RateLimitInterceptor interceptor;
+
+    private static Message<byte[]> frame(StompCommand command, String destination, String username) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId("s1");
+        accessor.setDestination(destination);
+        if (username != null) {
+            accessor.setUser(new UsernamePasswordAuthenticationToken(username, null));
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    @Test
+    void testChannelMessageUsesUserAndChannelBudgets() {
+        when(rateLimiter.tryAcquire(any(RateLimiter.Budget.class), anyString(), anyInt())).thenReturn(true);
+        Message<byte[]> message = frame(StompCommand.SEND, "/app/chat.send/7", "alice");
+
+        assertSame(message, interceptor.preSend(message, channel));
+
+        verify(rateLimiter).tryAcquire(RateLimiter.Budget.MESSAGE, "user:alice/7", 1);
+        verify(rateLimiter).tryAcquire(RateLimiter.Budget.CHANNEL, "7", 1);
+    }
+
+    @Test
+    void testThrottledFrameIsDropped() {
+        when(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "user:alice/default", 1)).thenReturn(false);
+
+        assertNull(interceptor.preSend(frame(StompCommand.SEND, "/app/chat.send", "alice"), channel));
+
+        verify(rateLimiter, never()).tryAcquire(eq(RateLimiter.Budget.CHANNEL), anyString(), anyInt());
+    }
+
+    @Test
+    void testThrottledChannelGivesBackSenderTokens() {
+        when(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "user:alice/7", 1)).thenReturn(true);
+        when(rateLimiter.tryAcquire(RateLimiter.Budget.CHANNEL, "7", 1)).thenReturn(false);
+
+        assertNull(interceptor.preSend(frame(StompCommand.SEND, "/app/chat.send/7", "alice"), channel));
+
+        verify(rateLimiter).release(RateLimiter.Budget.MESSAGE, "user:alice/7", 1);
+    }
+
+    @Test
+    void testBatchIsChargedPerMessage() {
+        when(rateLimiter.tryAcquire(any(RateLimiter.Budget.class), anyString(), anyInt())).thenReturn(true);
+        byte[] body = "[{\"username\":\"alice\",\"content\":\"a\"},{\"username\":\"alice\",\"content\":\"[b]\"},{}]"
+                .getBytes(StandardCharsets.UTF_8);
+        Message<byte[]> message = MessageBuilder.createMessage(body,
+                frame(StompCommand.SEND, "/app/chat.sendBatch/7", "alice").getHeaders());
+
+        assertSame(message, interceptor.preSend(message, channel));
+
+        verify(rateLimiter).tryAcquire(RateLimiter.Budget.BATCH, "user:alice/7", 3);
+        verify(rateLimiter).tryAcquire(RateLimiter.Budget.CHANNEL, "7", 3);
+        verify(rateLimiter, never()).tryAcquire(eq(RateLimiter.Budget.MESSAGE), anyString());
+    }
+
+    @Test
+    void testThrottledBatchIsDropped() {
+        when(rateLimiter.tryAcquire(RateLimiter.Budget.BATCH, "user:alice/default", 1)).thenReturn(false);
+
+        assertNull(interceptor.preSend(frame(StompCommand.SEND, "/app/chat.sendBatch", "alice"), channel));
+
+        verify(rateLimiter, never()).tryAcquire(eq(RateLimiter.Budget.CHANNEL), anyString(), anyInt());
+    }
+
+    @Test
+    void testThrottledChannelGivesBackBatchTokens() {
+        when(rateLimiter.tryAcquire(RateLimiter.Budget.BATCH, "user:alice/7", 1)).thenReturn(true);
+        when(rateLimiter.tryAcquire(RateLimiter.Budget.CHANNEL, "7", 1)).thenReturn(false);
+
+        assertNull(interceptor.preSend(frame(StompCommand.SEND, "/app/chat.sendBatch/7", "alice"), channel));
+
+        verify(rateLimiter).release(RateLimiter.Budget.BATCH, "user:alice/7", 1);
+    }
+
+    @Test
+    void testCountMessagesFallsBackToOne() {
+        assertEquals(1, RateLimitInterceptor.countMessages(new byte[0]));
+        assertEquals(1, RateLimitInterceptor.countMessages("{}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, RateLimitInterceptor.countMessages("[1,".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(2, RateLimitInterceptor.countMessages("[[1,2],{\"a\":[3]}]".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testTypingHasItsOwnBudget() {
+        when(rateLimiter.tryAcquire(RateLimiter.Budget.TYPING, "user:alice/7")).thenReturn(false);
+
+        assertNull(interceptor.preSend(frame(StompCommand.SEND, "/app/chat.typing/7", "alice"), channel));
+
+        verify(rateLimiter, never()).tryAcquire(eq(RateLimiter.Budget.MESSAGE), anyString(), anyInt());
+    }
+
+    @Test
+    void testDirectMessagesSkipChannelBudget() {
+        when(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "user:alice/dm", 1)).thenReturn(true);
+        Message<byte[]> message = frame(StompCommand.SEND, "/app/dm.send", "alice");
+
+        assertSame(message, interceptor.preSend(message, channel));
+
+        verify(rateLimiter, never()).tryAcquire(eq(RateLimiter.Budget.CHANNEL), anyString(), anyInt());
+    }
+
+    @Test
+    void testAnonymousSenderIsKeyedBySession() {
+        when(rateLimiter.tryAcquire(any(RateLimiter.Budget.class), anyString(), anyInt())).thenReturn(true);
+
+        interceptor.preSend(frame(StompCommand.SEND, "/app/chat.send", null), channel);
+
+        verify(rateLimiter).tryAcquire(RateLimiter.Budget.MESSAGE, "session:s1/default", 1);
+    }
+
+    @Test
+    void testOtherFramesPassThrough() {
+        Message<byte[]> subscribe = frame(StompCommand.SUBSCRIBE, "/topic/messages/7", "alice");
+        Message<byte[]> other = frame(StompCommand.SEND, "/app/something.else", "alice");
+
+        assertSame(subscribe, interceptor.preSend(subscribe, channel));
+        assertSame(other, interceptor.preSend(other, channel));
+        verifyNoInteractions(rateLimiter);
+    }
+}
@@ -0,0 +1,115 @@
+package com.accordion.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private RateLimiter rateLimiter;
+    private SimpleMeterRegistry meterRegistry;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new RateLimiter();
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(rateLimiter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(rateLimiter, "enabled", true);
+        ReflectionTestUtils.setField(rateLimiter, "messageRefillMs", 100L);
+        ReflectionTestUtils.setField(rateLimiter, "messageCapacity", 3);
+        ReflectionTestUtils.setField(rateLimiter, "loginRefillMs", 1000L);
+        ReflectionTestUtils.setField(rateLimiter, "loginCapacity", 1);
+        now = 1_000_000_000L;
+        rateLimiter.clock = () -> now;
+    }
+
+    private void advanceMs(long ms) {
+        now += TimeUnit.MILLISECONDS.toNanos(ms);
+    }
+
+    private double throttled(String budget) {
+        return meterRegistry.counter(RateLimiter.METRIC_THROTTLED, "budget", budget).count();
+    }
+
+    @Test
+    void testAllowsBurstUpToCapacityThenThrottles() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice"));
+        }
+        assertFalse(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice"));
+        assertEquals(1, throttled("message"));
+    }
+
+    @Test
+    void testRefillsOneTokenPerInterval() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice");
+        }
+        advanceMs(100);
+
+        assertTrue(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice"));
+        assertFalse(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice"));
+    }
+
+    @Test
+    void testTakesSeveralPermitsAtOnceOrNone() {
+        assertTrue(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice", 2));
+        assertFalse(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice", 2));
+        assertTrue(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice", 1));
+        assertFalse(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice"));
+
+        advanceMs(300);
+        assertFalse(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice", 4));
+        assertTrue(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice", 3));
+    }
+
+    @Test
+    void testReleaseGivesBackTokens() {
+        assertTrue(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice", 3));
+        assertFalse(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice"));
+
+        rateLimiter.release(RateLimiter.Budget.MESSAGE, "alice", 2);
+
+        assertTrue(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice", 2));
+        assertFalse(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "alice"));
+    }
+
+    @Test
+    void testKeysAndBudgetsAreIndependent() {
+        assertTrue(rateLimiter.tryAcquire(RateLimiter.Budget.LOGIN, "ip:10.0.0.1"));
+        assertFalse(rateLimiter.tryAcquire(RateLimiter.Budget.LOGIN, "ip:10.0.0.1"));
+
+        assertTrue(rateLimiter.tryAcquire(RateLimiter.Budget.LOGIN, "ip:10.0.0.2"));
+        assertTrue(rateLimiter.tryAcquire(RateLimiter.Budget.MESSAGE, "ip:10.0.0.1"));
+    }
+
+    @Test
+    void testSweepRemovesOnlyFullBuckets() {
+        rateLimiter.tryAcquire(RateLimiter.Budget.LOGIN, "idle");
+        advanceMs(500);
+        rateLimiter.tryAcquire(RateLimiter.Budget.LOGIN, "busy");
+        advanceMs(600);
+
+        rateLimiter.sweep();
+
+        assertEquals(1, rateLimiter.getBucketCount(RateLimiter.Budget.LOGIN));
+        assertFalse(rateLimiter.tryAcquire(RateLimiter.Budget.LOGIN, "busy"));
+        assertTrue(rateLimiter.tryAcquire(RateLimiter.Budget.LOGIN, "idle"));
+    }
+
+    @Test
+    void testDisabledAlwaysAllows() {
+        ReflectionTestUtils.setField(rateLimiter, "enabled", false);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(rateLimiter.tryAcquire(RateLimiter.Budget.LOGIN, "ip:10.0.0.1"));
+        }
+        assertEquals(0, throttled("login"));
+    }
+}
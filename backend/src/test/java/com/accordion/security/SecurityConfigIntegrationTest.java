@@ -97,6 +97,53 @@ class SecurityConfigIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void refreshToken_shouldRotate_andLogoutShouldRevokeAccessToken() throws Exception {
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setUsername("refreshuser789");
+        registerRequest.setPassword("RefreshPass789");
+
+        MvcResult registerResult = mockMvc.perform(post("/api/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+        String refreshToken = objectMapper.readTree(registerResult.getResponse().getContentAsString())
+                .get("refreshToken").asText();
+        String refreshBody = objectMapper.writeValueAsString(java.util.Map.of("refreshToken", refreshToken));
+
+        // A refresh token is not accepted as an access token
+        mockMvc.perform(get("/api/channels")
+                .header("Authorization", "Bearer " + refreshToken))
+                .andExpect(status().isForbidden());
+
+        MvcResult refreshResult = mockMvc.perform(post("/api/users/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(refreshBody))
+                .andExpect(status().isOk())
+                .andReturn();
+        String accessToken = objectMapper.readTree(refreshResult.getResponse().getContentAsString())
+                .get("token").asText();
+
+        // Each refresh token can only be used once
+        mockMvc.perform(post("/api/users/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(refreshBody))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(get("/api/channels")
+                .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/users/logout")
+                .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/channels")
+                .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     void protectedEndpoints_shouldReject_invalidJwtToken() throws Exception {
         String invalidToken = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.invalid.token";
@@ -148,6 +195,15 @@ class SecurityConfigIntegrationTest {
                 .andExpect(content().string(org.hamcrest.Matchers.containsString("Welcome to SockJS")));
     }
 
+    @Test
+    void nativeWebsocketEndpoint_shouldBePublic_forInitialHandshake() throws Exception {
+        // A plain GET is not a WebSocket upgrade, so the handshake handler rejects it itself;
+        // security must let it through rather than answering 401/403
+        int status = mockMvc.perform(get("/ws-native")).andReturn().getResponse().getStatus();
+        org.junit.jupiter.api.Assertions.assertNotEquals(401, status, "Native WebSocket endpoint should be public");
+        org.junit.jupiter.api.Assertions.assertNotEquals(403, status, "Native WebSocket endpoint should be public");
+    }
+
     @Test
     void h2ConsoleEndpoint_shouldNotBeForbidden() throws Exception {
         // H2 console should be publicly accessible (though this should be disabled in production)
@@ -0,0 +1,99 @@
+package com.accordion.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationListTest {
+
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        revocationList = new TokenRevocationList();
+        ReflectionTestUtils.setField(revocationList, "bloomBits", 1024);
+        revocationList.init();
+    }
+
+    @Test
+    void testRevokedIdIsReported() {
+        revocationList.revoke("token-1", System.currentTimeMillis() + 60000);
+
+        assertTrue(revocationList.isRevoked("token-1"));
+        assertFalse(revocationList.isRevoked("token-2"));
+        assertFalse(revocationList.isRevoked(null));
+    }
+
+    @Test
+    void testOnlyTheFirstRevokeOfATokenSucceeds() throws Exception {
+        long expiresAt = System.currentTimeMillis() + 60000;
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return revocationList.revoke("token-1", expiresAt);
+                }));
+            }
+            start.countDown();
+            int revokedHere = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    revokedHere++;
+                }
+            }
+            assertEquals(1, revokedHere);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(revocationList.isRevoked("token-1"));
+    }
+
+    @Test
+    void testExpiredTokensAreNotStored() {
+        assertFalse(revocationList.revoke("token-1", System.currentTimeMillis() - 1));
+
+        assertFalse(revocationList.isRevoked("token-1"));
+        assertEquals(0, revocationList.size());
+    }
+
+    @Test
+    void testSweepDropsExpiredEntriesAndKeepsTheRest() throws InterruptedException {
+        revocationList.revoke("live", System.currentTimeMillis() + 60000);
+        revocationList.revoke("expiring", System.currentTimeMillis() + 1);
+        Thread.sleep(5);
+
+        revocationList.sweep();
+
+        assertEquals(1, revocationList.size());
+        assertTrue(revocationList.isRevoked("live"));
+        assertFalse(revocationList.isRevoked("expiring"));
+    }
+
+    @Test
+    void testFilterFalsePositivesAreConfirmedAgainstTheSet() {
+        // A tiny filter saturates quickly, so most lookups hit it and must be rejected by the set
+        ReflectionTestUtils.setField(revocationList, "bloomBits", 64);
+        revocationList.init();
+        for (int i = 0; i < 200; i++) {
+            revocationList.revoke("revoked-" + i, System.currentTimeMillis() + 60000);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(revocationList.isRevoked("revoked-" + i));
+            assertFalse(revocationList.isRevoked("valid-" + i));
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package com.accordion.service;
 
+import com.accordion.dto.ChannelSummary;
 import com.accordion.model.Channel;
 import com.accordion.repository.ChannelRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import com.accordion.websocket.ChannelEventPublisher;
+import com.accordion.websocket.MessageBroadcaster;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.Arrays;
 import java.util.List;
@@ -23,6 +27,15 @@ class ChannelServiceTest {
     @Mock
     private ChannelRepository channelRepository;
 
+    @Mock
+    private MessageBroadcaster messageBroadcaster;
+
+    @Mock
+    private ChannelEventPublisher channelEventPublisher;
+
+    @Mock
+    private MessageRetentionService messageRetentionService;
+
     @InjectMocks
     private ChannelService channelService;
 
@@ -46,6 +59,7 @@ class ChannelServiceTest {
         assertEquals("System", result.getCreatedBy());
         verify(channelRepository).findByName("general");
         verify(channelRepository).save(any(Channel.class));
+        verify(channelEventPublisher).created(testChannel);
     }
 
     @Test
@@ -58,6 +72,7 @@ class ChannelServiceTest {
 
         verify(channelRepository).findByName("general");
         verify(channelRepository, never()).save(any(Channel.class));
+        verifyNoInteractions(channelEventPublisher);
     }
 
     @Test
@@ -76,6 +91,35 @@ class ChannelServiceTest {
         verify(channelRepository).findAll();
     }
 
+    @Test
+    void testGetChannelSummariesPagesFromAfterId() {
+        List<ChannelSummary> page = List.of(new ChannelSummary(11L, "random", "Random stuff"));
+        when(channelRepository.findSummariesAfter(10L, PageRequest.of(0, 1))).thenReturn(page);
+
+        assertEquals(page, channelService.getChannelSummaries(10L, 1));
+    }
+
+    @Test
+    void testGetChannelSummariesStartsAtTheFirstChannel() {
+        when(channelRepository.findSummariesAfter(0L, PageRequest.of(0, 100))).thenReturn(List.of());
+
+        assertTrue(channelService.getChannelSummaries(null, 100).isEmpty());
+    }
+
+    @Test
+    void testChannelListVersionChangesOnCreateOnly() {
+        String initial = channelService.getChannelListVersion();
+        when(channelRepository.findByName("random")).thenReturn(Optional.empty());
+        when(channelRepository.save(any(Channel.class))).thenReturn(testChannel);
+        when(channelRepository.findById(1L)).thenReturn(Optional.of(testChannel));
+
+        channelService.updateRetention(1L, 7, null);
+        assertEquals(initial, channelService.getChannelListVersion());
+
+        channelService.createChannel("random", "Random stuff", "Admin");
+        assertNotEquals(initial, channelService.getChannelListVersion());
+    }
+
     @Test
     void testGetChannelById() {
         when(channelRepository.findById(1L)).thenReturn(Optional.of(testChannel));
@@ -132,4 +176,85 @@ class ChannelServiceTest {
         verify(channelRepository).findByName("general");
         verify(channelRepository).save(any(Channel.class));
     }
+
+    @Test
+    void testUpdateRetention() {
+        when(channelRepository.findById(1L)).thenReturn(Optional.of(testChannel));
+        when(channelRepository.save(testChannel)).thenReturn(testChannel);
+
+        Channel result = channelService.updateRetention(1L, 30, 1000);
+
+        assertEquals(30, result.getRetentionMaxAgeDays());
+        assertEquals(1000, result.getRetentionMaxMessages());
+        verify(channelRepository).save(testChannel);
+        verify(messageRetentionService).retentionChanged(testChannel);
+    }
+
+    @Test
+    void testUpdateBroadcastWindow() {
+        when(channelRepository.findById(1L)).thenReturn(Optional.of(testChannel));
+        when(channelRepository.save(testChannel)).thenReturn(testChannel);
+
+        Channel result = channelService.updateBroadcastWindow(1L, 10);
+
+        assertEquals(10, result.getBroadcastWindowMs());
+        verify(messageBroadcaster).setWindow(1L, 10);
+    }
+
+    @Test
+    void testUpdateRetentionUnknownChannel() {
+        when(channelRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> channelService.updateRetention(99L, 30, null));
+        verify(channelRepository, never()).save(any(Channel.class));
+    }
+
+    @Test
+    void testUpdateDescriptionPublishesUpdate() {
+        String initial = channelService.getChannelListVersion();
+        when(channelRepository.findById(1L)).thenReturn(Optional.of(testChannel));
+        when(channelRepository.save(testChannel)).thenReturn(testChannel);
+
+        Channel result = channelService.updateDescription(1L, "Everything else");
+
+        assertEquals("Everything else", result.getDescription());
+        verify(channelEventPublisher).updated(testChannel);
+        assertNotEquals(initial, channelService.getChannelListVersion());
+    }
+
+    @Test
+    void testUpdateDescriptionUnchangedPublishesNothing() {
+        when(channelRepository.findById(1L)).thenReturn(Optional.of(testChannel));
+
+        channelService.updateDescription(1L, "General discussion");
+
+        verify(channelRepository, never()).save(any(Channel.class));
+        verifyNoInteractions(channelEventPublisher);
+    }
+
+    @Test
+    void testDeleteChannelPublishesAndPurgesMessages() throws Exception {
+        Channel channel = new Channel("random", "Random stuff", "Admin");
+        channel.setId(7L);
+        String initial = channelService.getChannelListVersion();
+        when(channelRepository.findById(7L)).thenReturn(Optional.of(channel));
+
+        channelService.deleteChannel(7L);
+
+        var order = inOrder(channelRepository, channelEventPublisher, messageRetentionService);
+        order.verify(channelRepository).delete(channel);
+        order.verify(channelEventPublisher).deleted(channel);
+        order.verify(messageRetentionService).purgeDeletedChannelLater(7L);
+        verify(messageRetentionService, never()).purgeDeletedChannel(anyLong());
+        assertNotEquals(initial, channelService.getChannelListVersion());
+    }
+
+    @Test
+    void testDeleteDefaultChannelIsRejected() {
+        when(channelRepository.findById(1L)).thenReturn(Optional.of(testChannel));
+
+        assertThrows(IllegalArgumentException.class, () -> channelService.deleteChannel(1L));
+        verify(channelRepository, never()).delete(any(Channel.class));
+        verifyNoInteractions(channelEventPublisher, messageRetentionService);
+    }
 }
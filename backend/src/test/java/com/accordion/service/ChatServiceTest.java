@@ -3,6 +3,8 @@ package com.accordion.service;
 import com.accordion.model.Channel;
 import com.accordion.model.ChatMessage;
 import com.accordion.repository.ChatMessageRepository;
+import com.accordion.search.MessageSearchIndex;
+import com.accordion.storage.MessageArchive;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,11 +15,15 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.LongFunction;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +35,18 @@ class ChatServiceTest {
     @Mock
     private ChannelService channelService;
 
+    @Mock
+    private MessageArchive messageArchive;
+
+    @Mock
+    private MessageSearchIndex messageSearchIndex;
+
+    @Mock
+    private RecentMessageCache recentMessageCache;
+
+    @Mock
+    private MessageSequencer messageSequencer;
+
     @InjectMocks
     private ChatService chatService;
 
@@ -55,6 +73,8 @@ class ChatServiceTest {
     void testSaveMessage() {
         when(channelService.getOrCreateDefaultChannel()).thenReturn(defaultChannel);
         when(chatMessageRepository.save(any(ChatMessage.class))).thenReturn(testMessage);
+        when(messageSequencer.next(eq(1L), any())).thenAnswer(invocation ->
+                invocation.<LongFunction<ChatMessage>>getArgument(1).apply(17L));
 
         ChatMessage result = chatService.saveMessage("testuser", "Hello world");
 
@@ -62,7 +82,30 @@ class ChatServiceTest {
         assertEquals("testuser", result.getUsername());
         assertEquals("Hello world", result.getContent());
         verify(channelService).getOrCreateDefaultChannel();
-        verify(chatMessageRepository, times(1)).save(any(ChatMessage.class));
+        verify(chatMessageRepository, times(1)).save(argThat(message -> message.getSeq() == 17L));
+        verify(messageSearchIndex).add(testMessage);
+        verify(recentMessageCache).record(testMessage);
+    }
+
+    @Test
+    void testSaveMessages_AssignsConsecutiveSeqsInOneInsert() {
+        List<ChatMessage> batch = new ArrayList<>(List.of(
+                new ChatMessage("bot", "first", null),
+                new ChatMessage("bot", "second", null)));
+        when(messageSequencer.reserve(eq(3L), eq(2), any())).thenAnswer(invocation ->
+                invocation.<LongFunction<Integer>>getArgument(2).apply(40L));
+        when(chatMessageRepository.insertAll(batch)).thenReturn(2);
+
+        List<ChatMessage> result = chatService.saveMessages(3L, batch);
+
+        assertEquals(2, result.size());
+        assertEquals(3L, result.get(0).getChannelId());
+        assertEquals(40L, result.get(0).getSeq());
+        assertEquals(41L, result.get(1).getSeq());
+        verify(chatMessageRepository, times(1)).insertAll(batch);
+        verify(chatMessageRepository, never()).save(any(ChatMessage.class));
+        verify(messageSearchIndex, times(2)).add(any(ChatMessage.class));
+        verify(recentMessageCache, times(2)).record(any(ChatMessage.class));
     }
 
     @Test
@@ -115,4 +158,93 @@ class ChatServiceTest {
                 argThat(pageable -> pageable.getPageSize() == 10)
         );
     }
+
+    @Test
+    void testGetRecentMessagesByChannel_FillsFromArchive() {
+        ChatMessage hot1 = new ChatMessage("user1", "hot 1", 1L);
+        hot1.setId(40L);
+        ChatMessage hot2 = new ChatMessage("user2", "hot 2", 1L);
+        hot2.setId(41L);
+        ChatMessage archived = new ChatMessage("user3", "archived", 1L);
+        archived.setId(12L);
+
+        when(chatMessageRepository.findByChannelIdOrderByTimestampDesc(eq(1L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>(Arrays.asList(hot2, hot1)));
+        when(messageArchive.isEnabled()).thenReturn(true);
+        when(messageArchive.readBefore(1L, 40L, 3)).thenReturn(List.of(archived));
+
+        List<ChatMessage> result = chatService.getRecentMessagesByChannel(1L, 5);
+
+        assertEquals(3, result.size());
+        assertEquals("archived", result.get(0).getContent());
+        assertEquals("hot 1", result.get(1).getContent());
+        assertEquals("hot 2", result.get(2).getContent());
+    }
+
+    @Test
+    void testGetRecentMessagesByChannel_SkipsArchiveWhenHotTierIsFull() {
+        ChatMessage hot = new ChatMessage("user1", "hot", 1L);
+        hot.setId(40L);
+
+        when(chatMessageRepository.findByChannelIdOrderByTimestampDesc(eq(1L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>(List.of(hot)));
+
+        List<ChatMessage> result = chatService.getRecentMessagesByChannel(1L, 1);
+
+        assertEquals(1, result.size());
+        verifyNoInteractions(messageArchive);
+    }
+
+    @Test
+    void testGetMessagesAfter_ServedFromCache() {
+        List<ChatMessage> cached = List.of(testMessage);
+        when(recentMessageCache.getAfter(3L, 0L, 50)).thenReturn(cached);
+
+        assertSame(cached, chatService.getMessagesAfter(3L, 0L, 50));
+        verifyNoInteractions(chatMessageRepository);
+    }
+
+    @Test
+    void testGetMessagesAfter_LoadsCacheOnMiss() {
+        List<ChatMessage> loaded = List.of(testMessage);
+        when(recentMessageCache.getCapacity()).thenReturn(200);
+        when(recentMessageCache.getAfter(3L, 0L, 50)).thenReturn(null, loaded);
+        when(chatMessageRepository.findByChannelIdOrderByTimestampDesc(eq(3L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>(loaded));
+
+        assertSame(loaded, chatService.getMessagesAfter(3L, 0L, 50));
+        verify(recentMessageCache).load(3L, loaded, true);
+    }
+
+    @Test
+    void testGetMessagesAfter_QueriesStorageBeyondCachedWindow() {
+        ChatMessage older = new ChatMessage("testuser", "older", 3L);
+        older.setId(4L);
+        ChatMessage newer = new ChatMessage("testuser", "newer", 3L);
+        newer.setId(5L);
+        when(recentMessageCache.getCapacity()).thenReturn(200);
+        when(recentMessageCache.getAfter(3L, 2L, 50)).thenReturn(null);
+        when(chatMessageRepository.findByChannelIdOrderByTimestampDesc(eq(3L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
+        when(chatMessageRepository.findByChannelIdAndIdGreaterThanOrderByIdDesc(3L, 2L, PageRequest.of(0, 50)))
+                .thenReturn(new ArrayList<>(List.of(newer, older)));
+
+        List<ChatMessage> result = chatService.getMessagesAfter(3L, 2L, 50);
+
+        assertEquals(List.of(older, newer), result);
+    }
+
+    @Test
+    void testGetMessagesAfterSeq_FallsBackToStorage() {
+        ChatMessage gap = new ChatMessage("testuser", "missed", 3L);
+        gap.setSeq(8L);
+        when(recentMessageCache.getCapacity()).thenReturn(200);
+        when(recentMessageCache.getAfterSeq(3L, 7L, 500)).thenReturn(null);
+        when(chatMessageRepository.findByChannelIdOrderByTimestampDesc(eq(3L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
+        when(chatMessageRepository.findByChannelIdAndSeqGreaterThanOrderBySeqDesc(3L, 7L, PageRequest.of(0, 500)))
+                .thenReturn(new ArrayList<>(List.of(gap)));
+
+        assertEquals(List.of(gap), chatService.getMessagesAfterSeq(3L, 7L, 500));
+    }
 }
@@ -0,0 +1,96 @@
+package com.accordion.service;
+
+import com.accordion.model.DirectMessage;
+import com.accordion.repository.DirectMessageRepository;
+import com.accordion.repository.UserRepository;
+import com.accordion.websocket.DirectMessageDelivery;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DirectMessageServiceTest {
+
+    @Mock
+    private DirectMessageRepository directMessageRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private DirectMessageDelivery directMessageDelivery;
+
+    @InjectMocks
+    private DirectMessageService directMessageService;
+
+    private static DirectMessage message(long id, String sender, String recipient) {
+        DirectMessage message = new DirectMessage(sender, recipient, "message " + id);
+        message.setId(id);
+        return message;
+    }
+
+    @Test
+    void testSendMessageSavesAndDelivers() {
+        when(userRepository.existsByUsername("bob")).thenReturn(true);
+        when(directMessageRepository.save(any(DirectMessage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        DirectMessage sent = directMessageService.sendMessage("alice", "bob", "hi");
+
+        assertEquals("alice", sent.getSender());
+        assertEquals("bob", sent.getRecipient());
+        assertEquals("alice:bob", sent.getConversationKey());
+        verify(directMessageDelivery).deliver(sent);
+    }
+
+    @Test
+    void testSendMessageToUnknownUserIsRejected() {
+        when(userRepository.existsByUsername("nobody")).thenReturn(false);
+
+        assertThrows(IllegalArgumentException.class, () -> directMessageService.sendMessage("alice", "nobody", "hi"));
+
+        verify(directMessageRepository, never()).save(any());
+        verifyNoInteractions(directMessageDelivery);
+    }
+
+    @Test
+    void testSendMessageToSelfIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> directMessageService.sendMessage("alice", "alice", "hi"));
+
+        verifyNoInteractions(directMessageRepository, directMessageDelivery);
+    }
+
+    @Test
+    void testConversationKeyIsSameFromEitherSide() {
+        assertEquals(DirectMessage.conversationKey("bob", "alice"), DirectMessage.conversationKey("alice", "bob"));
+    }
+
+    @Test
+    void testGetConversationReturnsOldestFirst() {
+        List<DirectMessage> newestFirst = new ArrayList<>(List.of(message(7, "bob", "alice"), message(5, "alice", "bob")));
+        when(directMessageRepository.findByConversationKeyAndIdLessThanOrderByIdDesc(
+                eq("alice:bob"), eq(10L), any(Pageable.class))).thenReturn(newestFirst);
+
+        List<DirectMessage> result = directMessageService.getConversation("bob", "alice", 10L, 2);
+
+        assertEquals(List.of(5L, 7L), result.stream().map(DirectMessage::getId).toList());
+    }
+
+    @Test
+    void testGetConversationWithoutCursorStartsAtNewest() {
+        when(directMessageRepository.findByConversationKeyAndIdLessThanOrderByIdDesc(
+                eq("alice:bob"), eq(Long.MAX_VALUE), any(Pageable.class))).thenReturn(new ArrayList<>());
+
+        assertTrue(directMessageService.getConversation("alice", "bob", null, 50).isEmpty());
+    }
+}
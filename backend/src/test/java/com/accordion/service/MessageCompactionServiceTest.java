@@ -0,0 +1,77 @@
+package com.accordion.service;
+
+import com.accordion.model.ChatMessage;
+import com.accordion.repository.ChatMessageRepository;
+import com.accordion.storage.MessageArchive;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageCompactionServiceTest {
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @Mock
+    private MessageArchive messageArchive;
+
+    @InjectMocks
+    private MessageCompactionService compactionService;
+
+    private final LocalDateTime cutoff = LocalDateTime.of(2024, 1, 8, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(compactionService, "batchSize", 2);
+    }
+
+    @Test
+    void testCompact_DeletesOnlyArchivedRows() throws Exception {
+        ChatMessage archivedRow = message(10L);
+        ChatMessage olderIdRow = message(3L);
+        when(chatMessageRepository.findChannelIdsWithMessagesBefore(cutoff)).thenReturn(List.of(5L));
+        when(chatMessageRepository.findByChannelIdAndTimestampBeforeAndIdGreaterThanOrderByIdAsc(
+                eq(5L), eq(cutoff), eq(0L), any()))
+                .thenReturn(List.of(olderIdRow, archivedRow));
+        when(chatMessageRepository.findByChannelIdAndTimestampBeforeAndIdGreaterThanOrderByIdAsc(
+                eq(5L), eq(cutoff), eq(10L), any()))
+                .thenReturn(List.of());
+        when(messageArchive.append(5L, List.of(olderIdRow, archivedRow))).thenReturn(List.of(archivedRow));
+
+        int moved = compactionService.compact(cutoff);
+
+        assertEquals(1, moved);
+        verify(chatMessageRepository).deleteAllInBatch(List.of(archivedRow));
+    }
+
+    @Test
+    void testCompact_NothingArchivedDeletesNothing() throws Exception {
+        ChatMessage olderIdRow = message(3L);
+        when(chatMessageRepository.findChannelIdsWithMessagesBefore(cutoff)).thenReturn(List.of(5L));
+        when(chatMessageRepository.findByChannelIdAndTimestampBeforeAndIdGreaterThanOrderByIdAsc(
+                eq(5L), eq(cutoff), eq(0L), any()))
+                .thenReturn(List.of(olderIdRow));
+        when(messageArchive.append(5L, List.of(olderIdRow))).thenReturn(List.of());
+
+        assertEquals(0, compactionService.compact(cutoff));
+        verify(chatMessageRepository, never()).deleteAllInBatch(any());
+    }
+
+    private static ChatMessage message(Long id) {
+        ChatMessage message = new ChatMessage("alice", "message " + id, 5L);
+        message.setId(id);
+        return message;
+    }
+}
@@ -0,0 +1,202 @@
+package com.accordion.service;
+
+import com.accordion.model.Channel;
+import com.accordion.repository.ChannelRepository;
+import com.accordion.repository.ChatMessageRepository;
+import com.accordion.search.MessageSearchIndex;
+import com.accordion.storage.MessageArchive;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageRetentionServiceTest {
+
+    @Mock
+    private ChannelRepository channelRepository;
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @Mock
+    private MessageArchive messageArchive;
+
+    @Mock
+    private MessageSearchIndex messageSearchIndex;
+
+    @Mock
+    private RecentMessageCache recentMessageCache;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private MessageRetentionService retentionService;
+
+    private Channel channel;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(retentionService, "batchSize", 2);
+        ReflectionTestUtils.setField(retentionService, "batchPauseMs", 0L);
+        channel = new Channel("busy", "Busy channel", "alice");
+        channel.setId(5L);
+    }
+
+    @Test
+    void testPurgeChannel_MaxAgeDeletesInKeysetBatches() throws Exception {
+        channel.setRetentionMaxAgeDays(7);
+        LocalDateTime now = LocalDateTime.of(2024, 6, 10, 12, 0);
+        LocalDateTime cutoff = now.minusDays(7);
+
+        when(chatMessageRepository.findIdsOlderThan(eq(5L), eq(0L), eq(cutoff), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L));
+        when(chatMessageRepository.findIdsOlderThan(eq(5L), eq(2L), eq(cutoff), any(Pageable.class)))
+                .thenReturn(List.of(3L));
+
+        long purged = retentionService.purgeChannel(channel, now);
+
+        assertEquals(3, purged);
+        verify(chatMessageRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(chatMessageRepository).deleteAllByIdInBatch(List.of(3L));
+        verify(messageSearchIndex).remove(3L);
+        verify(recentMessageCache).remove(5L, List.of(3L));
+        verify(chatMessageRepository, times(2))
+                .findIdsOlderThan(eq(5L), anyLong(), eq(cutoff), argThat(p -> p.getPageSize() == 2));
+        assertEquals(3.0, meterRegistry.counter(MessageRetentionService.METRIC_DELETED,
+                "reason", "age", "dryRun", "false").count());
+        assertEquals(2.0, meterRegistry.counter(MessageRetentionService.METRIC_BATCHES).count());
+    }
+
+    @Test
+    void testPurgeChannel_MaxCountDeletesEverythingUpToBoundary() throws Exception {
+        channel.setRetentionMaxMessages(100);
+
+        when(chatMessageRepository.findIdsNewestFirst(eq(5L), argThat(p -> p.getOffset() == 100 && p.getPageSize() == 1)))
+                .thenReturn(List.of(40L));
+        when(chatMessageRepository.findIdsUpTo(eq(5L), eq(0L), eq(40L), any(Pageable.class)))
+                .thenReturn(List.of(38L, 39L));
+        when(chatMessageRepository.findIdsUpTo(eq(5L), eq(39L), eq(40L), any(Pageable.class)))
+                .thenReturn(List.of(40L));
+
+        long purged = retentionService.purgeChannel(channel, LocalDateTime.now());
+
+        assertEquals(3, purged);
+        verify(chatMessageRepository).deleteAllByIdInBatch(List.of(38L, 39L));
+        verify(chatMessageRepository).deleteAllByIdInBatch(List.of(40L));
+    }
+
+    @Test
+    void testPurgeChannel_MaxCountUnderLimitDeletesNothing() throws Exception {
+        channel.setRetentionMaxMessages(100);
+        when(chatMessageRepository.findIdsNewestFirst(eq(5L), any(Pageable.class))).thenReturn(List.of());
+
+        assertEquals(0, retentionService.purgeChannel(channel, LocalDateTime.now()));
+        verify(chatMessageRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void testPurgeChannel_DryRunCountsWithoutDeleting() throws Exception {
+        ReflectionTestUtils.setField(retentionService, "dryRun", true);
+        channel.setRetentionMaxAgeDays(1);
+
+        when(chatMessageRepository.findIdsOlderThan(eq(5L), eq(0L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L));
+        when(chatMessageRepository.findIdsOlderThan(eq(5L), eq(2L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        long purged = retentionService.purgeChannel(channel, LocalDateTime.now());
+
+        assertEquals(2, purged);
+        verify(chatMessageRepository, never()).deleteAllByIdInBatch(any());
+        verify(messageArchive).purgeOlderThan(eq(5L), any(LocalDateTime.class), eq(true), any());
+        assertEquals(2.0, meterRegistry.counter(MessageRetentionService.METRIC_DELETED,
+                "reason", "age", "dryRun", "true").count());
+    }
+
+    @Test
+    void testPurgeAll_OnlyVisitsChannelsWithPolicies() throws Exception {
+        channel.setRetentionMaxAgeDays(30);
+        when(channelRepository.findByRetentionMaxAgeDaysIsNotNullOrRetentionMaxMessagesIsNotNull())
+                .thenReturn(List.of(channel));
+        when(chatMessageRepository.findIdsOlderThan(eq(5L), anyLong(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        assertEquals(0, retentionService.purgeAll());
+        assertEquals(1, meterRegistry.timer(MessageRetentionService.METRIC_RUN, "dryRun", "false").count());
+    }
+
+    @Test
+    void testRetentionChanged_HidesArchivedMessagesPastTheNewMaxAge() {
+        channel.setRetentionMaxAgeDays(1);
+
+        retentionService.retentionChanged(channel);
+
+        verify(messageArchive).setExpiredBefore(eq(5L), notNull());
+    }
+
+    @Test
+    void testRetentionChanged_WithoutMaxAgeHidesNothing() {
+        channel.setRetentionMaxMessages(100);
+
+        retentionService.retentionChanged(channel);
+
+        verify(messageArchive).setExpiredBefore(5L, null);
+    }
+
+    @Test
+    void testPurgeDeletedChannel_RemovesEverythingEvenInDryRun() throws Exception {
+        ReflectionTestUtils.setField(retentionService, "dryRun", true);
+        when(chatMessageRepository.findIdsUpTo(eq(5L), eq(0L), eq(Long.MAX_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L));
+        when(chatMessageRepository.findIdsUpTo(eq(5L), eq(2L), eq(Long.MAX_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(3L));
+        when(messageArchive.purgeExceeding(eq(5L), eq(0L), eq(false), any())).thenAnswer(invocation -> {
+            invocation.<LongConsumer>getArgument(3).accept(42L);
+            return 10L;
+        });
+
+        long purged = retentionService.purgeDeletedChannel(5L);
+
+        assertEquals(13, purged);
+        verify(chatMessageRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(chatMessageRepository).deleteAllByIdInBatch(List.of(3L));
+        verify(messageSearchIndex).remove(1L);
+        verify(messageSearchIndex).remove(42L);
+        verify(recentMessageCache).invalidate(5L);
+        assertEquals(13.0, meterRegistry.counter(MessageRetentionService.METRIC_DELETED,
+                "reason", "channel", "dryRun", "false").count());
+    }
+
+    @Test
+    void testPurgeDeletedChannelLater_RunsInTheBackgroundAndSurvivesFailure() throws Exception {
+        when(chatMessageRepository.findIdsUpTo(eq(5L), eq(0L), eq(Long.MAX_VALUE), any(Pageable.class)))
+                .thenThrow(new IllegalStateException("database down"));
+        when(chatMessageRepository.findIdsUpTo(eq(6L), eq(0L), eq(Long.MAX_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(1L));
+
+        retentionService.purgeDeletedChannelLater(5L).get(5, TimeUnit.SECONDS);
+        retentionService.purgeDeletedChannelLater(6L).get(5, TimeUnit.SECONDS);
+
+        verify(chatMessageRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(recentMessageCache).invalidate(6L);
+        retentionService.shutdown();
+    }
+}
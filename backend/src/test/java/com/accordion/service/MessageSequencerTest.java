@@ -0,0 +1,62 @@
+package com.accordion.service;
+
+import com.accordion.repository.ChatMessageRepository;
+import com.accordion.storage.MessageArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageSequencerTest {
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @Mock
+    private MessageArchive messageArchive;
+
+    @InjectMocks
+    private MessageSequencer sequencer;
+
+    @Test
+    void testNext_SeedsFromHighestStoredSequence() {
+        when(chatMessageRepository.findMaxSeqByChannelId(3L)).thenReturn(41L);
+        when(messageArchive.getLastSeq(3L)).thenReturn(12L);
+
+        assertEquals(42L, sequencer.<Long>next(3L, seq -> seq));
+        assertEquals(43L, sequencer.<Long>next(3L, seq -> seq));
+        assertEquals(43L, sequencer.current(3L));
+        verify(chatMessageRepository, times(1)).findMaxSeqByChannelId(3L);
+    }
+
+    @Test
+    void testNext_SeedsFromArchiveWhenHotTierIsEmpty() {
+        when(chatMessageRepository.findMaxSeqByChannelId(4L)).thenReturn(null);
+        when(messageArchive.getLastSeq(4L)).thenReturn(9L);
+
+        assertEquals(10L, sequencer.<Long>next(4L, seq -> seq));
+    }
+
+    @Test
+    void testNext_FailedActionDoesNotConsumeSequence() {
+        when(chatMessageRepository.findMaxSeqByChannelId(5L)).thenReturn(null);
+
+        assertThrows(IllegalStateException.class, () -> sequencer.<Long>next(5L, seq -> {
+            throw new IllegalStateException("insert failed");
+        }));
+        assertEquals(1L, sequencer.<Long>next(5L, seq -> seq));
+    }
+
+    @Test
+    void testReserve_AdvancesByCount() {
+        when(chatMessageRepository.findMaxSeqByChannelId(6L)).thenReturn(2L);
+
+        assertEquals(3L, sequencer.<Long>reserve(6L, 10, first -> first));
+        assertEquals(13L, sequencer.<Long>next(6L, seq -> seq));
+    }
+}
@@ -0,0 +1,85 @@
+package com.accordion.service;
+
+import com.accordion.model.ChatMessage;
+import com.accordion.repository.ChatMessageRepository;
+import com.accordion.search.MessageSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trips a channel through NDJSON export and import against the embedded database.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "jwt.secret=TestSecretKeyForIntegrationTestsMinimum32BytesRequired",
+    "app.transfer.import-batch-size=2"
+})
+class MessageTransferServiceIntegrationTest {
+
+    @Autowired
+    private MessageTransferService messageTransferService;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private MessageSearchIndex messageSearchIndex;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Test
+    void exportThenImport_copiesHistoryIntoAnotherChannel() throws Exception {
+        LocalDateTime base = LocalDateTime.of(2023, 5, 1, 8, 30, 15);
+        for (int i = 0; i < 5; i++) {
+            ChatMessage message = new ChatMessage("user" + i, "exported line " + i, 901L);
+            message.setTimestamp(base.plusMinutes(i));
+            chatMessageRepository.save(message);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(5, messageTransferService.exportChannel(901L, out));
+        String exported = out.toString(StandardCharsets.UTF_8);
+        assertEquals(5, exported.lines().count());
+
+        String input = exported + "not json\n\n{\"username\":\"x\",\"content\":\"too short a name\"}\n";
+        MessageTransferService.ImportResult result = messageTransferService.importChannel(902L,
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(5, result.imported());
+        assertEquals(2, result.skipped());
+        List<ChatMessage> copied = chatMessageRepository.findByChannelIdOrderByTimestampDesc(902L, PageRequest.of(0, 10));
+        assertEquals(5, copied.size());
+        assertEquals("exported line 4", copied.get(0).getContent());
+        assertEquals(base.plusMinutes(4), copied.get(0).getTimestamp());
+        assertEquals(5, messageSearchIndex.search("exported", 902L, null, null, null, 10).size());
+    }
+
+    @Test
+    void import_isLeftOutOfSequenceResume() throws Exception {
+        ChatMessage before = chatService.saveMessage("alice", "live before", 903L);
+        String input = "{\"username\":\"bob\",\"content\":\"old one\",\"timestamp\":\"2020-01-01T00:00:00\"}\n"
+                + "{\"username\":\"bob\",\"content\":\"old two\",\"timestamp\":\"2020-01-01T00:01:00\"}\n";
+        messageTransferService.importChannel(903L, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+        ChatMessage after = chatService.saveMessage("alice", "live after", 903L);
+
+        assertEquals(before.getSeq() + 1, after.getSeq());
+        assertEquals(after.getSeq(), chatService.getLatestSeq(903L));
+        List<ChatMessage> gap = chatService.getMessagesAfterSeq(903L, before.getSeq(), 10);
+        assertEquals(List.of("live after"), gap.stream().map(ChatMessage::getContent).toList());
+        assertTrue(chatMessageRepository.findByChannelIdOrderByTimestampDesc(903L, PageRequest.of(0, 10)).stream()
+                .filter(message -> message.getUsername().equals("bob"))
+                .allMatch(message -> message.getSeq() == null));
+    }
+}
@@ -0,0 +1,111 @@
+package com.accordion.service;
+
+import com.accordion.model.ChatMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentMessageCacheTest {
+
+    private RecentMessageCache cache;
+
+    private static ChatMessage message(long id) {
+        ChatMessage message = new ChatMessage("user", "message " + id, 7L);
+        message.setId(id);
+        message.setSeq(id + 100);
+        return message;
+    }
+
+    private static List<ChatMessage> messages(long fromId, long toId) {
+        List<ChatMessage> result = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            result.add(message(id));
+        }
+        return result;
+    }
+
+    private static List<Long> ids(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getId).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cache = new RecentMessageCache();
+        ReflectionTestUtils.setField(cache, "capacity", 5);
+    }
+
+    @Test
+    void testGetAfter_MissUntilLoaded() {
+        cache.record(message(10));
+
+        assertNull(cache.getAfter(7L, 0, 3));
+    }
+
+    @Test
+    void testLoad_MergesMessagesRecordedBeforeLoad() {
+        cache.record(message(4));
+        cache.load(7L, messages(1, 3), true);
+
+        assertEquals(List.of(2L, 3L, 4L), ids(cache.getAfter(7L, 0, 3)));
+    }
+
+    @Test
+    void testRecord_TrimsToCapacity() {
+        cache.load(7L, messages(1, 3), true);
+        for (long id = 4; id <= 8; id++) {
+            cache.record(message(id));
+        }
+
+        assertEquals(List.of(4L, 5L, 6L, 7L, 8L), ids(cache.getAfter(7L, 0, 5)));
+        // Trimmed history can no longer answer for older ranges
+        assertNull(cache.getAfter(7L, 0, 10));
+        assertNull(cache.getAfter(7L, 2, 10));
+        assertEquals(List.of(6L, 7L, 8L), ids(cache.getAfter(7L, 5, 10)));
+    }
+
+    @Test
+    void testGetAfter_CompleteChannelAnswersAnyRange() {
+        cache.load(7L, messages(1, 3), true);
+
+        assertEquals(List.of(1L, 2L, 3L), ids(cache.getAfter(7L, 0, 50)));
+        assertTrue(cache.getAfter(7L, 3, 50).isEmpty());
+    }
+
+    @Test
+    void testRemoveAndInvalidate() {
+        cache.load(7L, messages(1, 3), true);
+        cache.remove(7L, List.of(2L));
+
+        assertEquals(List.of(1L, 3L), ids(cache.getAfter(7L, 0, 50)));
+
+        cache.invalidate(7L);
+        assertNull(cache.getAfter(7L, 0, 50));
+    }
+
+    @Test
+    void testGetAfterSeq() {
+        cache.load(7L, messages(1, 5), false);
+
+        assertEquals(List.of(4L, 5L), ids(cache.getAfterSeq(7L, 103, 10)));
+        assertTrue(cache.getAfterSeq(7L, 105, 10).isEmpty());
+        // Older than the window of an incomplete channel
+        assertNull(cache.getAfterSeq(7L, 50, 10));
+    }
+
+    @Test
+    void testGetAfterSeq_SkipsMessagesWithoutSequence() {
+        List<ChatMessage> window = messages(1, 5);
+        // Imported between live messages 2 and 5
+        window.get(2).setSeq(null);
+        window.get(3).setSeq(null);
+        cache.load(7L, window, true);
+
+        assertEquals(List.of(2L, 5L), ids(cache.getAfterSeq(7L, 101, 10)));
+        assertEquals(List.of(1L, 2L, 5L), ids(cache.getAfterSeq(7L, 0, 10)));
+    }
+}
@@ -0,0 +1,276 @@
+package com.accordion.storage;
+
+import com.accordion.model.ChatMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChannelArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<ChatMessage> messages(long fromId, long toId) {
+        List<ChatMessage> result = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123456789);
+        for (long id = fromId; id <= toId; id++) {
+            ChatMessage message = new ChatMessage("user" + (id % 3), "message " + id, 7L);
+            message.setId(id);
+            message.setSeq(id * 2);
+            message.setTimestamp(base.plusSeconds(id));
+            result.add(message);
+        }
+        return result;
+    }
+
+    /**
+     * A block as written before segments had a version header: no file header, and records
+     * without a sequence number.
+     */
+    private static byte[] version1Block(List<ChatMessage> messages) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(raw)) {
+            for (ChatMessage message : messages) {
+                out.writeLong(message.getId());
+                out.writeLong(message.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(message.getTimestamp().getNano());
+                out.writeUTF(message.getUsername());
+                out.writeUTF(message.getContent());
+            }
+        }
+        Deflater deflater = new Deflater();
+        deflater.setInput(raw.toByteArray());
+        deflater.finish();
+        byte[] compressed = new byte[raw.size() + 64];
+        int length = deflater.deflate(compressed);
+        deflater.end();
+
+        ChatMessage first = messages.get(0);
+        ChatMessage last = messages.get(messages.size() - 1);
+        return ByteBuffer.allocate(SegmentBlock.HEADER_SIZE + length)
+                .putInt(length)
+                .putInt(raw.size())
+                .putInt(messages.size())
+                .putLong(first.getId())
+                .putLong(last.getId())
+                .putLong(first.getTimestamp().toEpochSecond(ZoneOffset.UTC))
+                .putLong(last.getTimestamp().toEpochSecond(ZoneOffset.UTC))
+                .put(compressed, 0, length)
+                .array();
+    }
+
+    @Test
+    void testAppendAndReadBefore() throws IOException {
+        try (ChannelArchive archive = new ChannelArchive(7L, tempDir, 1024 * 1024)) {
+            assertEquals(10, archive.append(messages(1, 10)).size());
+            assertEquals(10, archive.append(messages(11, 20)).size());
+
+            List<ChatMessage> result = archive.readBefore(15, 8);
+
+            assertEquals(8, result.size());
+            assertEquals(7L, result.get(0).getId());
+            assertEquals(14L, result.get(7).getId());
+            assertEquals("message 14", result.get(7).getContent());
+            assertEquals(7L, result.get(7).getChannelId());
+            assertEquals(28L, result.get(7).getSeq());
+            assertEquals(40L, archive.getLastSeq());
+            assertEquals(LocalDateTime.of(2024, 1, 1, 12, 0, 14, 123456789), result.get(7).getTimestamp());
+        }
+    }
+
+    @Test
+    void testReadBefore_ReturnsEverythingWhenLimitExceedsArchive() throws IOException {
+        try (ChannelArchive archive = new ChannelArchive(7L, tempDir, 1024 * 1024)) {
+            archive.append(messages(1, 5));
+
+            List<ChatMessage> result = archive.readBefore(Long.MAX_VALUE, 50);
+
+            assertEquals(5, result.size());
+            assertEquals(1L, result.get(0).getId());
+            assertEquals(5L, result.get(4).getId());
+        }
+    }
+
+    @Test
+    void testAppend_SkipsAlreadyArchivedIds() throws IOException {
+        try (ChannelArchive archive = new ChannelArchive(7L, tempDir, 1024 * 1024)) {
+            archive.append(messages(1, 10));
+
+            // Retried rows count as archived but are not written twice
+            assertEquals(6, archive.append(messages(5, 10)).size());
+            assertEquals(4, archive.append(messages(9, 12)).size());
+            assertEquals(12L, archive.getLastId());
+            assertEquals(12, archive.readBefore(Long.MAX_VALUE, 100).size());
+        }
+    }
+
+    @Test
+    void testAppend_LeavesOutIdsOlderThanTheArchive() throws IOException {
+        try (ChannelArchive archive = new ChannelArchive(7L, tempDir, 1024 * 1024)) {
+            archive.append(messages(1, 5));
+            archive.append(messages(10, 12));
+
+            List<ChatMessage> archived = archive.append(messages(7, 7));
+
+            assertTrue(archived.isEmpty());
+            assertTrue(archive.findById(7L).isEmpty());
+            assertEquals(8, archive.readBefore(Long.MAX_VALUE, 100).size());
+        }
+    }
+
+    @Test
+    void testSegmentsRollAndSurviveReopen() throws IOException {
+        try (ChannelArchive archive = new ChannelArchive(7L, tempDir, 1)) {
+            archive.append(messages(1, 10));
+            archive.append(messages(11, 20));
+            archive.append(messages(21, 30));
+        }
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(3, files.count());
+        }
+
+        try (ChannelArchive reopened = new ChannelArchive(7L, tempDir, 1)) {
+            assertEquals(30L, reopened.getLastId());
+            List<ChatMessage> result = reopened.readBefore(Long.MAX_VALUE, 25);
+            assertEquals(25, result.size());
+            assertEquals(6L, result.get(0).getId());
+            assertEquals(30L, result.get(24).getId());
+        }
+    }
+
+    @Test
+    void testReopen_TruncatesPartiallyWrittenBlock() throws IOException {
+        Path segmentFile;
+        try (ChannelArchive archive = new ChannelArchive(7L, tempDir, 1024 * 1024)) {
+            archive.append(messages(1, 10));
+        }
+        try (Stream<Path> files = Files.list(tempDir)) {
+            segmentFile = files.findFirst().orElseThrow();
+        }
+        long validSize = Files.size(segmentFile);
+        Files.write(segmentFile, new byte[] {0, 0, 1, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        try (ChannelArchive reopened = new ChannelArchive(7L, tempDir, 1024 * 1024)) {
+            assertEquals(10, reopened.readBefore(Long.MAX_VALUE, 100).size());
+            assertEquals(1, reopened.append(messages(11, 11)).size());
+            assertEquals(11, reopened.readBefore(Long.MAX_VALUE, 100).size());
+        }
+        assertTrue(Files.size(segmentFile) > validSize);
+    }
+
+    @Test
+    void testReadsVersion1SegmentsAndAppendsToANewOne() throws IOException {
+        Path legacyFile = tempDir.resolve(String.format("segment-%020d.seg", 1));
+        Files.write(legacyFile, version1Block(messages(1, 3)));
+
+        try (ChannelArchive archive = new ChannelArchive(7L, tempDir, 1024 * 1024)) {
+            List<ChatMessage> legacy = archive.readBefore(Long.MAX_VALUE, 100);
+            assertEquals(3, legacy.size());
+            assertEquals("message 2", legacy.get(1).getContent());
+            assertNull(legacy.get(1).getSeq());
+            assertEquals(LocalDateTime.of(2024, 1, 1, 12, 0, 2, 123456789), legacy.get(1).getTimestamp());
+
+            assertEquals(2, archive.append(messages(4, 5)).size());
+        }
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(2, files.count());
+        }
+        try (ChannelArchive reopened = new ChannelArchive(7L, tempDir, 1024 * 1024)) {
+            List<ChatMessage> all = reopened.readBefore(Long.MAX_VALUE, 100);
+            assertEquals(5, all.size());
+            assertNull(all.get(2).getSeq());
+            assertEquals(10L, all.get(4).getSeq());
+            assertEquals(2L, reopened.findById(2).orElseThrow().getId());
+        }
+    }
+
+    @Test
+    void testUnsupportedSegmentVersionFailsToOpen() throws IOException {
+        Path segmentFile;
+        try (ChannelArchive archive = new ChannelArchive(7L, tempDir, 1024 * 1024)) {
+            archive.append(messages(1, 2));
+        }
+        try (Stream<Path> files = Files.list(tempDir)) {
+            segmentFile = files.findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(segmentFile);
+        bytes[4] = 99;
+        Files.write(segmentFile, bytes);
+
+        assertThrows(IOException.class, () -> new ChannelArchive(7L, tempDir, 1024 * 1024));
+    }
+
+    @Test
+    void testDropSegmentsOlderThan() throws IOException {
+        try (ChannelArchive archive = new ChannelArchive(7L, tempDir, 1)) {
+            archive.append(messages(1, 10));
+            archive.append(messages(11, 20));
+            long cutoff = messages(15, 15).get(0).getTimestamp().toEpochSecond(ZoneOffset.UTC);
+
+            List<Long> removed = new ArrayList<>();
+
+            assertEquals(10, archive.dropSegmentsOlderThan(cutoff, true, removed::add));
+            assertEquals(20, archive.countMessages());
+            assertTrue(removed.isEmpty());
+
+            assertEquals(10, archive.dropSegmentsOlderThan(cutoff, false, removed::add));
+            assertEquals(10, archive.countMessages());
+            assertEquals(LongStream.rangeClosed(1, 10).boxed().toList(), removed);
+            assertEquals(15L, archive.readBefore(Long.MAX_VALUE, 100).get(0).getId());
+        }
+    }
+
+    @Test
+    void testDropSegmentsOlderThan_HidesExpiredMessagesOfKeptSegments() throws IOException {
+        try (ChannelArchive archive = new ChannelArchive(7L, tempDir, 1024 * 1024)) {
+            archive.append(messages(1, 10));
+            archive.append(messages(11, 20));
+            long cutoff = messages(15, 15).get(0).getTimestamp().toEpochSecond(ZoneOffset.UTC);
+
+            assertEquals(0, archive.dropSegmentsOlderThan(cutoff, true, id -> { }));
+            assertEquals(20, archive.readBefore(Long.MAX_VALUE, 100).size());
+
+            assertEquals(0, archive.dropSegmentsOlderThan(cutoff, false, id -> { }));
+            assertEquals(LongStream.rangeClosed(15, 20).boxed().toList(),
+                    archive.readBefore(Long.MAX_VALUE, 100).stream().map(ChatMessage::getId).toList());
+            assertTrue(archive.readBefore(15, 100).isEmpty());
+            assertTrue(archive.findById(3).isEmpty());
+            assertTrue(archive.findById(16).isPresent());
+            List<Long> visited = new ArrayList<>();
+            archive.forEach(message -> visited.add(message.getId()));
+            assertEquals(LongStream.rangeClosed(15, 20).boxed().toList(), visited);
+            assertEquals(40, archive.getLastSeq());
+
+            archive.setExpiredBefore(Long.MIN_VALUE);
+            assertEquals(20, archive.readBefore(Long.MAX_VALUE, 100).size());
+        }
+    }
+
+    @Test
+    void testDropSegmentsExceeding_KeepsAtLeastRequestedCount() throws IOException {
+        try (ChannelArchive archive = new ChannelArchive(7L, tempDir, 1)) {
+            archive.append(messages(1, 10));
+            archive.append(messages(11, 20));
+            archive.append(messages(21, 30));
+
+            assertEquals(10, archive.dropSegmentsExceeding(15, false, id -> { }));
+            assertEquals(20, archive.countMessages());
+        }
+    }
+}
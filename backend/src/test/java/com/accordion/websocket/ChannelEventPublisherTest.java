@@ -0,0 +1,47 @@
+package com.accordion.websocket;
+
+import com.accordion.dto.ChannelSummary;
+import com.accordion.model.Channel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChannelEventPublisherTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @InjectMocks
+    private ChannelEventPublisher publisher;
+
+    @Test
+    void testPublishesSummaryWithEventType() {
+        Channel channel = new Channel("random", "Random stuff", "alice");
+        channel.setId(7L);
+        channel.setRetentionMaxAgeDays(30);
+
+        publisher.created(channel);
+        publisher.deleted(channel);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> event = ArgumentCaptor.forClass(Map.class);
+        verify(messagingTemplate, times(2)).convertAndSend(eq(ChannelEventPublisher.CHANNELS_TOPIC), event.capture());
+        assertEquals("created", event.getAllValues().get(0).get("type"));
+        assertEquals("deleted", event.getAllValues().get(1).get("type"));
+        ChannelSummary summary = (ChannelSummary) event.getAllValues().get(0).get("channel");
+        assertEquals(7L, summary.getId());
+        assertEquals("random", summary.getName());
+        assertEquals("Random stuff", summary.getDescription());
+    }
+}
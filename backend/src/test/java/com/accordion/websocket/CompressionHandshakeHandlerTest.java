@@ -0,0 +1,57 @@
+package com.accordion.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.WebSocketExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class CompressionHandshakeHandlerTest {
+
+    private static final List<WebSocketExtension> OFFERED =
+            List.of(new WebSocketExtension(CompressionHandshakeHandler.PERMESSAGE_DEFLATE));
+
+    private CompressionHandshakeHandler handler;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        handler = new CompressionHandshakeHandler();
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(handler, "meterRegistry", meterRegistry);
+    }
+
+    private double handshakes(boolean compressed) {
+        return meterRegistry.counter(CompressionHandshakeHandler.METRIC_HANDSHAKES,
+                "compression", String.valueOf(compressed)).count();
+    }
+
+    @Test
+    void testAcceptsDeflateWhenEnabled() {
+        ReflectionTestUtils.setField(handler, "compressionEnabled", true);
+
+        List<WebSocketExtension> accepted = handler.filterRequestedExtensions(mock(ServerHttpRequest.class),
+                OFFERED, OFFERED);
+
+        assertEquals(OFFERED, accepted);
+        assertEquals(1.0, handshakes(true));
+        assertEquals(0.0, handshakes(false));
+    }
+
+    @Test
+    void testDropsDeflateWhenDisabled() {
+        ReflectionTestUtils.setField(handler, "compressionEnabled", false);
+
+        List<WebSocketExtension> accepted = handler.filterRequestedExtensions(mock(ServerHttpRequest.class),
+                OFFERED, OFFERED);
+
+        assertTrue(accepted.isEmpty());
+        assertEquals(1.0, handshakes(false));
+    }
+}
@@ -0,0 +1,93 @@
+package com.accordion.websocket;
+
+import com.accordion.model.DirectMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpSubscription;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DirectMessageDeliveryTest {
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private SimpUserRegistry simpUserRegistry;
+
+    @Mock
+    private MessageChannel clientOutboundChannel;
+
+    @InjectMocks
+    private DirectMessageDelivery delivery;
+
+    private static SimpSubscription subscription(String id, String destination) {
+        SimpSubscription subscription = mock(SimpSubscription.class);
+        lenient().when(subscription.getId()).thenReturn(id);
+        when(subscription.getDestination()).thenReturn(destination);
+        return subscription;
+    }
+
+    private static SimpSession session(String id, SimpSubscription... subscriptions) {
+        SimpSession session = mock(SimpSession.class);
+        lenient().when(session.getId()).thenReturn(id);
+        when(session.getSubscriptions()).thenReturn(Set.of(subscriptions));
+        return session;
+    }
+
+    private void online(String username, SimpSession... sessions) {
+        SimpUser user = mock(SimpUser.class);
+        when(user.getSessions()).thenReturn(Set.of(sessions));
+        when(simpUserRegistry.getUser(username)).thenReturn(user);
+    }
+
+    @Test
+    void testDeliversOnlyToDmSubscriptionsOfBothUsers() {
+        online("bob", session("b1", subscription("1", "/user/queue/dm"), subscription("2", "/topic/messages/1")));
+        online("alice", session("a1", subscription("7", "/user/queue/dm")));
+        DirectMessage message = new DirectMessage("alice", "bob", "hi");
+        message.setId(3L);
+
+        assertEquals(1, delivery.deliver(message));
+
+        ArgumentCaptor<Message<?>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(clientOutboundChannel, times(2)).send(sent.capture());
+        List<String> targets = sent.getAllValues().stream()
+                .map(StompHeaderAccessor::wrap)
+                .peek(accessor -> assertEquals(StompCommand.MESSAGE, accessor.getCommand()))
+                .map(accessor -> accessor.getSessionId() + "/" + accessor.getSubscriptionId())
+                .sorted()
+                .toList();
+        assertEquals(List.of("a1/7", "b1/1"), targets);
+        String body = new String((byte[]) sent.getValue().getPayload());
+        assertTrue(body.contains("\"content\":\"hi\""));
+    }
+
+    @Test
+    void testOfflineRecipientReceivesNothing() {
+        DirectMessage message = new DirectMessage("alice", "bob", "hi");
+
+        assertEquals(0, delivery.deliver(message));
+
+        verify(clientOutboundChannel, never()).send(any());
+    }
+}
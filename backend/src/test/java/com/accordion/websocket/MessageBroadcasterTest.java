@@ -0,0 +1,101 @@
+package com.accordion.websocket;
+
+import com.accordion.model.Channel;
+import com.accordion.model.ChatMessage;
+import com.accordion.repository.ChannelRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageBroadcasterTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private ChannelRepository channelRepository;
+
+    @Mock
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @InjectMocks
+    private MessageBroadcaster broadcaster;
+
+    private static ChatMessage message(long id) {
+        ChatMessage message = new ChatMessage("alice", "message " + id, 3L);
+        message.setId(id);
+        return message;
+    }
+
+    @Test
+    void testSendsImmediatelyWithoutWindow() {
+        when(channelRepository.findById(3L)).thenReturn(Optional.of(new Channel("busy", null, "alice")));
+        ChatMessage message = message(1);
+
+        broadcaster.broadcast(3L, "/topic/messages/3", message);
+
+        verify(messagingTemplate).convertAndSend("/topic/messages/3", (Object) message);
+        verifyNoInteractions(messageBrokerTaskScheduler);
+    }
+
+    @Test
+    void testCoalescesMessagesWithinWindow() {
+        Channel channel = new Channel("busy", null, "alice");
+        channel.setBroadcastWindowMs(10);
+        when(channelRepository.findById(3L)).thenReturn(Optional.of(channel));
+
+        broadcaster.broadcast(3L, "/topic/messages/3", message(2));
+        broadcaster.broadcast(3L, "/topic/messages/3", List.of(message(1), message(3)));
+
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(messageBrokerTaskScheduler, times(1)).schedule(flush.capture(), any(Instant.class));
+        verifyNoInteractions(messagingTemplate);
+
+        flush.getValue().run();
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/messages/3"), payload.capture());
+        @SuppressWarnings("unchecked")
+        List<ChatMessage> sent = (List<ChatMessage>) payload.getValue();
+        assertEquals(List.of(1L, 2L, 3L), sent.stream().map(ChatMessage::getId).toList());
+    }
+
+    @Test
+    void testSingleMessageInWindowIsSentAsObject() {
+        broadcaster.setWindow(3L, 10);
+        ChatMessage message = message(1);
+
+        broadcaster.broadcast(3L, "/topic/messages/3", message);
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(messageBrokerTaskScheduler).schedule(flush.capture(), any(Instant.class));
+        flush.getValue().run();
+
+        verify(messagingTemplate).convertAndSend("/topic/messages/3", (Object) message);
+        verifyNoInteractions(channelRepository);
+    }
+
+    @Test
+    void testDisablingWindowSendsImmediately() {
+        broadcaster.setWindow(3L, 10);
+        broadcaster.setWindow(3L, null);
+        ChatMessage message = message(1);
+
+        broadcaster.broadcast(3L, "/topic/messages/3", message);
+
+        verify(messagingTemplate).convertAndSend("/topic/messages/3", (Object) message);
+    }
+}
@@ -0,0 +1,169 @@
+package com.accordion.websocket;
+
+import com.accordion.model.Channel;
+import com.accordion.service.ChannelService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PresenceRegistryTest {
+
+    @Mock
+    private ChannelService channelService;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @InjectMocks
+    private PresenceRegistry registry;
+
+    private static Principal user(String name) {
+        return new UsernamePasswordAuthenticationToken(name, null);
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, String subscriptionId,
+                                         String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private void subscribe(String sessionId, String username, String subscriptionId, String destination) {
+        registry.onSubscribe(new SessionSubscribeEvent(this,
+                frame(StompCommand.SUBSCRIBE, sessionId, subscriptionId, destination), user(username)));
+    }
+
+    private void disconnect(String sessionId) {
+        registry.onDisconnect(new SessionDisconnectEvent(this,
+                frame(StompCommand.DISCONNECT, sessionId, null, null), sessionId, CloseStatus.NORMAL));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> flushAndCapture(long channelId) {
+        registry.flush(channelId);
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/presence/" + channelId), payload.capture());
+        return (Map<String, Object>) payload.getValue();
+    }
+
+    @Test
+    void testSubscribeMarksUserOnlineAndSchedulesOneFlush() {
+        subscribe("s1", "alice", "sub-1", "/topic/messages/3");
+        subscribe("s2", "bob", "sub-1", "/topic/messages/3");
+
+        assertEquals(List.of("alice", "bob"), registry.getOnlineUsers(3L));
+        verify(messageBrokerTaskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+
+        Map<String, Object> delta = flushAndCapture(3L);
+        assertEquals(List.of("alice", "bob"), delta.get("joined"));
+        assertEquals(List.of(), delta.get("left"));
+    }
+
+    @Test
+    void testOnlineUsersAreSortedAndModifiable() {
+        subscribe("s1", "carol", "sub-1", "/topic/messages/3");
+        subscribe("s2", "alice", "sub-1", "/topic/messages/3");
+
+        List<String> online = registry.getOnlineUsers(3L);
+        assertEquals(List.of("alice", "carol"), online);
+        online.clear();
+
+        List<String> nobody = registry.getOnlineUsers(99L);
+        assertTrue(nobody.isEmpty());
+        nobody.add("bob");
+        assertTrue(registry.getOnlineUsers(99L).isEmpty());
+    }
+
+    @Test
+    void testUserStaysOnlineUntilLastSessionLeaves() {
+        subscribe("s1", "alice", "sub-1", "/topic/messages/3");
+        subscribe("s2", "alice", "sub-1", "/topic/messages/3");
+        registry.flush(3L);
+        clearInvocations(messagingTemplate);
+
+        disconnect("s1");
+        assertEquals(List.of("alice"), registry.getOnlineUsers(3L));
+
+        registry.onUnsubscribe(new SessionUnsubscribeEvent(this,
+                frame(StompCommand.UNSUBSCRIBE, "s2", "sub-1", null), user("alice")));
+        assertTrue(registry.getOnlineUsers(3L).isEmpty());
+        assertEquals(List.of("alice"), flushAndCapture(3L).get("left"));
+    }
+
+    @Test
+    void testLeaveAndRejoinWithinIntervalSendsNothing() {
+        subscribe("s1", "alice", "sub-1", "/topic/messages/3");
+        registry.flush(3L);
+        clearInvocations(messagingTemplate);
+
+        disconnect("s1");
+        subscribe("s2", "alice", "sub-1", "/topic/messages/3");
+        registry.flush(3L);
+
+        verifyNoInteractions(messagingTemplate);
+        assertEquals(List.of("alice"), registry.getOnlineUsers(3L));
+    }
+
+    @Test
+    void testDuplicateDisconnectIsIgnored() {
+        subscribe("s1", "alice", "sub-1", "/topic/messages/3");
+        subscribe("s2", "alice", "sub-1", "/topic/messages/3");
+
+        disconnect("s1");
+        disconnect("s1");
+
+        assertEquals(List.of("alice"), registry.getOnlineUsers(3L));
+        assertEquals(1, registry.getSessionCount());
+    }
+
+    @Test
+    void testLegacyTopicCountsAsDefaultChannel() {
+        Channel general = new Channel("general", null, "System");
+        general.setId(1L);
+        when(channelService.getOrCreateDefaultChannel()).thenReturn(general);
+
+        subscribe("s1", "alice", "sub-1", "/topic/messages");
+        subscribe("s2", "bob", "sub-1", "/topic/messages");
+
+        assertEquals(2, registry.getOnlineUsers(1L).size());
+        verify(channelService, times(1)).getOrCreateDefaultChannel();
+    }
+
+    @Test
+    void testOtherDestinationsAreIgnored() {
+        subscribe("s1", "alice", "sub-1", "/topic/typing/3");
+
+        assertTrue(registry.getOnlineUsers(3L).isEmpty());
+        verifyNoInteractions(messageBrokerTaskScheduler);
+    }
+}
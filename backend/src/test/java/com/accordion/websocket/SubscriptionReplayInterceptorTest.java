@@ -0,0 +1,199 @@
+package com.accordion.websocket;
+
+import com.accordion.model.Channel;
+import com.accordion.model.ChatMessage;
+import com.accordion.service.ChannelService;
+import com.accordion.service.ChatService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionReplayInterceptorTest {
+
+    @Mock
+    private ChatService chatService;
+
+    @Mock
+    private ChannelService channelService;
+
+    @Mock
+    private MessageChannel clientOutboundChannel;
+
+    @Mock
+    private SimpleBrokerMessageHandler brokerHandler;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @InjectMocks
+    private SubscriptionReplayInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(interceptor, "maxLimit", 100);
+        ReflectionTestUtils.setField(interceptor, "maxResume", 500);
+    }
+
+    private static Message<byte[]> resume(String destination, String seq) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId("session-1");
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(destination);
+        accessor.setNativeHeader("resume-from-seq", seq);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static ChatMessage sequenced(long id, long seq) {
+        ChatMessage message = new ChatMessage("alice", "message " + seq, 3L);
+        message.setId(id);
+        message.setSeq(seq);
+        return message;
+    }
+
+    private StompHeaderAccessor sentReplay() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Message<byte[]>> captor = ArgumentCaptor.forClass(Message.class);
+        verify(clientOutboundChannel).send(captor.capture());
+        return StompHeaderAccessor.wrap(captor.getValue());
+    }
+
+    private static Message<byte[]> subscribe(String destination, String since, String limit) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId("session-1");
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(destination);
+        if (since != null) {
+            accessor.setNativeHeader("since", since);
+        }
+        if (limit != null) {
+            accessor.setNativeHeader("limit", limit);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    @Test
+    void testReplaysHistoryAfterBrokerRegistersSubscription() {
+        ChatMessage message = new ChatMessage("alice", "hello", 3L);
+        message.setId(42L);
+        when(chatService.getMessagesAfter(3L, 40L, 20)).thenReturn(List.of(message));
+
+        interceptor.afterMessageHandled(subscribe("/topic/messages/3", "40", "20"), null, brokerHandler, null);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Message<byte[]>> captor = ArgumentCaptor.forClass(Message.class);
+        verify(clientOutboundChannel).send(captor.capture());
+        StompHeaderAccessor replay = StompHeaderAccessor.wrap(captor.getValue());
+        assertEquals(StompCommand.MESSAGE, replay.getCommand());
+        assertEquals("session-1", replay.getSessionId());
+        assertEquals("sub-0", replay.getSubscriptionId());
+        assertEquals("true", replay.getFirstNativeHeader("x-replay"));
+        String body = new String(captor.getValue().getPayload(), StandardCharsets.UTF_8);
+        assertTrue(body.startsWith("[{\"id\":42"));
+    }
+
+    @Test
+    void testLegacyTopicReplaysDefaultChannelAndCapsLimit() {
+        Channel general = new Channel("general", "General", "System");
+        general.setId(1L);
+        when(channelService.getOrCreateDefaultChannel()).thenReturn(general);
+        when(chatService.getMessagesAfter(1L, 0L, 100)).thenReturn(List.of());
+
+        interceptor.afterMessageHandled(subscribe("/topic/messages", null, "5000"), null, brokerHandler, null);
+
+        verify(clientOutboundChannel).send(any());
+    }
+
+    @Test
+    void testIgnoresPlainSubscriptionsAndOtherHandlers() {
+        interceptor.afterMessageHandled(subscribe("/topic/messages/3", null, null), null, brokerHandler, null);
+        interceptor.afterMessageHandled(subscribe("/topic/typing/3", null, "10"), null, brokerHandler, null);
+        interceptor.afterMessageHandled(subscribe("/topic/messages/3", null, "10"), null, mock(MessageHandler.class), null);
+
+        verifyNoInteractions(chatService, clientOutboundChannel);
+    }
+
+    @Test
+    void testInvalidHeadersSendEmptyErrorReplay() {
+        interceptor.afterMessageHandled(subscribe("/topic/messages/3", "abc", "10"), null, brokerHandler, null);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Message<byte[]>> captor = ArgumentCaptor.forClass(Message.class);
+        verify(clientOutboundChannel).send(captor.capture());
+        StompHeaderAccessor replay = StompHeaderAccessor.wrap(captor.getValue());
+        assertEquals("true", replay.getFirstNativeHeader("x-replay"));
+        assertEquals("true", replay.getFirstNativeHeader("x-replay-error"));
+        assertEquals("[]", new String(captor.getValue().getPayload(), StandardCharsets.UTF_8));
+        verifyNoInteractions(chatService);
+    }
+
+    @Test
+    void testStorageFailureStillSendsReplay() {
+        when(chatService.getMessagesAfter(3L, 0L, 10)).thenThrow(new IllegalStateException("database down"));
+
+        interceptor.afterMessageHandled(subscribe("/topic/messages/3", null, "10"), null, brokerHandler, null);
+
+        StompHeaderAccessor replay = sentReplay();
+        assertEquals("true", replay.getFirstNativeHeader("x-replay-error"));
+        assertNull(replay.getFirstNativeHeader("x-replay-reset"));
+    }
+
+    @Test
+    void testResumeReplaysOnlyTheGap() {
+        when(chatService.getLatestSeq(3L)).thenReturn(12L);
+        when(chatService.getMessagesAfterSeq(3L, 10L, 500)).thenReturn(List.of(sequenced(50, 11), sequenced(51, 12)));
+
+        interceptor.afterMessageHandled(resume("/topic/messages/3", "10"), null, brokerHandler, null);
+
+        StompHeaderAccessor replay = sentReplay();
+        assertEquals("true", replay.getFirstNativeHeader("x-replay"));
+        assertNull(replay.getFirstNativeHeader("x-replay-reset"));
+        verify(chatService, never()).getMessagesAfter(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void testResumeWithUnfillableGapSendsResetWindow() {
+        when(chatService.getLatestSeq(3L)).thenReturn(900L);
+        when(chatService.getMessagesAfterSeq(3L, 10L, 500)).thenReturn(List.of(sequenced(600, 401)));
+        when(chatService.getMessagesAfter(3L, 0L, 100)).thenReturn(List.of(sequenced(1099, 900)));
+
+        interceptor.afterMessageHandled(resume("/topic/messages/3", "10"), null, brokerHandler, null);
+
+        assertEquals("true", sentReplay().getFirstNativeHeader("x-replay-reset"));
+    }
+
+    @Test
+    void testResumeFromUnknownSeqSendsResetWindow() {
+        when(chatService.getLatestSeq(3L)).thenReturn(5L);
+        when(chatService.getMessagesAfter(3L, 0L, 100)).thenReturn(List.of());
+
+        interceptor.afterMessageHandled(resume("/topic/messages/3", "40"), null, brokerHandler, null);
+
+        assertEquals("true", sentReplay().getFirstNativeHeader("x-replay-reset"));
+        verify(chatService, never()).getMessagesAfterSeq(any(), anyLong(), anyInt());
+    }
+}
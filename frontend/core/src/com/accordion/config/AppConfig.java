@@ -8,12 +8,21 @@ public class AppConfig {
     
     // WebSocket Configuration
     // For production or remote servers, update this URL
-    // Example: ws://yourserver.com:8080/ws
-    private static final String DEFAULT_WEBSOCKET_URL = "ws://localhost:8080/ws";
+    // Example: ws://yourserver.com:8080/ws-native
+    // The native endpoint carries STOMP directly; /ws is the SockJS endpoint for browsers
+    private static final String DEFAULT_WEBSOCKET_URL = "ws://localhost:8080/ws-native";
     
     // Message Configuration
     public static final int MAX_MESSAGE_LENGTH = 1000;
     
+    // WebSocket Compression Configuration
+    // permessage-deflate pays off on slow links; frames below the threshold are sent as-is
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 256;
+    
+    // Chat Scrollback Configuration
+    private static final int DEFAULT_SCROLLBACK_SIZE = 1000;
+    private static final int MAX_SCROLLBACK_SIZE = 100000;
+    
     // Username Configuration
     public static final int MIN_USERNAME_LENGTH = 3;
     public static final int MAX_USERNAME_LENGTH = 50;
@@ -30,4 +39,44 @@ public class AppConfig {
         }
         return DEFAULT_WEBSOCKET_URL;
     }
+    
+    /**
+     * Get how many messages the chat screen keeps for scrolling back.
+     * Can be overridden by system property 'accordion.chat.scrollback' (1 to 100000)
+     */
+    public static int getScrollbackSize() {
+        String systemProperty = System.getProperty("accordion.chat.scrollback");
+        if (systemProperty != null && !systemProperty.isEmpty()) {
+            try {
+                return Math.max(1, Math.min(Integer.parseInt(systemProperty.trim()), MAX_SCROLLBACK_SIZE));
+            } catch (NumberFormatException e) {
+                // Fall back to the default below
+            }
+        }
+        return DEFAULT_SCROLLBACK_SIZE;
+    }
+    
+    /**
+     * Whether to offer permessage-deflate compression to the server.
+     * Can be disabled with system property 'accordion.websocket.compression=false'
+     */
+    public static boolean isCompressionEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty("accordion.websocket.compression"));
+    }
+    
+    /**
+     * Get the smallest outgoing message, in bytes, that is compressed.
+     * Can be overridden by system property 'accordion.websocket.compression.threshold'
+     */
+    public static int getCompressionThreshold() {
+        String systemProperty = System.getProperty("accordion.websocket.compression.threshold");
+        if (systemProperty != null && !systemProperty.isEmpty()) {
+            try {
+                return Math.max(0, Integer.parseInt(systemProperty.trim()));
+            } catch (NumberFormatException e) {
+                // Fall back to the default below
+            }
+        }
+        return DEFAULT_COMPRESSION_THRESHOLD;
+    }
 }
@@ -2,6 +2,8 @@ package com.accordion.screen;
 
 import com.accordion.AccordionGame;
 import com.accordion.config.AppConfig;
+import com.accordion.ui.ChatLine;
+import com.accordion.ui.MessageListView;
 import com.accordion.websocket.ChatWebSocketClient;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Screen;
@@ -11,14 +13,11 @@ import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.*;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
-import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 
 import java.net.URI;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.LocalTime;
 import java.util.logging.Logger;
 
 public class ChatScreen implements Screen {
@@ -31,22 +30,13 @@ public class ChatScreen implements Screen {
     private TextField messageField;
     private TextButton sendButton;
     private ScrollPane scrollPane;
-    private Table messagesTable;
+    private MessageListView messageList;
     private Label statusLabel;
     private ChatWebSocketClient webSocketClient;
-    private List<String> messages;
-    private static final int MAX_MESSAGES = 100;
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
-    
-    // For tracking consecutive duplicate messages
-    private String lastMessageUsername = null;
-    private String lastMessageContent = null;
-    private int lastMessageCount = 1;
 
     public ChatScreen(final AccordionGame game, String username) {
         this.game = game;
         this.username = username;
-        this.messages = new ArrayList<>();
     }
 
     @Override
@@ -69,9 +59,8 @@ public class ChatScreen implements Screen {
         statusLabel.setColor(Color.YELLOW);
 
         // Messages area
-        messagesTable = new Table();
-        messagesTable.top().left();
-        scrollPane = new ScrollPane(messagesTable, skin);
+        messageList = new MessageListView(skin, AppConfig.getScrollbackSize());
+        scrollPane = new ScrollPane(messageList, skin);
         scrollPane.setFadeScrollBars(false);
         scrollPane.setScrollingDisabled(true, false);
 
@@ -111,7 +100,8 @@ public class ChatScreen implements Screen {
             LOGGER.info("Connecting to WebSocket at: " + wsUrl);
             
             URI uri = new URI(wsUrl);
-            webSocketClient = new ChatWebSocketClient(uri);
+            webSocketClient = new ChatWebSocketClient(uri, AppConfig.isCompressionEnabled(),
+                    AppConfig.getCompressionThreshold());
             webSocketClient.setUsername(username);
             
             webSocketClient.addMessageListener(new ChatWebSocketClient.MessageListener() {
@@ -120,6 +110,19 @@ public class ChatScreen implements Screen {
                     Gdx.app.postRunnable(() -> addMessage(msgUsername, content, timestamp));
                 }
 
+                @Override
+                public void onHistoryReset() {
+                    Gdx.app.postRunnable(() -> clearMessages());
+                }
+
+                @Override
+                public void onReconnecting(int attempt, long delayMs) {
+                    Gdx.app.postRunnable(() -> {
+                        statusLabel.setText("Reconnecting (attempt " + attempt + ")...");
+                        statusLabel.setColor(Color.YELLOW);
+                    });
+                }
+
                 @Override
                 public void onConnectionStatusChanged(boolean connected) {
                     Gdx.app.postRunnable(() -> {
@@ -134,6 +137,7 @@ public class ChatScreen implements Screen {
                 }
             });
             
+            // A failed first attempt is retried by the client like any dropped connection
             webSocketClient.connect();
         } catch (Exception e) {
             String errorMsg = "Failed to connect to WebSocket: " + e.getMessage();
@@ -147,67 +151,29 @@ public class ChatScreen implements Screen {
         }
     }
 
+    private void clearMessages() {
+        messageList.clearLines();
+    }
+
     private void addMessage(String msgUsername, String content, String timestamp) {
-        // Format timestamp
-        String timeStr = "";
+        LocalTime time;
         try {
-            LocalDateTime dt = LocalDateTime.parse(timestamp);
-            timeStr = dt.format(TIME_FORMATTER);
+            time = LocalDateTime.parse(timestamp).toLocalTime();
         } catch (Exception e) {
             // If timestamp parsing fails, log and use current time
             LOGGER.warning("Failed to parse timestamp: " + timestamp + ", error: " + e.getMessage());
-            try {
-                timeStr = LocalDateTime.now().format(TIME_FORMATTER);
-            } catch (Exception ex) {
-                timeStr = "??:??:??";
-            }
+            time = LocalTime.now();
         }
 
         // Check if this is a consecutive duplicate message (same user and same content)
-        boolean isDuplicate = lastMessageUsername != null && 
-                              lastMessageUsername.equals(msgUsername) && 
-                              lastMessageContent != null && 
-                              lastMessageContent.equals(content);
-        
-        if (isDuplicate && !messages.isEmpty()) {
-            // Update the last message with incremented count
-            lastMessageCount++;
-            // Note: Format is " (x2)" for LibGDX, while webapp uses a styled badge.
-            // This difference is intentional: LibGDX uses plain text labels,
-            // while webapp can style a separate DOM element with colors/backgrounds.
-            String countIndicator = " (x" + lastMessageCount + ")";
-            String updatedMessage = String.format("[%s] %s: %s%s", timeStr, msgUsername, content, countIndicator);
-            
-            // Replace the last message
-            messages.set(messages.size() - 1, updatedMessage);
+        ChatLine last = messageList.getLastLine();
+        if (last != null && last.getUsername().equals(msgUsername) && last.getContent().equals(content)) {
+            // Bump the count on the last message; only its row is redrawn
+            last.repeat(time);
+            messageList.refreshLastLine();
         } else {
-            // Add new message (not a duplicate, or different from last message)
-            String formattedMessage = String.format("[%s] %s: %s", timeStr, msgUsername, content);
-            messages.add(formattedMessage);
-            
-            // Update tracking variables to reference this newly added message
-            // Note: These track content/username, not list indices
-            lastMessageUsername = msgUsername;
-            lastMessageContent = content;
-            lastMessageCount = 1;
-            
-            // Keep only last MAX_MESSAGES
-            if (messages.size() > MAX_MESSAGES) {
-                // Remove the oldest message (index 0)
-                // This is safe: our tracking variables now point to the message we JUST added
-                // (which is at the end of the list), so removing the oldest doesn't affect tracking
-                messages.remove(0);
-            }
-        }
-
-        // Update UI
-        messagesTable.clear();
-        for (String msg : messages) {
-            Label msgLabel = new Label(msg, skin);
-            msgLabel.setWrap(true);
-            msgLabel.setAlignment(Align.left);
-            messagesTable.add(msgLabel).expandX().fillX().left().padBottom(5);
-            messagesTable.row();
+            // The list evicts its oldest message once the scrollback is full
+            messageList.addLine(new ChatLine(msgUsername, content, time));
         }
         
         // Scroll to bottom
@@ -228,13 +194,20 @@ public class ChatScreen implements Screen {
             return;
         }
         
-        if (webSocketClient != null && webSocketClient.isConnected()) {
-            webSocketClient.sendChatMessage(message);
-            messageField.setText("");
-        } else {
-            statusLabel.setText("Not connected");
-            statusLabel.setColor(Color.RED);
-            addMessage("System", "Not connected to server. Attempting to reconnect...", 
+        if (webSocketClient == null) {
+            addMessage("System", "Not connected to server.", LocalDateTime.now().toString());
+            return;
+        }
+        
+        boolean connected = webSocketClient.isConnected();
+        if (!webSocketClient.sendChatMessage(message)) {
+            addMessage("System", "Not connected to server and too many messages are waiting. Please try again later.", 
+                      LocalDateTime.now().toString());
+            return;
+        }
+        messageField.setText("");
+        if (!connected) {
+            addMessage("System", "Not connected. Message will be sent when the connection is restored.", 
                       LocalDateTime.now().toString());
         }
     }
@@ -267,7 +240,7 @@ public class ChatScreen implements Screen {
     @Override
     public void dispose() {
         if (webSocketClient != null) {
-            webSocketClient.close();
+            webSocketClient.shutdown();
         }
         stage.dispose();
         skin.dispose();
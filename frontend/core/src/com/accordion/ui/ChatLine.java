@@ -0,0 +1,71 @@
+package com.accordion.ui;
+
+import java.time.LocalTime;
+
+/**
+ * One row of the chat log: who sent what and when, plus how many times in a row the same
+ * user sent the same content. Display text is only built on demand by {@link #appendTo}.
+ */
+public final class ChatLine {
+    private final String username;
+    private final String content;
+    private LocalTime time;
+    private int repeatCount = 1;
+
+    /**
+     * @param time local send time, or null if unknown
+     */
+    public ChatLine(String username, String content, LocalTime time) {
+        this.username = username;
+        this.content = content;
+        this.time = time;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public int getRepeatCount() {
+        return repeatCount;
+    }
+
+    /**
+     * Counts another identical message, which also moves the shown time to {@code time}.
+     */
+    public void repeat(LocalTime time) {
+        this.time = time;
+        repeatCount++;
+    }
+
+    /**
+     * Writes "[HH:mm:ss] username: content", followed by " (xN)" for repeats.
+     */
+    public void appendTo(StringBuilder out) {
+        out.append('[');
+        if (time == null) {
+            out.append("??:??:??");
+        } else {
+            appendTwoDigits(out, time.getHour()).append(':');
+            appendTwoDigits(out, time.getMinute()).append(':');
+            appendTwoDigits(out, time.getSecond());
+        }
+        out.append("] ").append(username).append(": ").append(content);
+        // Note: Format is " (x2)" for LibGDX, while webapp uses a styled badge.
+        // This difference is intentional: LibGDX uses plain text labels,
+        // while webapp can style a separate DOM element with colors/backgrounds.
+        if (repeatCount > 1) {
+            out.append(" (x").append(repeatCount).append(')');
+        }
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder out, int value) {
+        if (value < 10) {
+            out.append('0');
+        }
+        return out.append(value);
+    }
+}
@@ -0,0 +1,357 @@
+package com.accordion.ui;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.ScrollPane;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.scenes.scene2d.ui.WidgetGroup;
+import com.badlogic.gdx.scenes.scene2d.utils.Cullable;
+import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Vertical list of wrapped {@link ChatLine}s that only creates widgets for the rows on screen.
+ *
+ * Lines live in a fixed-capacity ring buffer; once full, adding a line evicts the oldest and
+ * reuses its slot. Inside a {@link com.badlogic.gdx.scenes.scene2d.ui.ScrollPane} the list
+ * receives the visible area as its culling area and binds pooled {@link Label}s to just the
+ * rows in it, so appending, updating the newest row or scrolling costs the same whatever the
+ * capacity. Display text is only built for bound rows; measuring a row's wrapped height
+ * writes into a shared buffer instead. Heights are measured when a row is added. When the
+ * list's width changes, every row gets an estimate scaled from its last measurement, and
+ * only rows that come into view (or are about to) are measured again.
+ */
+public class MessageListView extends WidgetGroup implements Cullable {
+    private static final float ROW_SPACING = 5;
+    // Rows below the visible area measured ahead of scrolling down to them
+    private static final int MEASURE_AHEAD = 10;
+
+    private final Label.LabelStyle style;
+    private final Row[] rows;
+    private final Pool<Label> labelPool;
+    // Off-stage label and scratch text used only to measure wrapped text
+    private final Label measureLabel;
+    private final StringBuilder measureText = new StringBuilder();
+
+    // Ring buffer state: rows[head] is the oldest of size rows
+    private int head;
+    private int size;
+
+    private Rectangle cullingArea;
+    // Width the rows are wrapped to
+    private float wrapWidth;
+    // Id of the oldest row; ids grow by one per added row
+    private long firstRowId;
+    // Rows in [visibleFromId, visibleToId) currently have a label
+    private long visibleFromId;
+    private long visibleToId;
+
+    private static final class Row {
+        ChatLine line;
+        // Distance from the top of the first row ever added (double so it stays exact in long
+        // sessions), and height including spacing
+        double top;
+        float height;
+        // Height as last measured and the width it was measured at; height is only an
+        // estimate while measuredWidth differs from the list's wrapWidth
+        float measuredHeight;
+        float measuredWidth;
+        Label label;
+    }
+
+    public MessageListView(Skin skin, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.style = skin.get(Label.LabelStyle.class);
+        this.rows = new Row[capacity];
+        this.measureLabel = newLabel();
+        this.labelPool = new Pool<Label>() {
+            @Override
+            protected Label newObject() {
+                return newLabel();
+            }
+        };
+    }
+
+    private Label newLabel() {
+        Label label = new Label("", style);
+        label.setWrap(true);
+        label.setAlignment(Align.left);
+        return label;
+    }
+
+    public int getLineCount() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return rows.length;
+    }
+
+    /**
+     * Returns the newest line, or null if the list is empty.
+     */
+    public ChatLine getLastLine() {
+        return size == 0 ? null : row(size - 1).line;
+    }
+
+    /**
+     * Appends a line, evicting the oldest one if the list is full.
+     */
+    public void addLine(ChatLine line) {
+        if (size == rows.length) {
+            release(row(0));
+            head = (head + 1) % rows.length;
+            size--;
+            firstRowId++;
+            visibleFromId = Math.max(visibleFromId, firstRowId);
+            visibleToId = Math.max(visibleToId, visibleFromId);
+        }
+        if (size == 0) {
+            firstRowId = visibleFromId = visibleToId = 0;
+        }
+        int slot = (head + size) % rows.length;
+        Row row = rows[slot];
+        if (row == null) {
+            row = rows[slot] = new Row();
+        }
+        row.line = line;
+        setMeasuredHeight(row, measure(line));
+        row.top = size == 0 ? 0 : row(size - 1).top + row(size - 1).height;
+        size++;
+        invalidateHierarchy();
+    }
+
+    /**
+     * Redraws the newest line after it changed, e.g. its repeat count. Only that row's label
+     * is touched.
+     */
+    public void refreshLastLine() {
+        if (size == 0) {
+            return;
+        }
+        Row row = row(size - 1);
+        float height = measure(row.line);
+        if (row.label != null) {
+            row.label.setText(measureText);
+        }
+        if (height != row.height) {
+            setMeasuredHeight(row, height);
+            invalidateHierarchy();
+        } else {
+            setMeasuredHeight(row, height);
+            invalidate();
+        }
+    }
+
+    public void clearLines() {
+        for (int i = 0; i < size; i++) {
+            Row row = row(i);
+            release(row);
+            row.line = null;
+        }
+        head = size = 0;
+        firstRowId = visibleFromId = visibleToId = 0;
+        invalidateHierarchy();
+    }
+
+    @Override
+    public float getPrefWidth() {
+        return 0;
+    }
+
+    @Override
+    public float getPrefHeight() {
+        if (size == 0) {
+            return 0;
+        }
+        Row last = row(size - 1);
+        return (float) (last.top + last.height - row(0).top);
+    }
+
+    @Override
+    public void setCullingArea(Rectangle cullingArea) {
+        this.cullingArea = cullingArea;
+        // Called by the scroll pane whenever it scrolls, before the rows are drawn
+        bindVisibleRows();
+    }
+
+    @Override
+    protected void sizeChanged() {
+        super.sizeChanged();
+        if (getWidth() != wrapWidth) {
+            rewrap();
+        }
+    }
+
+    @Override
+    public void layout() {
+        bindVisibleRows();
+    }
+
+    private Row row(int index) {
+        return rows[(head + index) % rows.length];
+    }
+
+    // Laying out the text of every row would take as long as the scrollback is deep, so
+    // rows get an estimate here and bindVisibleRows measures the ones it shows
+    private void rewrap() {
+        wrapWidth = getWidth();
+        float lineHeight = style.font.getLineHeight();
+        double top = size == 0 ? 0 : row(0).top;
+        for (int i = 0; i < size; i++) {
+            Row row = row(i);
+            row.top = top;
+            row.height = row.measuredWidth == wrapWidth ? row.measuredHeight : estimate(row, lineHeight);
+            top += row.height;
+        }
+        // Wrapping changed, so the enclosing scroll pane needs the new total height
+        invalidateHierarchy();
+    }
+
+    // Wrapped text takes about as many more lines as the width shrank, and at least one
+    private float estimate(Row row, float lineHeight) {
+        float lines = Math.max(1, Math.round((row.measuredHeight - ROW_SPACING) / lineHeight));
+        if (row.measuredWidth > 0 && wrapWidth > 0) {
+            lines = Math.max(1, Math.round(lines * row.measuredWidth / wrapWidth));
+        }
+        return lines * lineHeight + ROW_SPACING;
+    }
+
+    private void setMeasuredHeight(Row row, float height) {
+        row.height = row.measuredHeight = height;
+        row.measuredWidth = wrapWidth;
+    }
+
+    // Leaves the line's display text in measureText
+    private float measure(ChatLine line) {
+        measureText.setLength(0);
+        line.appendTo(measureText);
+        measureLabel.setText(measureText);
+        measureLabel.setWidth(wrapWidth);
+        return measureLabel.getPrefHeight() + ROW_SPACING;
+    }
+
+    /**
+     * Measures the rows in [from, to) whose height is an estimate and moves the rows below
+     * any that changed.
+     *
+     * @return whether any height changed
+     */
+    private boolean measureRows(int from, int to) {
+        int firstChanged = -1;
+        for (int i = from; i < to; i++) {
+            Row row = row(i);
+            if (row.measuredWidth == wrapWidth) {
+                continue;
+            }
+            float estimated = row.height;
+            setMeasuredHeight(row, measure(row.line));
+            if (row.height != estimated && firstChanged < 0) {
+                firstChanged = i;
+            }
+        }
+        if (firstChanged < 0) {
+            return false;
+        }
+        double top = row(firstChanged).top;
+        for (int i = firstChanged; i < size; i++) {
+            Row row = row(i);
+            row.top = top;
+            top += row.height;
+        }
+        invalidateHierarchy();
+        return true;
+    }
+
+    // Keeps the rows on screen in place when a row above them changed height
+    private void scrollBy(float pixels) {
+        if (getParent() instanceof ScrollPane) {
+            ScrollPane scrollPane = (ScrollPane) getParent();
+            scrollPane.setScrollY(scrollPane.getScrollY() + pixels);
+            scrollPane.updateVisualScroll();
+        }
+    }
+
+    private void bindVisibleRows() {
+        if (size == 0) {
+            return;
+        }
+        float height = getHeight();
+        float viewTop = 0;
+        float viewBottom = height;
+        if (cullingArea != null) {
+            viewTop = height - (cullingArea.y + cullingArea.height);
+            viewBottom = height - cullingArea.y;
+        }
+        int from;
+        int to;
+        boolean changed;
+        // Rows coming into view may only have an estimated height. Measuring them moves the
+        // rows below, so look again until everything in view has been measured
+        do {
+            from = rowIndexAt(viewTop);
+            to = rowIndexAt(viewBottom) + 1;
+            // The first row starting inside the view stays put on screen
+            int anchor = row(from).top - row(0).top < viewTop ? Math.min(from + 1, size - 1) : from;
+            double anchorTop = row(anchor).top;
+            changed = measureRows(from, Math.min(size, to + MEASURE_AHEAD));
+            float shift = (float) (row(anchor).top - anchorTop);
+            if (shift != 0) {
+                scrollBy(shift);
+                viewTop += shift;
+                viewBottom += shift;
+            }
+        } while (changed);
+        long fromId = firstRowId + from;
+        long toId = firstRowId + to;
+
+        for (long id = visibleFromId; id < visibleToId; id++) {
+            if (id < fromId || id >= toId) {
+                release(row((int) (id - firstRowId)));
+            }
+        }
+        visibleFromId = fromId;
+        visibleToId = toId;
+
+        double origin = row(0).top;
+        float width = getWidth();
+        for (long id = fromId; id < toId; id++) {
+            Row row = row((int) (id - firstRowId));
+            if (row.label == null) {
+                row.label = labelPool.obtain();
+                measureText.setLength(0);
+                row.line.appendTo(measureText);
+                row.label.setText(measureText);
+                addActor(row.label);
+            }
+            float labelHeight = row.height - ROW_SPACING;
+            row.label.setBounds(0, (float) (height - (row.top - origin)) - labelHeight, width, labelHeight);
+        }
+    }
+
+    // Index of the row covering the given distance from the top edge, clamped to the list
+    private int rowIndexAt(float offset) {
+        double origin = row(0).top;
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (row(mid).top - origin <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private void release(Row row) {
+        if (row.label != null) {
+            row.label.remove();
+            labelPool.free(row.label);
+            row.label = null;
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package com.accordion.websocket;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
 import org.java_websocket.handshake.ServerHandshake;
 
 import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -15,21 +25,79 @@ import java.util.logging.Logger;
 public class ChatWebSocketClient extends WebSocketClient {
     private static final Logger LOGGER = Logger.getLogger(ChatWebSocketClient.class.getName());
     private static final String CONNECT_FRAME = "CONNECT\naccept-version:1.1,1.0\nheart-beat:10000,10000\n\n\0";
-    private static final String SUBSCRIBE_TEMPLATE = "SUBSCRIBE\nid:sub-0\ndestination:/topic/messages\n\n\0";
+    // The limit header asks the server to replay recent history as the first frame of the subscription;
+    // after a reconnect resume-from-seq narrows that to the messages missed while offline
+    private static final String SUBSCRIBE_TEMPLATE = "SUBSCRIBE\nid:sub-0\ndestination:/topic/messages\nlimit:50\n%s\n\0";
+    private static final String RESUME_HEADER_TEMPLATE = "resume-from-seq:%d\n";
+    private static final String REPLAY_RESET_HEADER = "\nx-replay-reset:true";
+    private static final String HEARTBEAT_HEADER = "heart-beat:";
+    // Must match the heart-beat header in CONNECT_FRAME
+    private static final long CLIENT_HEARTBEAT_MS = 10000;
+    // Chat messages kept while disconnected; more are refused rather than growing without bound.
+    // They are flushed in batches after reconnecting
+    private static final int MAX_PENDING_MESSAGES = 100;
     private static final String SEND_TEMPLATE = "SEND\ndestination:/app/chat.send\ncontent-type:application/json\n\n%s\0";
+    private static final String SEND_BATCH_TEMPLATE = "SEND\ndestination:/app/chat.sendBatch\ncontent-type:application/json\n\n%s\0";
+    // Must not exceed the server's app.message.max-batch-size
+    private static final int MAX_BATCH_SIZE = 100;
+    // Ids of the newest messages shown, to drop a message seen twice (replayed and live). Concurrent
+    // sends can arrive out of id order, so duplicates are found by id, not by comparing to the newest
+    private static final int SEEN_IDS_CAPACITY = 1000;
     
     private final Gson gson = new Gson();
     private final CopyOnWriteArrayList<MessageListener> listeners = new CopyOnWriteArrayList<>();
     private String username;
     private boolean connected = false;
+    private final Set<Long> seenIds = Collections.newSetFromMap(new LinkedHashMap<Long, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > SEEN_IDS_CAPACITY;
+        }
+    });
+    private long lastSeq = 0;
+    private boolean joined = false;
+    private volatile long lastReceivedAt;
+    private volatile long lastSentAt;
+    private final Deque<String> pendingMessages = new ArrayDeque<>();
+    private final ReconnectManager reconnectManager;
+    private final CompressionStats compressionStats;
 
     public interface MessageListener {
         void onMessage(String username, String content, String timestamp);
         void onConnectionStatusChanged(boolean connected);
+
+        /**
+         * Called when missed messages could not be replayed after a reconnect and the
+         * following messages replace the history shown so far.
+         */
+        default void onHistoryReset() {}
+
+        /**
+         * Called when the connection was lost and attempt {@code attempt} to restore it is
+         * scheduled in {@code delayMs} milliseconds.
+         */
+        default void onReconnecting(int attempt, long delayMs) {}
     }
 
     public ChatWebSocketClient(URI serverUri) {
-        super(serverUri);
+        this(serverUri, false, 0);
+    }
+
+    /**
+     * @param compression          whether to offer permessage-deflate to the server
+     * @param compressionThreshold smallest outgoing payload, in bytes, worth compressing
+     */
+    public ChatWebSocketClient(URI serverUri, boolean compression, int compressionThreshold) {
+        this(serverUri, compression, compressionThreshold, new CompressionStats());
+    }
+
+    private ChatWebSocketClient(URI serverUri, boolean compression, int compressionThreshold,
+                                CompressionStats compressionStats) {
+        super(serverUri, compression
+                ? new Draft_6455(new MeteredDeflateExtension(compressionStats, compressionThreshold))
+                : new Draft_6455());
+        this.compressionStats = compressionStats;
+        this.reconnectManager = new ReconnectManager(this);
     }
 
     public void setUsername(String username) {
@@ -47,43 +115,80 @@ public class ChatWebSocketClient extends WebSocketClient {
     @Override
     public void onOpen(ServerHandshake handshakedata) {
         LOGGER.info("WebSocket connection opened");
+        lastReceivedAt = System.currentTimeMillis();
         send(CONNECT_FRAME);
     }
 
     @Override
     public void onMessage(String message) {
         LOGGER.fine("Received: " + message);
+        // Any frame, including a bare heart-beat newline, shows the server is alive
+        lastReceivedAt = System.currentTimeMillis();
         
         if (message.startsWith("CONNECTED")) {
             connected = true;
+            startHeartbeats(message);
             notifyConnectionStatus(true);
-            send(SUBSCRIBE_TEMPLATE);
+            send(String.format(SUBSCRIBE_TEMPLATE, lastSeq > 0 ? String.format(RESUME_HEADER_TEMPLATE, lastSeq) : ""));
             
-            // Send join notification
-            Map<String, String> joinPayload = new HashMap<>();
-            joinPayload.put("username", username);
-            String joinJson = gson.toJson(joinPayload);
-            String joinFrame = String.format("SEND\ndestination:/app/chat.join\ncontent-type:application/json\n\n%s\0", joinJson);
-            send(joinFrame);
+            // Send join notification once; a reconnect resumes the same session for other users
+            if (!joined) {
+                joined = true;
+                Map<String, String> joinPayload = new HashMap<>();
+                joinPayload.put("username", username);
+                String joinJson = gson.toJson(joinPayload);
+                String joinFrame = String.format("SEND\ndestination:/app/chat.join\ncontent-type:application/json\n\n%s\0", joinJson);
+                send(joinFrame);
+            }
+            flushPendingMessages();
         } else if (message.startsWith("MESSAGE")) {
             handleMessage(message);
         }
     }
 
+    // Negotiates intervals as in the STOMP spec: the larger of what one side offers and the other wants
+    private void startHeartbeats(String connectedFrame) {
+        long serverSend = 0;
+        long serverReceive = 0;
+        for (String line : connectedFrame.split("\n\n", 2)[0].split("\n")) {
+            if (line.startsWith(HEARTBEAT_HEADER)) {
+                String[] values = line.substring(HEARTBEAT_HEADER.length()).trim().split(",");
+                try {
+                    serverSend = Long.parseLong(values[0].trim());
+                    serverReceive = values.length > 1 ? Long.parseLong(values[1].trim()) : 0;
+                } catch (NumberFormatException e) {
+                    LOGGER.warning("Ignoring invalid heart-beat header: " + line);
+                }
+            }
+        }
+        long sendInterval = serverReceive == 0 ? 0 : Math.max(CLIENT_HEARTBEAT_MS, serverReceive);
+        long receiveInterval = serverSend == 0 ? 0 : Math.max(CLIENT_HEARTBEAT_MS, serverSend);
+        reconnectManager.onConnected(sendInterval, receiveInterval);
+    }
+
     private void handleMessage(String stompMessage) {
         try {
             // Extract JSON payload from STOMP message
             String[] lines = stompMessage.split("\n\n", 2);
             if (lines.length > 1) {
+                if (lines[0].contains(REPLAY_RESET_HEADER)) {
+                    seenIds.clear();
+                    lastSeq = 0;
+                    for (MessageListener listener : listeners) {
+                        listener.onHistoryReset();
+                    }
+                }
+
                 String jsonPayload = lines[1].replace("\0", "");
-                JsonObject json = gson.fromJson(jsonPayload, JsonObject.class);
+                JsonElement json = gson.fromJson(jsonPayload, JsonElement.class);
                 
-                String msgUsername = json.has("username") ? json.get("username").getAsString() : "Unknown";
-                String content = json.has("content") ? json.get("content").getAsString() : "";
-                String timestamp = json.has("timestamp") ? json.get("timestamp").getAsString() : "";
-                
-                for (MessageListener listener : listeners) {
-                    listener.onMessage(msgUsername, content, timestamp);
+                if (json.isJsonArray()) {
+                    // History replay: an array of messages, oldest first
+                    for (JsonElement element : json.getAsJsonArray()) {
+                        dispatchMessage(element.getAsJsonObject());
+                    }
+                } else {
+                    dispatchMessage(json.getAsJsonObject());
                 }
             }
         } catch (Exception e) {
@@ -91,27 +196,159 @@ public class ChatWebSocketClient extends WebSocketClient {
         }
     }
 
-    public void sendChatMessage(String content) {
-        if (!connected) {
-            LOGGER.warning("Cannot send message: Not connected");
-            return;
+    private void dispatchMessage(JsonObject json) {
+        // A message saved while subscribing can arrive both replayed and live
+        if (json.has("id") && !json.get("id").isJsonNull()) {
+            if (!seenIds.add(json.get("id").getAsLong())) {
+                return;
+            }
         }
+        if (json.has("seq") && !json.get("seq").isJsonNull()) {
+            lastSeq = Math.max(lastSeq, json.get("seq").getAsLong());
+        }
+        
+        String msgUsername = json.has("username") ? json.get("username").getAsString() : "Unknown";
+        String content = json.has("content") ? json.get("content").getAsString() : "";
+        String timestamp = json.has("timestamp") ? json.get("timestamp").getAsString() : "";
         
+        for (MessageListener listener : listeners) {
+            listener.onMessage(msgUsername, content, timestamp);
+        }
+    }
+
+    /**
+     * Sends a chat message, or keeps it to send once the connection is restored.
+     *
+     * @return false if disconnected and too many messages are already waiting
+     */
+    public boolean sendChatMessage(String content) {
+        synchronized (pendingMessages) {
+            if (isConnected() && pendingMessages.isEmpty()) {
+                try {
+                    send(String.format(SEND_TEMPLATE, gson.toJson(chatPayload(content))));
+                    return true;
+                } catch (WebsocketNotConnectedException e) {
+                    LOGGER.fine("Connection dropped while sending, keeping message");
+                }
+            }
+            return enqueue(List.of(content));
+        }
+    }
+
+    /**
+     * Sends several chat messages in as few frames as possible; the server saves each frame's
+     * messages together and broadcasts them as one frame. Kept for later like
+     * {@link #sendChatMessage} while disconnected.
+     *
+     * @return false if disconnected and the messages do not all fit in the outgoing buffer,
+     *         in which case none of them is kept
+     */
+    public boolean sendChatMessages(List<String> contents) {
+        synchronized (pendingMessages) {
+            if (!enqueue(contents)) {
+                return false;
+            }
+            if (isConnected()) {
+                flushPendingMessages();
+            }
+            return true;
+        }
+    }
+
+    private boolean enqueue(List<String> contents) {
+        if (pendingMessages.size() + contents.size() > MAX_PENDING_MESSAGES && !isConnected()) {
+            LOGGER.warning("Cannot send message: Not connected and outgoing buffer is full");
+            return false;
+        }
+        pendingMessages.addAll(contents);
+        return true;
+    }
+
+    private void flushPendingMessages() {
+        synchronized (pendingMessages) {
+            while (!pendingMessages.isEmpty()) {
+                List<Map<String, String>> batch = new ArrayList<>(Math.min(pendingMessages.size(), MAX_BATCH_SIZE));
+                for (String content : pendingMessages) {
+                    if (batch.size() == MAX_BATCH_SIZE) {
+                        break;
+                    }
+                    batch.add(chatPayload(content));
+                }
+                try {
+                    send(String.format(SEND_BATCH_TEMPLATE, gson.toJson(batch)));
+                } catch (WebsocketNotConnectedException e) {
+                    // Closed again; the rest goes out after the next reconnect
+                    return;
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    pendingMessages.removeFirst();
+                }
+            }
+        }
+    }
+
+    private Map<String, String> chatPayload(String content) {
         Map<String, String> payload = new HashMap<>();
         payload.put("username", username);
         payload.put("content", content);
-        
-        String json = gson.toJson(payload);
-        String frame = String.format(SEND_TEMPLATE, json);
-        
-        send(frame);
+        return payload;
+    }
+
+    public int getPendingMessageCount() {
+        synchronized (pendingMessages) {
+            return pendingMessages.size();
+        }
+    }
+
+    @Override
+    public void send(String text) {
+        super.send(text);
+        lastSentAt = System.currentTimeMillis();
+    }
+
+    void sendHeartbeat() {
+        try {
+            send("\n");
+        } catch (WebsocketNotConnectedException e) {
+            LOGGER.fine("Skipping heart-beat: Not connected");
+        }
+    }
+
+    long getLastReceivedAt() {
+        return lastReceivedAt;
+    }
+
+    long getLastSentAt() {
+        return lastSentAt;
+    }
+
+    void notifyReconnecting(int attempt, long delayMs) {
+        for (MessageListener listener : listeners) {
+            listener.onReconnecting(attempt, delayMs);
+        }
+    }
+
+    /**
+     * Closes the connection for good; unlike a dropped connection it is not retried.
+     */
+    public void shutdown() {
+        reconnectManager.stop();
+        close();
+    }
+
+    public CompressionStats getCompressionStats() {
+        return compressionStats;
     }
 
     @Override
     public void onClose(int code, String reason, boolean remote) {
         LOGGER.info("WebSocket connection closed: " + reason);
+        if (compressionStats.getReceivedFrames() > 0 || compressionStats.getSentFrames() > 0) {
+            LOGGER.info("Compression so far: " + compressionStats);
+        }
         connected = false;
         notifyConnectionStatus(false);
+        reconnectManager.onConnectionLost();
     }
 
     @Override
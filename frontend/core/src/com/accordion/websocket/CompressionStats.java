@@ -0,0 +1,100 @@
+package com.accordion.websocket;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals for permessage-deflate on one client: how many bytes went in and came out
+ * of the compressor in each direction and how much CPU time that took.
+ */
+public class CompressionStats {
+    private final AtomicLong sentFrames = new AtomicLong();
+    private final AtomicLong sentUncompressedFrames = new AtomicLong();
+    private final AtomicLong sentPayloadBytes = new AtomicLong();
+    private final AtomicLong sentWireBytes = new AtomicLong();
+    private final AtomicLong deflateNanos = new AtomicLong();
+
+    private final AtomicLong receivedFrames = new AtomicLong();
+    private final AtomicLong receivedWireBytes = new AtomicLong();
+    private final AtomicLong receivedPayloadBytes = new AtomicLong();
+    private final AtomicLong inflateNanos = new AtomicLong();
+
+    void recordSent(long payloadBytes, long wireBytes, long nanos, boolean compressed) {
+        sentFrames.incrementAndGet();
+        if (!compressed) {
+            sentUncompressedFrames.incrementAndGet();
+        }
+        sentPayloadBytes.addAndGet(payloadBytes);
+        sentWireBytes.addAndGet(wireBytes);
+        deflateNanos.addAndGet(nanos);
+    }
+
+    void recordReceived(long wireBytes, long payloadBytes, long nanos) {
+        receivedFrames.incrementAndGet();
+        receivedWireBytes.addAndGet(wireBytes);
+        receivedPayloadBytes.addAndGet(payloadBytes);
+        inflateNanos.addAndGet(nanos);
+    }
+
+    public long getSentFrames() {
+        return sentFrames.get();
+    }
+
+    /**
+     * Frames sent as-is because they were below the compression threshold.
+     */
+    public long getSentUncompressedFrames() {
+        return sentUncompressedFrames.get();
+    }
+
+    public long getSentPayloadBytes() {
+        return sentPayloadBytes.get();
+    }
+
+    public long getSentWireBytes() {
+        return sentWireBytes.get();
+    }
+
+    public long getDeflateNanos() {
+        return deflateNanos.get();
+    }
+
+    public long getReceivedFrames() {
+        return receivedFrames.get();
+    }
+
+    public long getReceivedWireBytes() {
+        return receivedWireBytes.get();
+    }
+
+    public long getReceivedPayloadBytes() {
+        return receivedPayloadBytes.get();
+    }
+
+    public long getInflateNanos() {
+        return inflateNanos.get();
+    }
+
+    /**
+     * Bytes on the wire per payload byte received, e.g. 0.25 when history arrives at a quarter
+     * of its size; 1 when nothing was received yet.
+     */
+    public double getReceivedRatio() {
+        long payload = receivedPayloadBytes.get();
+        return payload == 0 ? 1 : (double) receivedWireBytes.get() / payload;
+    }
+
+    public double getSentRatio() {
+        long payload = sentPayloadBytes.get();
+        return payload == 0 ? 1 : (double) sentWireBytes.get() / payload;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("received %d frame(s), %d -> %d bytes (ratio %.2f, %.1f ms inflating); "
+                        + "sent %d frame(s), %d -> %d bytes (ratio %.2f, %.1f ms deflating, %d below threshold)",
+                getReceivedFrames(), getReceivedWireBytes(), getReceivedPayloadBytes(), getReceivedRatio(),
+                getInflateNanos() / 1e6,
+                getSentFrames(), getSentPayloadBytes(), getSentWireBytes(), getSentRatio(),
+                getDeflateNanos() / 1e6, getSentUncompressedFrames());
+    }
+}
@@ -0,0 +1,54 @@
+package com.accordion.websocket;
+
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.framing.DataFrame;
+import org.java_websocket.framing.Framedata;
+
+/**
+ * permessage-deflate that records sizes and time spent in {@link CompressionStats}.
+ *
+ * Outgoing frames smaller than the threshold are sent uncompressed; compressing a short chat
+ * message costs more CPU than the few bytes it saves.
+ */
+class MeteredDeflateExtension extends PerMessageDeflateExtension {
+    private final CompressionStats stats;
+
+    MeteredDeflateExtension(CompressionStats stats, int threshold) {
+        this.stats = stats;
+        setThreshold(threshold);
+    }
+
+    @Override
+    public void encodeFrame(Framedata frame) {
+        if (!(frame instanceof DataFrame)) {
+            super.encodeFrame(frame);
+            return;
+        }
+        int payloadBytes = frame.getPayloadData().remaining();
+        long start = System.nanoTime();
+        super.encodeFrame(frame);
+        long nanos = System.nanoTime() - start;
+        stats.recordSent(payloadBytes, frame.getPayloadData().remaining(), nanos, frame.isRSV1());
+    }
+
+    @Override
+    public void decodeFrame(Framedata frame) throws InvalidDataException {
+        if (!(frame instanceof DataFrame)) {
+            super.decodeFrame(frame);
+            return;
+        }
+        int wireBytes = frame.getPayloadData().remaining();
+        long start = System.nanoTime();
+        super.decodeFrame(frame);
+        long nanos = System.nanoTime() - start;
+        stats.recordReceived(wireBytes, frame.getPayloadData().remaining(), nanos);
+    }
+
+    // The draft copies its extensions for every connection, including reconnects
+    @Override
+    public IExtension copyInstance() {
+        return new MeteredDeflateExtension(stats, getThreshold());
+    }
+}
@@ -0,0 +1,145 @@
+package com.accordion.websocket;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a {@link ChatWebSocketClient} connected.
+ *
+ * Lost connections are retried with exponential backoff and full jitter (a random delay
+ * between zero and the current backoff ceiling), so clients dropped by a server restart
+ * spread their reconnects out instead of arriving at the same instant.
+ *
+ * While connected it also enforces the negotiated STOMP heart-beats: it sends one whenever
+ * the client has been quiet for the outgoing interval, and closes the connection when nothing
+ * has been received for a few incoming intervals, which turns a silently dead TCP connection
+ * into a reconnect within seconds rather than whenever the OS notices.
+ */
+public class ReconnectManager {
+    private static final Logger LOGGER = Logger.getLogger(ReconnectManager.class.getName());
+
+    private static final long BASE_DELAY_MS = 500;
+    private static final long MAX_DELAY_MS = 30000;
+    // Missed server heart-beats tolerated before the connection is considered dead
+    private static final int HEARTBEAT_TOLERANCE = 3;
+
+    private final ChatWebSocketClient client;
+    private final ScheduledExecutorService scheduler;
+
+    private int attempt = 0;
+    private boolean stopped = false;
+    private ScheduledFuture<?> pendingReconnect;
+    private ScheduledFuture<?> heartbeatTask;
+
+    public ReconnectManager(ChatWebSocketClient client) {
+        this.client = client;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chat-reconnect");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Called once the STOMP session is established.
+     *
+     * @param sendIntervalMs    how often the client must send a heart-beat, 0 for never
+     * @param receiveIntervalMs how often the server promised to send one, 0 for never
+     */
+    public synchronized void onConnected(long sendIntervalMs, long receiveIntervalMs) {
+        attempt = 0;
+        cancelHeartbeat();
+        if (stopped || minPositive(sendIntervalMs, receiveIntervalMs) == 0) {
+            return;
+        }
+        long period = checkPeriod(sendIntervalMs, receiveIntervalMs);
+        heartbeatTask = scheduler.scheduleAtFixedRate(
+                () -> checkHeartbeat(sendIntervalMs, receiveIntervalMs), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called when the connection closes or fails to open; schedules the next attempt.
+     */
+    public synchronized void onConnectionLost() {
+        cancelHeartbeat();
+        if (stopped || (pendingReconnect != null && !pendingReconnect.isDone())) {
+            return;
+        }
+        long ceiling = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << Math.min(attempt, 16));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        attempt++;
+        LOGGER.info("Reconnecting in " + delay + " ms (attempt " + attempt + ")");
+        client.notifyReconnecting(attempt, delay);
+        // reconnect() blocks until the old socket threads finish, so it must not run on them
+        pendingReconnect = scheduler.schedule(this::reconnect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops reconnecting and releases the scheduler thread.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        cancelHeartbeat();
+        if (pendingReconnect != null) {
+            pendingReconnect.cancel(false);
+        }
+        scheduler.shutdownNow();
+    }
+
+    private void reconnect() {
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            // Cleared first: a failed attempt reports onClose on another thread, possibly before this returns
+            pendingReconnect = null;
+        }
+        try {
+            client.reconnect();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Reconnect attempt failed", e);
+            onConnectionLost();
+        }
+    }
+
+    private void checkHeartbeat(long sendIntervalMs, long receiveIntervalMs) {
+        long now = System.currentTimeMillis();
+        if (receiveIntervalMs > 0 && now - client.getLastReceivedAt() > receiveIntervalMs * HEARTBEAT_TOLERANCE) {
+            LOGGER.warning("No data from server for " + (now - client.getLastReceivedAt()) + " ms, closing connection");
+            synchronized (this) {
+                cancelHeartbeat();
+            }
+            // Skip the closing handshake; the peer is presumed gone
+            client.closeConnection(1006, "Heart-beat timeout");
+            return;
+        }
+        // Send early enough that the next check cannot push the beat past the interval
+        if (sendIntervalMs > 0 && now - client.getLastSentAt() >= sendIntervalMs - checkPeriod(sendIntervalMs, receiveIntervalMs)) {
+            client.sendHeartbeat();
+        }
+    }
+
+    private void cancelHeartbeat() {
+        if (heartbeatTask != null) {
+            heartbeatTask.cancel(false);
+            heartbeatTask = null;
+        }
+    }
+
+    // Checks run at a fraction of the shortest interval
+    private static long checkPeriod(long sendIntervalMs, long receiveIntervalMs) {
+        return Math.max(100, minPositive(sendIntervalMs, receiveIntervalMs) / 4);
+    }
+
+    private static long minPositive(long a, long b) {
+        if (a <= 0) {
+            return Math.max(b, 0);
+        }
+        return b <= 0 ? a : Math.min(a, b);
+    }
+}
@@ -0,0 +1,28 @@
+package com.accordion.webapp.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    public static final String ASSETS_PATH = "/assets/";
+
+    public static final String ASSETS_LOCATION = "classpath:/static/assets/";
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // Pages link assets by a name carrying a hash of their content (see PageShells), so a
+        // changed file gets a new URL and browsers may keep every version they have forever
+        registry.addResourceHandler(ASSETS_PATH + "**")
+                .addResourceLocations(ASSETS_LOCATION)
+                .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .resourceChain(true)
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+}
@@ -1,34 +1,82 @@
 package com.accordion.webapp.controller;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.accordion.webapp.shell.PageShells;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
-import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+
+import java.nio.charset.StandardCharsets;
 
 @Controller
 public class ChatController {
 
-    // Client-side backend URL (used by browser JavaScript)
-    // This must be accessible from the user's browser, not just from Docker network
-    @Value("${accordion.backend.client.url:http://localhost:8080}")
-    private String backendClientUrl;
-
-    @Value("${accordion.backend.client.ws.url:http://localhost:8080/ws}")
-    private String backendClientWsUrl;
+    // Pages are rendered with the client-side backend URLs (used by browser JavaScript),
+    // which must be accessible from the user's browser, not just from the Docker network
+    @Autowired
+    private PageShells pageShells;
 
     @GetMapping("/")
-    public String index(Model model) {
-        // Use client URLs for browser-side JavaScript
-        model.addAttribute("backendUrl", backendClientUrl);
-        model.addAttribute("backendWsUrl", backendClientWsUrl);
-        return "index";
+    public ResponseEntity<byte[]> index(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return page("index", acceptEncoding);
     }
 
     @GetMapping("/chat")
-    public String chat(Model model) {
-        // Use client URLs for browser-side JavaScript
-        model.addAttribute("backendUrl", backendClientUrl);
-        model.addAttribute("backendWsUrl", backendClientWsUrl);
-        return "chat";
+    public ResponseEntity<byte[]> chat(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return page("chat", acceptEncoding);
+    }
+
+    // A matching If-None-Match is answered with 304 by Spring, from the ETag set here.
+    // Browsers revalidate on every load, so a new release or backend URL shows up at once.
+    private ResponseEntity<byte[]> page(String name, String acceptEncoding) {
+        PageShells.Page page = pageShells.get(name);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .eTag(page.eTag())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            // Already compressed; the container leaves responses with a Content-Encoding alone
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(page.gzipped());
+        }
+        return response.body(page.html());
+    }
+
+    // Whether Accept-Encoding gives gzip, by name or through "*", a q-value above zero
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (name.equalsIgnoreCase("gzip")) {
+                gzip = q;
+            } else if (name.equals("*")) {
+                any = q;
+            }
+        }
+        // A q-value given for gzip itself overrides the one for "*"
+        Double q = gzip != null ? gzip : any;
+        return q != null && q > 0;
     }
 }
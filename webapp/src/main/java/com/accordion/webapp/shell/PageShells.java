@@ -0,0 +1,122 @@
+package com.accordion.webapp.shell;
+
+import com.accordion.webapp.config.WebConfig;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.resource.ContentVersionStrategy;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The HTML pages of the webapp, rendered once at startup.
+ *
+ * The only values the templates take are the backend URLs, which are fixed for the life of
+ * the process, so every request would otherwise render the same bytes. Each page is kept as
+ * plain and gzipped bytes with an ETag derived from its content, which lets the controller
+ * answer revalidations with 304 and compressing clients without compressing per request.
+ *
+ * Templates link their CSS and JS through {@code ${assets['js/chat.js']}}, which holds the
+ * file's URL with a hash of its content in the name, as served by the versioned resource
+ * handler in {@link WebConfig}. Since a page embeds those URLs, its ETag changes with them.
+ *
+ * Set {@code accordion.shell.prerender=false} while editing templates to render them on
+ * every request instead.
+ */
+@Component
+public class PageShells {
+
+    static final List<String> PAGES = List.of("index", "chat");
+
+    @Value("${accordion.backend.client.url:http://localhost:8080}")
+    private String backendClientUrl;
+
+    @Value("${accordion.backend.client.ws.url:http://localhost:8080/ws}")
+    private String backendClientWsUrl;
+
+    @Value("${accordion.shell.prerender:true}")
+    private boolean prerender;
+
+    @Autowired
+    private ITemplateEngine templateEngine;
+
+    private final Map<String, Page> pages = new ConcurrentHashMap<>();
+
+    // Versioned URL by path relative to the assets directory
+    private final Map<String, String> assets = new HashMap<>();
+
+    /**
+     * A rendered page.
+     *
+     * @param eTag weak, since the plain and gzipped bytes are the same representation
+     */
+    public record Page(byte[] html, byte[] gzipped, String eTag) {
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        // Same strategy as the resource handler, so the URLs resolve to the files they name
+        ContentVersionStrategy versionStrategy = new ContentVersionStrategy();
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        String root = resolver.getResource(WebConfig.ASSETS_LOCATION).getURL().toString();
+        for (Resource resource : resolver.getResources(WebConfig.ASSETS_LOCATION + "**/*.*")) {
+            String path = resource.getURL().toString().substring(root.length());
+            assets.put(path, WebConfig.ASSETS_PATH
+                    + versionStrategy.addVersion(path, versionStrategy.getResourceVersion(resource)));
+        }
+        if (prerender) {
+            PAGES.forEach(name -> pages.put(name, render(name)));
+        }
+    }
+
+    public Page get(String name) {
+        Page page = pages.get(name);
+        return page != null ? page : render(name);
+    }
+
+    private Page render(String name) {
+        Context context = new Context(Locale.ROOT);
+        // Client URLs, used by browser-side JavaScript
+        context.setVariable("backendUrl", backendClientUrl);
+        context.setVariable("backendWsUrl", backendClientWsUrl);
+        context.setVariable("assets", assets);
+        byte[] html = templateEngine.process(name, context).getBytes(StandardCharsets.UTF_8);
+        return new Page(html, gzip(html), "W/\"" + digest(html) + "\"");
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String digest(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+            return HexFormat.of().formatHex(hash, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,666 @@
+// Chat page. backendUrl and backendWsUrl are set by the page; SockJS and Stomp come from vendor.js,
+// MessageList and ChannelMessages from message-list.js (bundled ahead of this file).
+
+// Check if user is logged in with JWT token
+const username = sessionStorage.getItem('username');
+let jwtToken = sessionStorage.getItem('jwtToken'); // Short-lived; renewed with the refresh token
+if (!username || !jwtToken) {
+    window.location.href = '/';
+}
+
+document.getElementById('currentUsername').textContent = username;
+
+let stompClient = null;
+let connected = false;
+let historyLoaded = false; // Track if the history replay for the current channel has arrived
+let messageQueue = []; // Buffer for messages received during history loading
+let replayTimer = null; // Stops waiting for a replay that never arrives
+let currentChannelId = null; // Will be set from loaded channels
+let currentSubscription = null; // Track current channel subscription
+let typingSubscription = null; // Track typing indicator subscription
+let channels = []; // Store available channels
+let channelEventQueue = null; // Channel list events received while the list is being loaded
+let typingUsers = new Map(); // Map of username -> timeout ID for typing indicators
+let typingDebounceTimer = null; // Timer for debouncing typing events
+let isCurrentlyTyping = false; // Track if we've already sent a typing indicator
+const TYPING_DEBOUNCE_MS = 2000; // Send typing event every 2 seconds while typing
+const TYPING_TIMEOUT_MS = 3000; // Clear typing indicator after 3 seconds of inactivity
+const HISTORY_LIMIT = 50; // Messages replayed by the server when subscribing to a channel
+const REPLAY_TIMEOUT_MS = 10000; // Live messages are held back at most this long waiting for the replay
+const CHANNEL_PAGE_SIZE = 500; // Channels fetched per /api/channels request
+const MAX_CACHED_CHANNELS = 10; // Channels whose messages are kept while another one is shown
+const MAX_ROWS_PER_CHANNEL = 1000; // Message rows kept per channel; older ones are dropped
+const PREFETCH_CHANNELS = 3; // Most-used channels whose new messages are fetched in the background
+const PREFETCH_MIN_INTERVAL_MS = 30000; // A channel is fetched in the background at most this often
+const CHANNEL_USAGE_KEY = `accordion.channelUsage.${username}`;
+
+// Only the visible rows of the current channel are in the DOM (MessageList comes from message-list.js)
+const messageList = new MessageList(document.getElementById('messages'));
+const channelMessages = new Map(); // ChannelMessages by channel id, least recently shown first
+const channelUsage = loadChannelUsage(); // Times each channel was opened, by id; kept across sessions
+
+// Seconds before expiry at which the access token is renewed ahead of use
+const TOKEN_RENEW_MARGIN_S = 60;
+let refreshPromise = null; // Shared by concurrent callers so a refresh token is only used once
+
+function tokenExpiresSoon() {
+    try {
+        const payload = JSON.parse(atob(jwtToken.split('.')[1].replace(/-/g, '+').replace(/_/g, '/')));
+        return payload.exp - Date.now() / 1000 < TOKEN_RENEW_MARGIN_S;
+    } catch (e) {
+        return true;
+    }
+}
+
+// Trades the refresh token for a new pair; resolves to false if the session is over
+function refreshAccessToken() {
+    if (!refreshPromise) {
+        refreshPromise = (async () => {
+            const refreshToken = sessionStorage.getItem('refreshToken');
+            if (!refreshToken) {
+                return false;
+            }
+            try {
+                const response = await fetch(`${backendUrl}/api/users/refresh`, {
+                    method: 'POST',
+                    headers: { 'Content-Type': 'application/json' },
+                    body: JSON.stringify({ refreshToken: refreshToken })
+                });
+                if (!response.ok) {
+                    return false;
+                }
+                const data = await response.json();
+                jwtToken = data.token;
+                sessionStorage.setItem('jwtToken', data.token);
+                sessionStorage.setItem('refreshToken', data.refreshToken);
+                return true;
+            } catch (error) {
+                console.error('Error refreshing token:', error);
+                return false;
+            }
+        })().finally(() => { refreshPromise = null; });
+    }
+    return refreshPromise;
+}
+
+// fetch() with the current access token, renewing it once if the server rejects it
+async function authFetch(url, options = {}) {
+    const send = () => fetch(url, {
+        ...options,
+        headers: { ...(options.headers || {}), 'Authorization': `Bearer ${jwtToken}` }
+    });
+    const response = await send();
+    if ((response.status === 401 || response.status === 403) && await refreshAccessToken()) {
+        return send();
+    }
+    return response;
+}
+
+async function connect() {
+    // The token is only checked on CONNECT, so it must be fresh for every (re)connect
+    if (tokenExpiresSoon() && !await refreshAccessToken()) {
+        handleAuthError();
+        return;
+    }
+    const socket = new SockJS(backendWsUrl);
+    stompClient = Stomp.over(socket);
+    
+    // Include JWT token in STOMP connection headers
+    const headers = {
+        'Authorization': `Bearer ${jwtToken}`
+    };
+    
+    stompClient.connect(headers, onConnected, onError);
+}
+
+async function onConnected() {
+    connected = true;
+    updateStatus(true);
+    
+    // Listen for channel list changes before loading the list, so none are missed in between.
+    // After a reconnect the list is loaded again for changes missed while offline; unchanged pages cost a 304.
+    stompClient.subscribe('/topic/channels', onChannelEvent);
+    await loadChannels();
+    
+    // After a reconnect, stay in the current channel; its messages are kept and only what was missed is fetched
+    const staying = channels.some(ch => ch.id === currentChannelId);
+    
+    // Set currentChannelId from loaded channels (prefer 'general', fallback to first channel)
+    if (!staying && channels.length > 0) {
+        const generalChannel = channels.find(ch => ch.name.toLowerCase() === 'general');
+        currentChannelId = generalChannel ? generalChannel.id : channels[0].id;
+        const currentChannel = channels.find(ch => ch.id === currentChannelId);
+        if (currentChannel) {
+            document.getElementById('currentChannelName').textContent = currentChannel.name;
+        }
+    }
+    
+    if (!staying) {
+        showChannelMessages(currentChannelId);
+    }
+    historyLoaded = false;
+    messageQueue = [];
+    
+    // Subscribe to current channel; the server replays recent history (or the missed gap) as the first frame
+    subscribeToChannel(currentChannelId, messageList.store.lastSeq);
+    
+    // Send join notification (duplicates between replay and live frames are dropped by id)
+    stompClient.send(`/app/chat.join/${currentChannelId}`, {}, JSON.stringify({
+        username: username
+    }));
+    
+    // Enable input
+    document.getElementById('messageInput').disabled = false;
+    document.getElementById('sendButton').disabled = false;
+    
+    schedulePrefetch();
+}
+
+function onError(error) {
+    connected = false;
+    updateStatus(false);
+    console.error('WebSocket error:', error);
+    
+    // Subscriptions belong to the closed connection
+    currentSubscription = null;
+    typingSubscription = null;
+    
+    // Try to reconnect after 3 seconds
+    setTimeout(connect, 3000);
+}
+
+function onMessageReceived(payload) {
+    if (payload.headers['x-replay']) {
+        // History replayed by the server for this subscription, oldest first.
+        // A reset means the missed gap could not be filled, so redraw from the replayed window.
+        if (payload.headers['x-replay-reset']) {
+            messageList.clear();
+        }
+        if (payload.headers['x-replay-error']) {
+            // The server could not read history; keep what is shown and carry on with live messages
+            console.warn('History replay failed for channel', currentChannelId);
+        }
+        messageList.add(JSON.parse(payload.body), false);
+        releaseQueuedMessages();
+        return;
+    }
+    
+    const body = JSON.parse(payload.body);
+    // Messages sent through /app/chat.sendBatch arrive together as one array
+    const messages = Array.isArray(body) ? body : [body];
+    
+    // If history hasn't arrived yet, queue the messages
+    if (!historyLoaded) {
+        messageQueue.push(...messages);
+        return;
+    }
+    
+    messageList.add(messages, true);
+}
+
+function releaseQueuedMessages() {
+    clearTimeout(replayTimer);
+    historyLoaded = true;
+    messageList.add(messageQueue, true);
+    messageQueue = [];
+}
+
+function sendMessage(event) {
+    event.preventDefault();
+    
+    const messageInput = document.getElementById('messageInput');
+    const content = messageInput.value.trim();
+    
+    if (content && stompClient && connected) {
+        const chatMessage = {
+            username: username,
+            content: content
+        };
+        
+        stompClient.send(`/app/chat.send/${currentChannelId}`, {}, JSON.stringify(chatMessage));
+        messageInput.value = '';
+        
+        // Clear typing indicator when message is sent
+        sendTypingIndicator(false);
+        isCurrentlyTyping = false;
+        
+        // Clear any pending debounce timer
+        if (typingDebounceTimer) {
+            clearTimeout(typingDebounceTimer);
+            typingDebounceTimer = null;
+        }
+    }
+}
+
+async function loadChannels() {
+    channelEventQueue = [];
+    try {
+        // Pages are revalidated with their ETag by the browser cache, so unchanged pages cost a 304
+        const loaded = [];
+        let afterId = 0;
+        while (true) {
+            const response = await authFetch(`${backendUrl}/api/channels?afterId=${afterId}&limit=${CHANNEL_PAGE_SIZE}`);
+            if (response.status === 401 || response.status === 403) {
+                // Token expired or invalid, redirect to login
+                handleAuthError();
+                return;
+            }
+            if (!response.ok) {
+                return;
+            }
+            const page = await response.json();
+            loaded.push(...page);
+            if (page.length < CHANNEL_PAGE_SIZE) {
+                break;
+            }
+            afterId = page[page.length - 1].id;
+        }
+        channels = loaded;
+    } catch (error) {
+        console.error('Error loading channels:', error);
+    } finally {
+        // Events may predate the loaded pages; applying them again is harmless
+        channelEventQueue.forEach(applyChannelEvent);
+        channelEventQueue = null;
+        displayChannels();
+    }
+}
+
+function onChannelEvent(payload) {
+    const event = JSON.parse(payload.body);
+    if (channelEventQueue) {
+        channelEventQueue.push(event);
+        return;
+    }
+    applyChannelEvent(event);
+    if (event.type === 'deleted' && event.channel.id === currentChannelId) {
+        // Move to the default channel; its name is reserved, so it cannot be deleted
+        const generalChannel = channels.find(ch => ch.name.toLowerCase() === 'general');
+        if (generalChannel) {
+            switchChannel(generalChannel.id, generalChannel.name);
+            return;
+        }
+    }
+    displayChannels();
+}
+
+// Applies a created, updated or deleted event to the channel list, which is kept in id order
+function applyChannelEvent(event) {
+    const channel = event.channel;
+    const index = channels.findIndex(ch => ch.id === channel.id);
+    if (event.type === 'deleted') {
+        channelMessages.delete(channel.id);
+        if (index >= 0) {
+            channels.splice(index, 1);
+        }
+    } else if (index >= 0) {
+        channels[index] = channel;
+    } else {
+        const next = channels.findIndex(ch => ch.id > channel.id);
+        channels.splice(next < 0 ? channels.length : next, 0, channel);
+    }
+}
+
+function displayChannels() {
+    const channelsList = document.getElementById('channelsList');
+    channelsList.innerHTML = '';
+    
+    channels.forEach(channel => {
+        const channelItem = document.createElement('div');
+        channelItem.className = 'channel-item';
+        if (channel.id === currentChannelId) {
+            channelItem.classList.add('active');
+        }
+        channelItem.textContent = channel.name;
+        channelItem.onclick = () => switchChannel(channel.id, channel.name);
+        channelsList.appendChild(channelItem);
+    });
+}
+
+// A channel's kept messages (empty the first time), dropping the least recently shown channel over the cap
+function cachedMessages(channelId) {
+    let store = channelMessages.get(channelId);
+    if (!store) {
+        store = new ChannelMessages(MAX_ROWS_PER_CHANNEL);
+        channelMessages.set(channelId, store);
+        if (channelMessages.size > MAX_CACHED_CHANNELS) {
+            channelMessages.delete(channelMessages.keys().next().value);
+        }
+    }
+    return store;
+}
+
+function showChannelMessages(channelId) {
+    if (messageList.store) {
+        // Kept current by its subscription until now
+        messageList.store.refreshedAt = Date.now();
+    }
+    const store = cachedMessages(channelId);
+    // Move to the most recently shown end
+    channelMessages.delete(channelId);
+    channelMessages.set(channelId, store);
+    recordChannelUse(channelId);
+    messageList.show(store);
+    return store;
+}
+
+function loadChannelUsage() {
+    try {
+        return JSON.parse(localStorage.getItem(CHANNEL_USAGE_KEY)) || {};
+    } catch (e) {
+        return {};
+    }
+}
+
+function recordChannelUse(channelId) {
+    channelUsage[channelId] = (channelUsage[channelId] || 0) + 1;
+    try {
+        localStorage.setItem(CHANNEL_USAGE_KEY, JSON.stringify(channelUsage));
+    } catch (e) {
+        // Storage full or disabled; usage is then only counted for this page
+    }
+}
+
+// Brings the most-used channels up to date while the page is idle, so switching to them shows current history at once
+function schedulePrefetch() {
+    const whenIdle = window.requestIdleCallback || (callback => setTimeout(callback, 1000));
+    whenIdle(() => prefetchChannels());
+}
+
+async function prefetchChannels() {
+    const candidates = channels
+        .filter(ch => ch.id !== currentChannelId && channelUsage[ch.id])
+        .sort((a, b) => channelUsage[b.id] - channelUsage[a.id])
+        .slice(0, PREFETCH_CHANNELS);
+    for (const channel of candidates) {
+        const store = cachedMessages(channel.id);
+        if (Date.now() - store.refreshedAt < PREFETCH_MIN_INTERVAL_MS) {
+            continue;
+        }
+        store.refreshedAt = Date.now();
+        try {
+            // Only messages newer than the kept ones; nothing at all if the channel was quiet
+            const response = await authFetch(
+                `${backendUrl}/api/messages?channelId=${channel.id}&afterId=${store.lastMessageId}&limit=${HISTORY_LIMIT}`);
+            if (!response.ok) {
+                continue;
+            }
+            const messages = await response.json();
+            if (messageList.store === store || channelMessages.get(channel.id) !== store) {
+                // Shown meanwhile (its subscription replays the same messages) or dropped from the cache
+                continue;
+            }
+            if (messages.length >= HISTORY_LIMIT) {
+                // More arrived than were fetched, so the kept rows would leave a gap before these
+                store.clear();
+            }
+            messages.forEach(message => store.add(message, false));
+        } catch (error) {
+            console.error('Error prefetching messages:', error);
+        }
+    }
+}
+
+function subscribeToChannel(channelId, resumeSeq) {
+    // Unsubscribe from previous channel if any
+    if (currentSubscription) {
+        currentSubscription.unsubscribe();
+    }
+    if (typingSubscription) {
+        typingSubscription.unsubscribe();
+    }
+    
+    // Subscribe to new channel messages and typing indicators
+    const headers = { limit: String(HISTORY_LIMIT) };
+    if (resumeSeq) {
+        headers['resume-from-seq'] = String(resumeSeq);
+    }
+    currentSubscription = stompClient.subscribe(`/topic/messages/${channelId}`, onMessageReceived, headers);
+    clearTimeout(replayTimer);
+    replayTimer = setTimeout(() => {
+        if (!historyLoaded) {
+            console.warn('No history replay for channel', channelId);
+            releaseQueuedMessages();
+        }
+    }, REPLAY_TIMEOUT_MS);
+    typingSubscription = stompClient.subscribe(`/topic/typing/${channelId}`, onTypingReceived);
+}
+
+function switchChannel(channelId, channelName) {
+    if (channelId === currentChannelId) return;
+    
+    // Update current channel
+    currentChannelId = channelId;
+    document.getElementById('currentChannelName').textContent = channelName;
+    
+    // Show the channel's kept messages and clear typing indicators
+    const store = showChannelMessages(channelId);
+    document.getElementById('typingIndicator').innerHTML = '';
+    historyLoaded = false;
+    messageQueue = [];
+    
+    // Reset current user's typing state and clear debounce timer
+    isCurrentlyTyping = false;
+    if (typingDebounceTimer) {
+        clearTimeout(typingDebounceTimer);
+        typingDebounceTimer = null;
+    }
+    
+    // Clear all typing indicator timeouts before clearing the map
+    typingUsers.forEach(timeoutId => clearTimeout(timeoutId));
+    typingUsers.clear();
+    
+    // Subscribe to new channel; history arrives as the first frame of the subscription.
+    // A channel shown before only gets the messages sent since then.
+    subscribeToChannel(channelId, store.lastSeq);
+    
+    // Update UI
+    displayChannels();
+    
+    // Send join notification
+    stompClient.send(`/app/chat.join/${channelId}`, {}, JSON.stringify({
+        username: username
+    }));
+    
+    schedulePrefetch();
+}
+
+function showCreateChannelModal() {
+    document.getElementById('createChannelModal').classList.add('active');
+}
+
+function hideCreateChannelModal() {
+    document.getElementById('createChannelModal').classList.remove('active');
+    document.getElementById('createChannelForm').reset();
+}
+
+async function createChannel(event) {
+    event.preventDefault();
+    
+    const name = document.getElementById('channelName').value.trim();
+    const description = document.getElementById('channelDescription').value.trim();
+    
+    try {
+        const response = await authFetch(`${backendUrl}/api/channels`, {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/json'
+            },
+            body: JSON.stringify({
+                name: name,
+                description: description,
+                createdBy: username
+            })
+        });
+        
+        if (response.ok) {
+            const newChannel = await response.json();
+            hideCreateChannelModal();
+            
+            // Add it right away; the created event that follows on /topic/channels is a no-op
+            applyChannelEvent({
+                type: 'created',
+                channel: { id: newChannel.id, name: newChannel.name, description: newChannel.description }
+            });
+            
+            // Switch to new channel
+            switchChannel(newChannel.id, newChannel.name);
+        } else if (response.status === 401 || response.status === 403) {
+            // Token expired or invalid, redirect to login
+            handleAuthError();
+        } else {
+            const error = await response.json();
+            alert(error.error || 'Failed to create channel');
+        }
+    } catch (error) {
+        console.error('Error creating channel:', error);
+        alert('Failed to create channel');
+    }
+}
+
+function handleAuthError() {
+    // Clear session and redirect to login
+    sessionStorage.clear();
+    alert('Your session has expired. Please log in again.');
+    window.location.href = '/';
+}
+
+function updateStatus(isConnected) {
+    const indicator = document.getElementById('statusIndicator');
+    const text = document.getElementById('statusText');
+    
+    if (isConnected) {
+        indicator.classList.remove('disconnected');
+        text.textContent = 'Connected';
+    } else {
+        indicator.classList.add('disconnected');
+        text.textContent = 'Disconnected';
+    }
+}
+
+function logout() {
+    if (stompClient) {
+        stompClient.disconnect();
+    }
+    // Revoke both tokens so they cannot be reused; the page does not wait for the answer
+    fetch(`${backendUrl}/api/users/logout`, {
+        method: 'POST',
+        keepalive: true,
+        headers: {
+            'Content-Type': 'application/json',
+            'Authorization': `Bearer ${jwtToken}`
+        },
+        body: JSON.stringify({ refreshToken: sessionStorage.getItem('refreshToken') })
+    }).catch(() => {});
+    sessionStorage.removeItem('username');
+    sessionStorage.removeItem('jwtToken');
+    sessionStorage.removeItem('refreshToken');
+    sessionStorage.removeItem('userId');
+    window.location.href = '/';
+}
+
+function escapeHtml(text) {
+    const div = document.createElement('div');
+    div.textContent = text;
+    return div.innerHTML;
+}
+
+function onTypingReceived(payload) {
+    const typingIndicator = JSON.parse(payload.body);
+    
+    // Don't show typing indicator for the current user
+    if (typingIndicator.username === username) {
+        return;
+    }
+    
+    if (typingIndicator.typing) {
+        // User started typing
+        // Clear any existing timeout for this user
+        if (typingUsers.has(typingIndicator.username)) {
+            clearTimeout(typingUsers.get(typingIndicator.username));
+        }
+        
+        // Set a new timeout to clear this user's typing indicator
+        const timeoutId = setTimeout(() => {
+            typingUsers.delete(typingIndicator.username);
+            updateTypingDisplay();
+        }, TYPING_TIMEOUT_MS);
+        
+        typingUsers.set(typingIndicator.username, timeoutId);
+        updateTypingDisplay();
+    } else {
+        // User stopped typing
+        if (typingUsers.has(typingIndicator.username)) {
+            clearTimeout(typingUsers.get(typingIndicator.username));
+            typingUsers.delete(typingIndicator.username);
+            updateTypingDisplay();
+        }
+    }
+}
+
+function updateTypingDisplay() {
+    const typingDiv = document.getElementById('typingIndicator');
+    const typingUsernames = Array.from(typingUsers.keys());
+    
+    if (typingUsernames.length === 0) {
+        typingDiv.innerHTML = '';
+    } else if (typingUsernames.length === 1) {
+        typingDiv.innerHTML = `<strong>${escapeHtml(typingUsernames[0])}</strong> is typing <span class="dots"><span>.</span><span>.</span><span>.</span></span>`;
+    } else if (typingUsernames.length === 2) {
+        typingDiv.innerHTML = `<strong>${escapeHtml(typingUsernames[0])}</strong> and <strong>${escapeHtml(typingUsernames[1])}</strong> are typing <span class="dots"><span>.</span><span>.</span><span>.</span></span>`;
+    } else {
+        typingDiv.innerHTML = `<strong>${escapeHtml(typingUsernames[0])}</strong>, <strong>${escapeHtml(typingUsernames[1])}</strong>, and ${typingUsernames.length - 2} others are typing <span class="dots"><span>.</span><span>.</span><span>.</span></span>`;
+    }
+}
+
+function sendTypingIndicator(isTyping) {
+    if (stompClient && connected && currentChannelId) {
+        stompClient.send(`/app/chat.typing/${currentChannelId}`, {}, JSON.stringify({
+            username: username,
+            typing: isTyping
+        }));
+    }
+}
+
+function onMessageInputKeyup() {
+    const messageInput = document.getElementById('messageInput');
+    
+    // If input is not empty, send typing indicator
+    if (messageInput.value.trim().length > 0) {
+        // Send immediately if not already typing
+        if (!isCurrentlyTyping) {
+            sendTypingIndicator(true);
+            isCurrentlyTyping = true;
+        }
+        
+        // Clear existing debounce timer
+        if (typingDebounceTimer) {
+            clearTimeout(typingDebounceTimer);
+        }
+        
+        // Set timer to send another typing event if still typing
+        // This keeps the indicator alive on the other end
+        typingDebounceTimer = setTimeout(() => {
+            // Re-check input length in case user cleared it during the timeout
+            if (messageInput.value.trim().length > 0) {
+                sendTypingIndicator(true);
+            }
+        }, TYPING_DEBOUNCE_MS);
+    } else {
+        // Input is empty, immediately clear typing indicator
+        sendTypingIndicator(false);
+        isCurrentlyTyping = false;
+        if (typingDebounceTimer) {
+            clearTimeout(typingDebounceTimer);
+            typingDebounceTimer = null;
+        }
+    }
+}
+
+// Event listeners
+document.getElementById('messageForm').addEventListener('submit', sendMessage);
+document.getElementById('createChannelForm').addEventListener('submit', createChannel);
+document.getElementById('messageInput').addEventListener('keyup', onMessageInputKeyup);
+
+// Connect on page load
+connect();
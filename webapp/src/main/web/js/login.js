@@ -0,0 +1,149 @@
+// Login and registration page. backendUrl is set by the page.
+
+const form = document.getElementById('authForm');
+const usernameInput = document.getElementById('username');
+const passwordInput = document.getElementById('password');
+const usernameError = document.getElementById('usernameError');
+const passwordError = document.getElementById('passwordError');
+const submitBtn = document.getElementById('submitBtn');
+const toggleBtn = document.getElementById('toggleBtn');
+const toggleText = document.getElementById('toggleText');
+
+let isLoginMode = true;
+
+// Toggle between login and register mode
+toggleBtn.addEventListener('click', () => {
+    isLoginMode = !isLoginMode;
+    if (isLoginMode) {
+        submitBtn.textContent = 'Login';
+        toggleText.textContent = "Don't have an account?";
+        toggleBtn.textContent = 'Register';
+        usernameInput.setAttribute('autocomplete', 'username');
+        passwordInput.setAttribute('autocomplete', 'current-password');
+    } else {
+        submitBtn.textContent = 'Register';
+        toggleText.textContent = 'Already have an account?';
+        toggleBtn.textContent = 'Login';
+        usernameInput.setAttribute('autocomplete', 'off');
+        passwordInput.setAttribute('autocomplete', 'new-password');
+    }
+    clearErrors();
+});
+
+form.addEventListener('submit', async (e) => {
+    e.preventDefault();
+    clearErrors();
+    
+    const username = usernameInput.value.trim();
+    const password = passwordInput.value;
+    
+    // Validate username
+    if (username.length < 3) {
+        showError(usernameError, 'Username must be at least 3 characters');
+        return;
+    }
+    
+    if (username.length > 50) {
+        showError(usernameError, 'Username must be 50 characters or less');
+        return;
+    }
+    
+    if (!/^[A-Za-z0-9_]+$/.test(username)) {
+        showError(usernameError, 'Username can only contain letters, numbers, and underscores');
+        return;
+    }
+    
+    // Validate password
+    if (password.length < 8) {
+        showError(passwordError, 'Password must be at least 8 characters');
+        return;
+    }
+    
+    if (!/[A-Z]/.test(password)) {
+        showError(passwordError, 'Password must contain at least one uppercase letter');
+        return;
+    }
+    
+    if (!/[a-z]/.test(password)) {
+        showError(passwordError, 'Password must contain at least one lowercase letter');
+        return;
+    }
+    
+    if (!/[0-9]/.test(password)) {
+        showError(passwordError, 'Password must contain at least one digit');
+        return;
+    }
+    
+    // Disable button during request
+    submitBtn.disabled = true;
+    submitBtn.textContent = isLoginMode ? 'Logging in...' : 'Registering...';
+    
+    try {
+        const endpoint = isLoginMode ? '/api/users/login' : '/api/users/register';
+        const response = await fetch(`${backendUrl}${endpoint}`, {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/json',
+            },
+            body: JSON.stringify({ 
+                username: username,
+                password: password 
+            })
+        });
+        
+        if (response.ok) {
+            const data = await response.json();
+            // Store JWT tokens, username, and user ID
+            sessionStorage.setItem('jwtToken', data.token);
+            sessionStorage.setItem('refreshToken', data.refreshToken);
+            sessionStorage.setItem('username', data.username);
+            sessionStorage.setItem('userId', data.userId);
+            
+            // Redirect to chat
+            window.location.href = '/chat';
+        } else {
+            // Handle error responses - check if response is JSON
+            let errorMessage = isLoginMode ? 'Login failed' : 'Registration failed';
+            const contentType = response.headers.get('content-type') || '';
+            
+            if (contentType.includes('application/json')) {
+                try {
+                    const errorData = await response.json();
+                    if (errorData && errorData.error) {
+                        errorMessage = errorData.error;
+                    }
+                } catch (parseError) {
+                    // JSON parsing failed, fall back to statusText if available
+                }
+            }
+            
+            // Use statusText as fallback if available
+            if (response.statusText && errorMessage === (isLoginMode ? 'Login failed' : 'Registration failed')) {
+                errorMessage = response.statusText;
+            }
+            
+            showError(passwordError, errorMessage);
+            submitBtn.disabled = false;
+            submitBtn.textContent = isLoginMode ? 'Login' : 'Register';
+        }
+    } catch (error) {
+        console.error('Authentication error:', error);
+        showError(passwordError, 'Could not connect to server. Please try again.');
+        submitBtn.disabled = false;
+        submitBtn.textContent = isLoginMode ? 'Login' : 'Register';
+    }
+});
+
+function showError(element, message) {
+    element.textContent = message;
+    element.classList.add('show');
+    // Auto-hide error after 5 seconds
+    setTimeout(() => {
+        element.classList.remove('show');
+    }, 5000);
+}
+
+function clearErrors() {
+    usernameError.classList.remove('show');
+    passwordError.classList.remove('show');
+}
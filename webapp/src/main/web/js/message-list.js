@@ -0,0 +1,310 @@
+/*
+ * Message history of the chat page: per-channel row stores and a virtualized list that keeps
+ * only the rows in and near the visible area in the DOM.
+ */
+(function (global) {
+    'use strict';
+
+    const OVERSCAN_PX = 600; // Rendered above and below the visible area, so scrolling rarely shows gaps
+    const BOTTOM_SLACK_PX = 40; // Closer than this to the bottom counts as following new messages
+    const DEFAULT_ROW_HEIGHT = 72; // Guess for rows not measured yet, until some have been
+    const SEEN_IDS_CAPACITY = 2000; // Ids remembered per channel to drop messages received twice
+
+    const TIME_FORMAT = { hour: '2-digit', minute: '2-digit', second: '2-digit' };
+
+    /**
+     * The rows of one channel, oldest first, capped at maxRows. A row is one message, or a run
+     * of identical consecutive messages shown once with a count.
+     */
+    class ChannelMessages {
+        constructor(maxRows) {
+            this.maxRows = maxRows;
+            this.refreshedAt = 0; // When the rows were last brought up to date in the background
+            this.clear();
+        }
+
+        clear() {
+            this.rows = [];
+            this.seenIds = new Set(); // Ids of the newest messages added, oldest first
+            this.lastMessageId = 0; // Newest id added; the point to fetch newer messages from
+            this.lastSeq = 0; // Newest per-channel sequence number; resume point for the next subscription
+            this.trimmedHeight = 0; // Height of rows dropped from the top since the list last looked
+            this.scrollTop = null; // Saved scroll position while not shown; null follows the newest message
+        }
+
+        /**
+         * @return true if the rows changed
+         */
+        add(message, fresh) {
+            // Skip messages already shown (a message saved during subscribe can arrive both replayed and live).
+            // Concurrent sends can arrive out of id order, so this checks the ids seen, not the newest one.
+            if (message.id != null) {
+                if (this.seenIds.has(message.id)) {
+                    return false;
+                }
+                this.seenIds.add(message.id);
+                if (this.seenIds.size > SEEN_IDS_CAPACITY) {
+                    this.seenIds.delete(this.seenIds.values().next().value);
+                }
+                this.lastMessageId = Math.max(this.lastMessageId, message.id);
+            }
+            if (message.seq != null && message.seq > this.lastSeq) {
+                this.lastSeq = message.seq;
+            }
+            const last = this.rows[this.rows.length - 1];
+            if (last && last.message.username === message.username && last.message.content === message.content) {
+                // Consecutive duplicate: count it and show the latest time
+                last.count++;
+                last.timestamp = message.timestamp;
+                return true;
+            }
+            this.rows.push({ message: message, count: 1, timestamp: message.timestamp, height: 0, fresh: fresh });
+            if (this.rows.length > this.maxRows) {
+                for (const row of this.rows.splice(0, this.rows.length - this.maxRows)) {
+                    this.trimmedHeight += row.height;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Shows a ChannelMessages in a scrolling container. Rows outside the visible area are
+     * replaced by two spacers sized from measured (or estimated) row heights; rows that stay
+     * visible across renders keep their elements, and only rows entering or leaving the
+     * visible range are added or removed.
+     */
+    class MessageList {
+        constructor(container) {
+            this.container = container;
+            this.topSpacer = document.createElement('div');
+            this.viewport = document.createElement('div');
+            this.bottomSpacer = document.createElement('div');
+            container.replaceChildren(this.topSpacer, this.viewport, this.bottomSpacer);
+            this.store = null;
+            this.rendered = new Map(); // Element by row, for the rows in the DOM
+            this.rowGap = null;
+            this.renderScheduled = false;
+            container.addEventListener('scroll', () => this.scheduleRender(), { passive: true });
+            window.addEventListener('resize', () => {
+                // Wrapping changes with the width, so every height has to be measured again
+                if (this.store) {
+                    this.store.rows.forEach(row => { row.height = 0; });
+                }
+                this.scheduleRender();
+            });
+        }
+
+        /**
+         * Shows another channel's rows, restoring where its list was left.
+         */
+        show(store) {
+            if (this.store) {
+                this.store.scrollTop = this.isAtBottom() ? null : this.container.scrollTop;
+            }
+            this.store = store;
+            store.trimmedHeight = 0;
+            this.viewport.replaceChildren();
+            this.rendered.clear();
+            if (store.scrollTop == null) {
+                this.render(true);
+            } else {
+                this.render(false);
+                this.container.scrollTop = store.scrollTop;
+                this.render(false);
+            }
+        }
+
+        /**
+         * Adds messages to the shown channel, following them if the list was at the bottom.
+         *
+         * @param fresh true for live messages, which are animated in
+         */
+        add(messages, fresh) {
+            const follow = this.isAtBottom();
+            let changed = false;
+            for (const message of messages) {
+                changed = this.store.add(message, fresh) || changed;
+            }
+            if (!changed) {
+                return;
+            }
+            if (this.store.trimmedHeight > 0) {
+                // Rows dropped off the top; keep what is on screen in place
+                if (!follow) {
+                    this.container.scrollTop -= this.store.trimmedHeight;
+                }
+                this.store.trimmedHeight = 0;
+            }
+            this.render(follow);
+        }
+
+        clear() {
+            this.store.clear();
+            this.viewport.replaceChildren();
+            this.rendered.clear();
+            this.render(true);
+        }
+
+        isAtBottom() {
+            const c = this.container;
+            return c.scrollHeight - c.scrollTop - c.clientHeight < BOTTOM_SLACK_PX;
+        }
+
+        scheduleRender() {
+            if (!this.renderScheduled) {
+                this.renderScheduled = true;
+                requestAnimationFrame(() => {
+                    this.renderScheduled = false;
+                    this.render(false);
+                });
+            }
+        }
+
+        render(toBottom) {
+            // Heights are estimates until rows have been rendered, so settle in two passes
+            for (let pass = 0; pass < 2; pass++) {
+                if (toBottom) {
+                    this.container.scrollTop = this.container.scrollHeight;
+                }
+                this.layout();
+            }
+            if (toBottom) {
+                this.container.scrollTop = this.container.scrollHeight;
+            }
+        }
+
+        layout() {
+            const rows = this.store ? this.store.rows : [];
+            let measured = 0;
+            let measuredHeight = 0;
+            for (const row of rows) {
+                if (row.height) {
+                    measured++;
+                    measuredHeight += row.height;
+                }
+            }
+            const estimate = measured ? measuredHeight / measured : DEFAULT_ROW_HEIGHT;
+            const heightOf = row => row.height || estimate;
+            const total = measuredHeight + (rows.length - measured) * estimate;
+
+            // The scroll position may be past the end if the estimate shrank since the spacers were sized
+            const clientHeight = this.container.clientHeight;
+            const scrollTop = Math.min(this.container.scrollTop, Math.max(0, total - clientHeight));
+            const viewTop = scrollTop - OVERSCAN_PX;
+            const viewBottom = scrollTop + clientHeight + OVERSCAN_PX;
+            let start = rows.length;
+            let end = rows.length;
+            let offset = 0;
+            let topHeight = 0;
+            for (let i = 0; i < rows.length; i++) {
+                const height = heightOf(rows[i]);
+                if (start === rows.length && offset + height > viewTop) {
+                    start = i;
+                    topHeight = offset;
+                }
+                if (offset > viewBottom) {
+                    end = i;
+                    break;
+                }
+                offset += height;
+            }
+            const visible = rows.slice(start, end);
+            this.sync(visible);
+
+            for (const row of visible) {
+                row.height = this.measure(this.rendered.get(row));
+            }
+            let bottomHeight = 0;
+            for (let i = end; i < rows.length; i++) {
+                bottomHeight += heightOf(rows[i]);
+            }
+            this.topSpacer.style.height = `${topHeight}px`;
+            this.bottomSpacer.style.height = `${bottomHeight}px`;
+        }
+
+        // Brings the viewport's children in line with the rows to show, touching only the difference
+        sync(visible) {
+            const keep = new Set(visible);
+            for (const [row, element] of this.rendered) {
+                if (!keep.has(row)) {
+                    element.remove();
+                    this.rendered.delete(row);
+                }
+            }
+            let next = this.viewport.firstChild;
+            for (const row of visible) {
+                let element = this.rendered.get(row);
+                if (!element) {
+                    element = this.createRow(row);
+                    this.rendered.set(row, element);
+                    this.viewport.insertBefore(element, next);
+                    continue;
+                }
+                if (element !== next) {
+                    this.viewport.insertBefore(element, next);
+                }
+                this.updateRow(element, row);
+                next = element.nextSibling;
+            }
+        }
+
+        createRow(row) {
+            const element = document.createElement('div');
+            element.className = 'message';
+            if (row.message.username === 'System') {
+                element.classList.add('system');
+            }
+            if (row.fresh) {
+                element.classList.add('new');
+                row.fresh = false;
+            }
+            const header = document.createElement('div');
+            header.className = 'message-header';
+            const name = document.createElement('span');
+            name.className = 'message-username';
+            name.textContent = row.message.username;
+            const time = document.createElement('span');
+            time.className = 'message-time';
+            header.append(name, time);
+            const content = document.createElement('div');
+            content.className = 'message-content';
+            content.textContent = row.message.content;
+            element.append(header, content);
+            this.updateRow(element, row);
+            return element;
+        }
+
+        // Count and time are the only parts of a row that change after it is created
+        updateRow(element, row) {
+            if (element.renderedCount === row.count && element.renderedTimestamp === row.timestamp) {
+                return;
+            }
+            element.renderedCount = row.count;
+            element.renderedTimestamp = row.timestamp;
+            element.querySelector('.message-time').textContent =
+                new Date(row.timestamp).toLocaleTimeString('en-US', TIME_FORMAT);
+            let badge = element.querySelector('.message-count');
+            if (row.count > 1) {
+                if (!badge) {
+                    badge = document.createElement('span');
+                    badge.className = 'message-count';
+                    element.querySelector('.message-header').appendChild(badge);
+                }
+                badge.textContent = 'x' + row.count;
+            } else if (badge) {
+                badge.remove();
+            }
+        }
+
+        measure(element) {
+            if (this.rowGap === null) {
+                this.rowGap = parseFloat(getComputedStyle(element).marginBottom) || 0;
+            }
+            return element.offsetHeight + this.rowGap;
+        }
+    }
+
+    global.ChannelMessages = ChannelMessages;
+    global.MessageList = MessageList;
+})(window);